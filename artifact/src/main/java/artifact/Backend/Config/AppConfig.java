@@ -0,0 +1,32 @@
+package artifact.Backend.Config;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+/**
+ * Tuning settings for the data and sync layers.
+ * <p>
+ * Values are read from JVM system properties first (e.g. {@code -DSYNC_BATCH_SIZE=200}),
+ * then from the {@code .env} file / environment, and fall back to the given default.
+ * Unlike the secrets loaded elsewhere, none of these settings are required, so a missing
+ * {@code .env} file is not an error here.
+ * </p>
+ */
+public class AppConfig {
+
+    private static final Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+
+    public static String get(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) value = dotenv.get(key);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(get(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid number for " + key + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+}
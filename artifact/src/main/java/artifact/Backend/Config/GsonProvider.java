@@ -16,10 +16,20 @@ public class GsonProvider {
             .setPrettyPrinting()
             .create();
 
+    // Single-line variant for append-only files (journals, queues) where one record = one line
+    private static final Gson compactGson = new GsonBuilder()
+            .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+            .create();
+
     public static Gson getGson() {
         return gson;
     }
 
+    public static Gson getCompactGson() {
+        return compactGson;
+    }
+
     // --- Adapters ---
     private static class LocalDateAdapter extends TypeAdapter<LocalDate> {
         @Override public void write(JsonWriter out, LocalDate value) throws IOException {
@@ -4,6 +4,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 import artifact.Backend.Models.FlightSearchResult;
 
@@ -22,11 +23,15 @@ public class FlightSearchState {
     
     private Set<String> selectedSeats;
 
+    // Identifies this booking session's seat holds (see ReservationService.holdSeats)
+    private String holdToken;
+
     private FlightSearchState() {
         this.searchResults = Collections.emptyList();
         this.selectedCabin = "Economy";
         this.guestCount = 1;
         this.selectedSeats = new HashSet<>();
+        this.holdToken = UUID.randomUUID().toString();
     }
 
     public static FlightSearchState getInstance() {
@@ -62,6 +67,8 @@ public class FlightSearchState {
         this.selectedSeats.remove(seat);
     }
     
+    public String getHoldToken() { return holdToken; }
+
     public boolean isSelectionComplete() {
         return selectedSeats.size() == guestCount;
     }
@@ -72,5 +79,6 @@ public class FlightSearchState {
         selectedCabin = "Economy";
         guestCount = 1;
         selectedSeats.clear();
+        holdToken = UUID.randomUUID().toString();
     }
 }
\ No newline at end of file
@@ -69,7 +69,7 @@ public class MyBookingsController extends BaseController {
         boolean success = ticketService.confirmPayment(ticket, reservation);
         
         if (!success) {
-            result.setGlobalError("An error occurred while confirming your payment.");
+            result.setGlobalError("Your payment could not be confirmed. The reservation may have expired.");
         }
         
         return result;
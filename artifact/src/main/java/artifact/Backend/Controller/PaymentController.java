@@ -138,7 +138,8 @@ public class PaymentController extends BaseController {
                     currentUser,
                     seat,           // Current seat in loop
                     pricePerSeat,   // Split price
-                    status
+                    status,
+                    state.getHoldToken()
             ); 
             
             ServiceResult result = bookingService.bookFlight(request);
@@ -68,6 +68,15 @@ public class SeatSelectionController extends BaseController {
             AlertUtils.errorBox("Please select " + remaining + " more seat(s).", "Incomplete Selection");
             return;
         }
+
+        // Hold the seats while the customer pays, so nobody else can book them in the meantime
+        long flightId = state.getSelectedFlight().flight().id();
+        if (!reservationService.holdSeats(flightId, state.getSelectedSeats(), state.getHoldToken())) {
+            AlertUtils.errorBox("One or more of your seats were just taken by another passenger. Please choose again.", "Seats Unavailable");
+            state.getSelectedSeats().clear();
+            navigation.navigateTo(View.SEAT_SELECTION);
+            return;
+        }
         navigation.navigateTo(View.PAYMENT);
     }
 
@@ -76,7 +85,8 @@ public class SeatSelectionController extends BaseController {
         if (flight == null) {
             return Collections.emptySet();
         }
-        return reservationService.getTakenSeats(flight.flight().id());
+        // Seats this session already holds stay selectable when coming back from payment
+        return reservationService.getTakenSeats(flight.flight().id(), state.getHoldToken());
     }
     
     // --- Navbar Navigation ---
@@ -9,5 +9,6 @@ public record BookingRequest(
     User customer,
     String seatNumber,
     double price,
-    BookingStatus status
+    BookingStatus status,
+    String holdToken // Seat-hold session from seat selection, null if the seat was not held
 ) {}
\ No newline at end of file
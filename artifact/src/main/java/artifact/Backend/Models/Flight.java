@@ -9,5 +9,6 @@ public record Flight(
     long crewId,
     LocalDateTime departureTime,
     LocalDateTime arrivalTime,
-    int availableSeats
-) {}
+    int availableSeats,
+    long version // Cloud version this copy is based on
+) implements Versioned {}
@@ -11,5 +11,6 @@ public record SupportTicket(
     String subject,
     TicketStatus status,
     LocalDate createdAt,
-    List<SupportMessage> messages // The conversation history
-) {}
+    List<SupportMessage> messages, // The conversation history
+    long version // Cloud version this copy is based on
+) implements Versioned {}
@@ -0,0 +1,10 @@
+package artifact.Backend.Models;
+
+/**
+ * A record that several terminals may change at once. Its version counts the writes stored in the
+ * cloud; local changes keep the version they were made on, and the sync layer only writes them if the
+ * cloud is still at that version (see {@code OptimisticWrite}).
+ */
+public interface Versioned {
+    long version();
+}
@@ -0,0 +1,460 @@
+package artifact.Backend.Repositories.Impl;
+
+import artifact.Backend.Repositories.Snapshot.FxSnapshotList;
+import artifact.Backend.Repositories.Snapshot.ReadSnapshot;
+import artifact.Backend.Repositories.Storage.Database;
+import artifact.Backend.Services.Impl.SyncService;
+import artifact.Backend.Supabase.SupabaseSync;
+import artifact.Backend.Supabase.SyncWatermarks;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import javafx.collections.ObservableList;
+
+import java.lang.reflect.Type;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Base class for repositories stored in the embedded H2 database ({@code StorageMode.DATABASE}).
+ * <p>
+ * Every row lives in an indexed table and lookups are answered by prepared queries, so nothing
+ * but the rows asked for is loaded. Full-table reads go through {@link #snapshot()}, which is
+ * cached until the next write, and the list returned by {@link #getAll()} (bound by the admin
+ * tables) follows those snapshots on the FX thread.
+ * </p>
+ * <p>
+ * On first start (empty table) the rows are imported from the JSON/binary repository of the same
+ * name, including its journal and archive, in batches. Writes are queued for Supabase exactly as in
+ * the file-based repositories.
+ * </p>
+ *
+ * @param <T> Model class (e.g. Flight).
+ */
+public abstract class BaseJdbcRepository<T> {
+
+    private static final int BATCH_SIZE = 500;
+
+    protected final Database db;
+    protected final String table;
+    protected final String supabaseTable;
+    private final Type elementType;
+    private final Function<T, Long> idExtractor;
+
+    private final String selectSql;
+    private final String insertSql;
+    private final String insertGeneratedSql;
+    private final String updateSql;
+    private final String mergeSql;
+    private final int columnCount;
+
+    // Read snapshots: writeVersion counts writes made through the repository; the snapshot is re-read after one
+    private volatile long writeVersion;
+    private volatile ReadSnapshot<T> snapshot = ReadSnapshot.empty();
+
+    // List bound by the UI, null until getAll() is first called (guarded by this)
+    private FxSnapshotList<T> view;
+
+    /**
+     * @param table     SQL table, created by {@code ddl} if missing. The key column is always {@code id}.
+     * @param columns   The other columns, in the order {@link #bind} sets them.
+     * @param source    The file-based repository to import from when the table is empty.
+     * @param ddl       {@code CREATE TABLE/INDEX IF NOT EXISTS} statements for the table and its indexes.
+     */
+    protected BaseJdbcRepository(Database db, String table, String[] columns, String supabaseTable, Type elementType,
+                                 Function<T, Long> idExtractor, Supplier<? extends BaseJsonRepository<T>> source,
+                                 String... ddl) {
+        this.db = db;
+        this.table = table;
+        this.supabaseTable = supabaseTable;
+        this.elementType = elementType;
+        this.idExtractor = idExtractor;
+        this.columnCount = columns.length;
+
+        String names = String.join(", ", columns);
+        String marks = String.join(", ", Collections.nCopies(columns.length, "?"));
+        this.selectSql = "SELECT id, " + names + " FROM " + table;
+        this.insertSql = "INSERT INTO " + table + " (id, " + names + ") VALUES (?, " + marks + ")";
+        this.insertGeneratedSql = "INSERT INTO " + table + " (" + names + ") VALUES (" + marks + ")";
+        this.updateSql = "UPDATE " + table + " SET " + String.join(" = ?, ", columns) + " = ? WHERE id = ?";
+        this.mergeSql = "MERGE INTO " + table + " (id, " + names + ") KEY (id) VALUES (?, " + marks + ")";
+
+        try {
+            db.executeDdl(ddl);
+            if (countRows() == 0) {
+                List<T> rows = source.get().exportAll();
+                if (!rows.isEmpty()) {
+                    db.inTransaction(connection -> {
+                        writeBatch(connection, insertSql, rows);
+                        return null;
+                    });
+                    restartIdentity();
+                    System.out.println("Imported " + rows.size() + " row(s) into " + table + ".");
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error preparing table " + table + ": " + e.getMessage());
+        }
+    }
+
+    /** Reads one row (positioned by the caller) into a model object. */
+    protected abstract T map(ResultSet row) throws SQLException;
+
+    /** Sets the non-key columns of {@code item}, in constructor order, starting at parameter {@code first}. */
+    protected abstract void bind(PreparedStatement statement, int first, T item) throws SQLException;
+
+    /** Copy of {@code item} carrying a database-generated ID. */
+    protected abstract T withId(T item, long id);
+
+    /**
+     * Completes rows after they were read, e.g. with child rows from another table. Default: unchanged.
+     */
+    protected List<T> complete(Connection connection, List<T> rows) throws SQLException {
+        return rows;
+    }
+
+    /**
+     * Writes child rows after {@code items} were inserted or replaced. Default: nothing to write.
+     */
+    protected void storeChildren(Connection connection, List<T> items) throws SQLException {}
+
+    // --- Reads ---
+
+    /**
+     * Rows matching a query over this table.
+     * @param clause Everything after {@code FROM <table>}, e.g. {@code "WHERE flight_id = ? ORDER BY id"}.
+     * @return The rows, or an empty list if the query failed.
+     */
+    protected List<T> select(String clause, Database.Binder binder) {
+        try (Connection connection = db.connect()) {
+            return select(connection, clause, binder);
+        } catch (SQLException e) {
+            System.err.println("Error querying " + table + ": " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Same as {@link #select(String, Database.Binder)}, on a connection of a running transaction.
+     */
+    protected List<T> select(Connection connection, String clause, Database.Binder binder) throws SQLException {
+        return complete(connection, Database.query(connection, selectSql + " " + clause, binder, this::map));
+    }
+
+    /**
+     * List for JavaFX bindings, updated on the FX application thread (see {@link FxSnapshotList}).
+     * A burst of writes costs one query for the list, and only once something has asked for it.
+     */
+    public synchronized ObservableList<T> getAll() {
+        if (view == null) view = new FxSnapshotList<>(this::snapshot);
+        return view.items();
+    }
+
+    /**
+     * Immutable view of all rows, read with one query after each write and shared until the next one.
+     * The database is MVCC, so the query never blocks writers.
+     */
+    public ReadSnapshot<T> snapshot() {
+        ReadSnapshot<T> current = snapshot;
+        long version = writeVersion;
+        if (current.version() == version) return current;
+        // Writes finishing during the query leave the version behind, so the next read queries again
+        ReadSnapshot<T> fresh = new ReadSnapshot<>(version, select("ORDER BY id", s -> {}));
+        snapshot = fresh;
+        return fresh;
+    }
+
+    // Called after every write made through the repository
+    private void published() {
+        writeVersion++;
+        FxSnapshotList<T> list = view;
+        if (list != null) list.invalidate();
+    }
+
+    public T findById(long id) {
+        List<T> rows = select("WHERE id = ?", s -> s.setLong(1, id));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public int count() {
+        try {
+            return countRows();
+        } catch (SQLException e) {
+            System.err.println("Error counting " + table + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private int countRows() throws SQLException {
+        return db.query("SELECT COUNT(*) FROM " + table, s -> {}, r -> r.getInt(1)).get(0);
+    }
+
+    // --- Writes ---
+
+    public void add(T item) {
+        insert(item);
+    }
+
+    /**
+     * Inserts a row. Rows without an ID (0) get the next ID of the table's identity column.
+     * @return The stored row with its ID, or null if the insert failed.
+     */
+    protected synchronized T insert(T item) {
+        long id = idExtractor.apply(item);
+        try {
+            T stored = db.inTransaction(connection -> {
+                T row = item;
+                if (id > 0) {
+                    try (PreparedStatement statement = connection.prepareStatement(insertSql)) {
+                        statement.setLong(1, id);
+                        bind(statement, 2, item);
+                        statement.executeUpdate();
+                    }
+                } else {
+                    try (PreparedStatement statement = connection.prepareStatement(insertGeneratedSql, Statement.RETURN_GENERATED_KEYS)) {
+                        bind(statement, 1, item);
+                        statement.executeUpdate();
+                        try (ResultSet keys = statement.getGeneratedKeys()) {
+                            keys.next();
+                            row = withId(item, keys.getLong(1));
+                        }
+                    }
+                }
+                storeChildren(connection, List.of(row));
+                return row;
+            });
+            if (id > 0) restartIdentity();
+            published();
+            SyncService.enqueue(supabaseTable, stored);
+            return stored;
+        } catch (SQLException e) {
+            System.err.println("Error inserting into " + table + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public synchronized void update(T item) {
+        long id = idExtractor.apply(item);
+        try {
+            T previous = db.inTransaction(connection -> {
+                // The row being replaced is the base of the sync write (see SyncService.enqueue)
+                List<T> before = select(connection, "WHERE id = ? FOR UPDATE", s -> s.setLong(1, id));
+                if (before.isEmpty()) return null;
+                try (PreparedStatement statement = connection.prepareStatement(updateSql)) {
+                    bind(statement, 1, item);
+                    statement.setLong(columnCount + 1, id);
+                    statement.executeUpdate();
+                }
+                storeChildren(connection, List.of(item));
+                return before.get(0);
+            });
+            if (previous == null) return;
+            published();
+            // Pushed as an upsert of the full row; unsent earlier writes to the same row are coalesced
+            SyncService.enqueue(supabaseTable, item, previous);
+        } catch (SQLException e) {
+            System.err.println("Error updating " + table + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Publishes a row changed outside {@link #update} to the UI list and the sync queue. Callers hold
+     * the repository lock from the change until this returns, so a row pulled from the cloud in
+     * between can never overwrite the change before it is queued.
+     *
+     * @param previous The row as it was before the change (the base of the sync write).
+     */
+    protected synchronized void changed(T previous) {
+        T item = findById(idExtractor.apply(previous));
+        if (item == null) return;
+        published();
+        SyncService.enqueue(supabaseTable, item, previous);
+    }
+
+    public synchronized void delete(long id) {
+        try {
+            if (db.update("DELETE FROM " + table + " WHERE id = ?", s -> s.setLong(1, id)) > 0) {
+                published();
+                SyncService.enqueueDelete(supabaseTable, id);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error deleting from " + table + ": " + e.getMessage());
+        }
+    }
+
+    private void writeBatch(Connection connection, String sql, List<T> items) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int pending = 0;
+            for (T item : items) {
+                statement.setLong(1, idExtractor.apply(item));
+                bind(statement, 2, item);
+                statement.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) statement.executeBatch();
+        }
+        storeChildren(connection, items);
+    }
+
+    // Rows inserted with explicit IDs do not advance the identity column, so move it past them
+    private void restartIdentity() throws SQLException {
+        long next = db.query("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table, s -> {}, r -> r.getLong(1)).get(0);
+        db.executeDdl("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+    }
+
+    // --- Cloud ---
+
+    /**
+     * Pulls the table from Supabase: only the rows changed since the last pull when a watermark
+     * exists, otherwise the whole table. Rows are written in batches inside one transaction.
+     */
+    public void refreshFromCloud() {
+        String since = SyncWatermarks.get(supabaseTable);
+        if (since == null || !pullChanges(since)) {
+            pullAll();
+        }
+    }
+
+    private void pullAll() {
+        System.out.println("Syncing " + supabaseTable + " from Cloud...");
+        // Rows added after this point are not in the download but were not deleted in the cloud either
+        List<Long> local;
+        try {
+            local = db.query("SELECT id FROM " + table, s -> {}, row -> row.getLong(1));
+        } catch (SQLException e) {
+            System.err.println("Error reading " + supabaseTable + " before a full pull: " + e.getMessage());
+            return;
+        }
+
+        List<T> cloudData = new ArrayList<>();
+        Set<Long> inCloud = new HashSet<>();
+        SyncWatermarks.Tracker latest = new SyncWatermarks.Tracker("updated_at");
+        boolean complete = SupabaseSync.streamAll(supabaseTable, row -> {
+            latest.observe(row);
+            T item = SupabaseSync.fromRow(row, elementType);
+            cloudData.add(item);
+            inCloud.add(idExtractor.apply(item));
+        });
+        if (!complete) return; // keep the local copy rather than wiping it
+
+        // Merged like a delta: rows with unsent local writes are kept, and local rows missing from the cloud were deleted there
+        List<Long> deleted = local.stream().filter(id -> !inCloud.contains(id)).toList();
+        try {
+            mergeFromCloud(cloudData, deleted);
+            SyncWatermarks.advance(supabaseTable, latest.latest());
+        } catch (SQLException e) {
+            System.err.println("Error storing " + supabaseTable + " from Cloud: " + e.getMessage());
+        }
+    }
+
+    // Returns false if the delta could not be fetched or stored, so the caller falls back to a full pull
+    private boolean pullChanges(String since) {
+        List<T> changed = new ArrayList<>();
+        SyncWatermarks.Tracker latest = new SyncWatermarks.Tracker("updated_at");
+        boolean complete = SupabaseSync.streamChangedSince(supabaseTable, since, row -> {
+            latest.observe(row);
+            changed.add(SupabaseSync.fromRow(row, elementType));
+        });
+        JsonArray tombstones = complete ? SupabaseSync.selectTombstonesSince(supabaseTable, since) : null;
+        if (tombstones == null) return false;
+        if (changed.isEmpty() && tombstones.isEmpty()) return true;
+
+        List<Long> deleted = new ArrayList<>();
+        for (JsonElement tombstone : tombstones) {
+            deleted.add(((JsonObject) tombstone).get("row_id").getAsLong());
+        }
+        try {
+            mergeFromCloud(changed, deleted);
+        } catch (SQLException e) {
+            System.err.println("Error storing changes of " + supabaseTable + ": " + e.getMessage());
+            return false;
+        }
+
+        SyncWatermarks.advance(supabaseTable, latest.latest());
+        SyncWatermarks.advance(supabaseTable, SyncWatermarks.latest(tombstones, "deleted_at"));
+        System.out.println("Pulled " + changed.size() + " change(s) and " + deleted.size()
+                + " deletion(s) for " + supabaseTable + ".");
+        return true;
+    }
+
+    /**
+     * Applies row changes pushed by the cloud (see {@code RealtimeFeed}) in one transaction.
+     * They are not queued for sync, and rows with a local write still waiting to be sent are skipped.
+     *
+     * @param rows    Inserted or updated rows, in Supabase column naming.
+     * @param deleted IDs of deleted rows.
+     */
+    public void applyCloudChanges(List<JsonObject> rows, List<Long> deleted) {
+        List<T> changed = new ArrayList<>();
+        for (JsonObject row : rows) changed.add(SupabaseSync.fromRow(row, elementType));
+        try {
+            mergeFromCloud(changed, deleted);
+        } catch (SQLException e) {
+            System.err.println("Error storing changes of " + supabaseTable + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Called (under the repository lock) for every row changed by the cloud, after it was stored.
+     * For state kept outside the table, such as in-memory indexes. Default: nothing.
+     *
+     * @param previous The stored row before the change, or null if it is new.
+     * @param current  The row from the cloud, or null if it was deleted.
+     */
+    protected void onCloudChange(T previous, T current) {}
+
+    // Writes pulled rows (batched MERGE) and deletions in one transaction, keeping rows with an unsent local
+    // write and rows already newer than the cloud copy; rows equal to the stored copy are not written
+    private synchronized void mergeFromCloud(List<T> changed, List<Long> deleted) throws SQLException {
+        List<T> candidates = changed.stream().filter(item -> !SyncService.hasPending(supabaseTable, idExtractor.apply(item))).toList();
+        List<Long> gone = deleted.stream().filter(id -> !SyncService.hasPending(supabaseTable, id)).toList();
+        if (candidates.isEmpty() && gone.isEmpty()) return;
+
+        Long[] ids = new Long[candidates.size() + gone.size()];
+        for (int i = 0; i < candidates.size(); i++) ids[i] = idExtractor.apply(candidates.get(i));
+        for (int i = 0; i < gone.size(); i++) ids[candidates.size() + i] = gone.get(i);
+
+        Map<Long, T> previous = new HashMap<>();
+        List<T> rows = new ArrayList<>();
+        db.inTransaction(connection -> {
+            for (T row : select(connection, "WHERE id = ANY(?)", s -> s.setObject(1, ids))) {
+                previous.put(idExtractor.apply(row), row);
+            }
+            for (T row : candidates) {
+                T stored = previous.get(idExtractor.apply(row));
+                if (!row.equals(stored) && !BaseJsonRepository.isOlder(row, stored)) rows.add(row);
+            }
+            writeBatch(connection, mergeSql, rows);
+            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + table + " WHERE id = ?")) {
+                for (long id : gone) {
+                    statement.setLong(1, id);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            return null;
+        });
+        if (!rows.isEmpty()) restartIdentity();
+        published();
+        for (T row : rows) onCloudChange(previous.get(idExtractor.apply(row)), row);
+        for (long id : gone) {
+            T old = previous.get(id);
+            if (old != null) onCloudChange(old, null);
+        }
+    }
+}
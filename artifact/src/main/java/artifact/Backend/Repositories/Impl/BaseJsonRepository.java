@@ -1,115 +1,618 @@
 package artifact.Backend.Repositories.Impl;
 
+import artifact.Backend.Config.AppConfig;
 import artifact.Backend.Config.GsonProvider;
+import artifact.Backend.Models.Versioned;
+import artifact.Backend.Repositories.Index.LongIntHashMap;
+import artifact.Backend.Repositories.Index.RepositoryIndex;
+import artifact.Backend.Repositories.Index.SecondaryIndex;
+import artifact.Backend.Repositories.Snapshot.FxSnapshotList;
+import artifact.Backend.Repositories.Snapshot.ReadSnapshot;
+import artifact.Backend.Repositories.Storage.BinarySnapshot;
+import artifact.Backend.Repositories.Storage.IdSequence;
+import artifact.Backend.Repositories.Storage.MappedRecordStore;
+import artifact.Backend.Repositories.Storage.PersistenceWriter;
+import artifact.Backend.Repositories.Storage.RecordCodec;
+import artifact.Backend.Repositories.Storage.RepositoryJournal;
+import artifact.Backend.Repositories.Storage.SlotCodec;
+import artifact.Backend.Repositories.Storage.SnapshotFile;
 import artifact.Backend.Services.Impl.SyncService;
 import artifact.Backend.Supabase.SupabaseSync;
-import javafx.collections.FXCollections;
+import artifact.Backend.Supabase.SyncWatermarks;
+import artifact.Backend.Tags.StorageMode;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import javafx.collections.ObservableList;
 
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 // T = Model Class (e.g., User)
 public abstract class BaseJsonRepository<T> {
+    private static final int DEFAULT_ID_BLOCK_SIZE = 100;
+
     protected final String filePath;
-    protected final ObservableList<T> dataList;
+    // Live rows, guarded by this; code outside the repository lock reads snapshot() instead
+    protected final List<T> dataList;
     protected final Type listType;
     protected final String supabaseTable;
     
+    // Where repositories keep their files
+    static final Path DATA_DIR = Paths.get("src/main/resources/data");
+
     // Function to extract ID from an entity (e.g., User::id)
     private final Function<T, Long> idExtractor;
 
+    // Primary-key index: entity ID -> position in dataList (kept in sync by every mutation)
+    private final LongIntHashMap positions = new LongIntHashMap();
+
+    // Secondary indexes declared by subclasses via defineIndex()/registerIndex()
+    private final List<RepositoryIndex<T>> indexes = new CopyOnWriteArrayList<>();
+
+    // Write-ahead log for journaled repositories, null for plain snapshot persistence
+    private final RepositoryJournal<T> journal;
+
+    // Snapshot format: JSON file, or a binary snapshot next to it (the JSON file is then only imported/exported)
+    private final StorageMode storageMode;
+    private final RecordCodec<T> codec;
+    private final Path binaryPath;
+
+    // Allocates new IDs; seeded from every ID the repository has seen (see rebuildIndex/putLocal)
+    private final IdSequence ids;
+
+    // Off-heap store for cold records moved out of dataList by archive(), null when not enabled
+    private volatile MappedRecordStore<T> archive;
+
+    // Read snapshots: writeVersion counts published writes, snapshot is rebuilt lazily on the first read after one
+    private volatile long writeVersion;
+    private volatile int liveCount;
+    private volatile ReadSnapshot<T> snapshot = ReadSnapshot.empty();
+    private FxSnapshotList<T> view;
+
+    // Guards the snapshot file; bumped on every snapshot so a stale compaction never overwrites a newer one
+    private final Object snapshotLock = new Object();
+    private long snapshotVersion;
+
+    // Set when a snapshot exists on disk but no generation of it could be read; seeding is skipped then
+    private boolean loadFailed;
+
     public BaseJsonRepository(String filename, Type listType, String supabaseTable, Function<T, Long> idExtractor) {
-        this.filePath = "src/main/resources/data/" + filename;
+        this(filename, listType, supabaseTable, idExtractor, false);
+    }
+
+    /**
+     * @param journaled When true, mutations are appended to a per-repository log
+     *                  instead of rewriting the whole JSON file (see {@link RepositoryJournal}).
+     */
+    public BaseJsonRepository(String filename, Type listType, String supabaseTable, Function<T, Long> idExtractor, boolean journaled) {
+        this(filename, listType, supabaseTable, idExtractor, journaled, null);
+    }
+
+    /**
+     * @param codec Binary codec for the record type. When given, the snapshot format is chosen by the
+     *              {@code STORAGE_MODE_<NAME>} setting (e.g. {@code STORAGE_MODE_FLIGHTS=BINARY}),
+     *              falling back to {@code STORAGE_MODE}, then JSON.
+     */
+    public BaseJsonRepository(String filename, Type listType, String supabaseTable, Function<T, Long> idExtractor,
+                              boolean journaled, RecordCodec<T> codec) {
+        this(DATA_DIR, filename, listType, supabaseTable, idExtractor, journaled, codec);
+    }
+
+    /**
+     * @param dataDir Directory holding the repository's files instead of {@link #DATA_DIR}, e.g. a test's temp directory.
+     */
+    BaseJsonRepository(Path dataDir, String filename, Type listType, String supabaseTable, Function<T, Long> idExtractor,
+                       boolean journaled, RecordCodec<T> codec) {
+        this.filePath = dataDir.resolve(filename).toString();
+        this.codec = codec;
+        this.storageMode = codec == null ? StorageMode.JSON : storageModeFor(filename.replaceFirst("\\.json$", ""));
+        this.binaryPath = Paths.get(filePath.replaceFirst("\\.json$", "") + ".bin");
         this.listType = listType;
         this.supabaseTable = supabaseTable;
         this.idExtractor = idExtractor;
+        this.ids = new IdSequence(Paths.get(filePath.replaceFirst("\\.json$", "") + ".ids"),
+                AppConfig.getInt("ID_BLOCK_SIZE", DEFAULT_ID_BLOCK_SIZE));
+        this.journal = journaled
+                ? new RepositoryJournal<>(Paths.get(filePath.replaceFirst("\\.json$", "") + ".log"), elementType(listType), idExtractor)
+                : null;
         this.dataList = loadData();
         
-        // Hook for seeding data if empty
-        if (this.dataList.isEmpty()) {
+        // Hook for seeding data if empty (never on top of a snapshot that failed to load)
+        if (this.dataList.isEmpty() && !loadFailed) {
             seedData();
         }
+        // Seeders add straight to dataList, so build the index once everything is in place
+        rebuildIndex();
+        published();
+
+        // First start in binary mode: the data was imported from JSON, so write the binary snapshot now
+        if (isBinary() && !Files.exists(binaryPath) && !loadFailed) {
+            save();
+        }
     }
 
-    private ObservableList<T> loadData() {
-        Path path = Paths.get(filePath);
-        if (!Files.exists(path)) return FXCollections.observableArrayList();
+    /**
+     * Storage mode configured for a repository: {@code STORAGE_MODE_<NAME>}, then {@code STORAGE_MODE}, then JSON.
+     */
+    static StorageMode storageModeFor(String name) {
+        String global = AppConfig.get("STORAGE_MODE", StorageMode.JSON.name());
+        String mode = AppConfig.get("STORAGE_MODE_" + name.toUpperCase(Locale.ROOT), global);
+        try {
+            return StorageMode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown storage mode " + mode + " for " + name + ", using JSON");
+            return StorageMode.JSON;
+        }
+    }
+
+    private boolean isBinary() {
+        return storageMode == StorageMode.BINARY;
+    }
+
+    private List<T> loadData() {
+        List<T> list = null;
+        if (isBinary()) {
+            try {
+                list = SnapshotFile.read(binaryPath, in -> BinarySnapshot.read(in, codec));
+            } catch (IOException e) {
+                // Neither generation is readable. The JSON file is only the import source and is not kept
+                // up to date in binary mode, so loading it would silently roll back every change since then.
+                System.err.println("Error loading " + binaryPath + ": " + e.getMessage());
+                loadFailed = true;
+                quarantine(binaryPath);
+                quarantine(SnapshotFile.previousOf(binaryPath));
+                list = new ArrayList<>();
+            }
+        }
+        // Without a binary snapshot yet, the JSON file is imported
+        if (list == null) {
+            Path path = Paths.get(filePath);
+            try {
+                list = SnapshotFile.read(path, in -> {
+                    try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                        List<T> loaded = GsonProvider.getGson().fromJson(reader, listType);
+                        return loaded != null ? loaded : new ArrayList<T>();
+                    }
+                });
+            } catch (IOException e) {
+                // Keep the damaged file for inspection; the next saves would otherwise rotate it away
+                System.err.println("Error loading " + filePath + ": " + e.getMessage());
+                loadFailed = true;
+                quarantine(path);
+                quarantine(SnapshotFile.previousOf(path));
+            }
+            if (list == null) list = new ArrayList<>();
+        }
+        if (journal != null) {
+            list = journal.replay(list);
+        }
+        return new ArrayList<>(list);
+    }
 
-        try (FileReader reader = new FileReader(path.toFile())) {
-            List<T> list = GsonProvider.getGson().fromJson(reader, listType);
-            return list != null ? FXCollections.observableArrayList(list) : FXCollections.observableArrayList();
+    private void quarantine(Path path) {
+        if (!Files.exists(path)) return;
+        Path copy = path.resolveSibling(path.getFileName() + ".corrupt-" + System.currentTimeMillis());
+        try {
+            Files.copy(path, copy);
+            System.err.println("Could not load " + path + ", a copy was kept as " + copy.getFileName());
         } catch (IOException e) {
-            System.err.println("Error loading " + filePath + ": " + e.getMessage());
-            return FXCollections.observableArrayList();
+            System.err.println("Could not load " + path + " or keep a copy of it: " + e.getMessage());
         }
     }
 
+    private static Type elementType(Type listType) {
+        return ((ParameterizedType) listType).getActualTypeArguments()[0];
+    }
+
+    /**
+     * Writes the full dataset to disk. For journaled repositories this also
+     * truncates the log, since the snapshot now covers every entry in it.
+     * The file is replaced atomically and the previous version is kept (see {@link SnapshotFile}).
+     * A failed write is reported and leaves the journal alone.
+     */
     protected void save() {
+        try {
+            persistSnapshot();
+        } catch (UncheckedIOException | CompletionException e) {
+            // Reported where it happened; a journal still holds every change
+        }
+    }
+
+    // Writes the snapshot, throwing UncheckedIOException if it did not reach the disk. Run on the
+    // persistence writer for every mutation of a non-journaled repository, so a failure fails its future.
+    private void persistSnapshot() {
+        if (journal != null) {
+            synchronized (this) {
+                synchronized (snapshotLock) {
+                    snapshotVersion++;
+                    writeSnapshot(dataList);
+                    // Lines still queued for the old log are covered by the snapshot and go with it;
+                    // waited for so a crash cannot replay them over the snapshot just written
+                    journal.reset().join();
+                }
+            }
+            return;
+        }
+
+        // Only the copy is taken under the repository lock, so writers are not held up by the disk
+        List<T> copy;
+        long version;
+        synchronized (this) {
+            copy = new ArrayList<>(dataList);
+            synchronized (snapshotLock) {
+                version = ++snapshotVersion;
+            }
+        }
+        synchronized (snapshotLock) {
+            // A later copy has been taken and is written by its own call
+            if (version != snapshotVersion) return;
+            writeSnapshot(copy);
+        }
+    }
+
+    private void writeSnapshot(List<T> items) {
         try {
             Path path = Paths.get(filePath);
             if (!Files.exists(path.getParent())) {
                 Files.createDirectories(path.getParent());
             }
-            try (FileWriter writer = new FileWriter(path.toFile())) {
-                GsonProvider.getGson().toJson(dataList, writer);
+            if (isBinary()) {
+                SnapshotFile.write(binaryPath, out -> BinarySnapshot.write(out, items, codec));
+                return;
             }
+            SnapshotFile.write(path, out -> {
+                try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+                    GsonProvider.getGson().toJson(items, writer);
+                }
+            });
         } catch (IOException e) {
-            e.printStackTrace();
+            System.err.println("Error saving " + (isBinary() ? binaryPath : filePath) + ": " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the current data as a JSON array (the same format as the JSON snapshot files),
+     * e.g. to export a repository that is stored in binary.
+     */
+    public void exportJson(Path target) throws IOException {
+        try (FileWriter writer = new FileWriter(target.toFile())) {
+            GsonProvider.getGson().toJson(snapshot().items(), writer);
+        }
+    }
+
+    private void rebuildIndex() {
+        positions.clear();
+        for (int i = 0; i < dataList.size(); i++) {
+            long id = idExtractor.apply(dataList.get(i));
+            // On duplicate IDs keep the first occurrence, matching the old linear-scan behaviour
+            if (!positions.containsKey(id)) positions.put(id, i);
+            ids.observe(id);
+        }
+        for (RepositoryIndex<T> index : indexes) {
+            index.rebuild(dataList);
+        }
+    }
+
+    /**
+     * Declares a secondary index on an attribute of the stored rows.
+     * The index is built from the current data and then maintained on every mutation.
+     * Typically assigned to a field of the subclass:
+     * <pre>{@code private final SecondaryIndex<Reservation, Long> byFlight = defineIndex(Reservation::flightId);}</pre>
+     */
+    protected <K> SecondaryIndex<T, K> defineIndex(Function<T, K> keyExtractor) {
+        return defineIndex(keyExtractor, UnaryOperator.identity());
+    }
+
+    /**
+     * Same as {@link #defineIndex(Function)}, but keys (and lookups) are passed through a
+     * normalizer first, e.g. {@link SecondaryIndex#ignoreCase(String)}.
+     */
+    protected <K> SecondaryIndex<T, K> defineIndex(Function<T, K> keyExtractor, UnaryOperator<K> normalizer) {
+        return registerIndex(new SecondaryIndex<>(keyExtractor, normalizer, idExtractor));
+    }
+
+    /**
+     * Registers a custom index so it receives the same incremental updates as secondary indexes.
+     */
+    protected synchronized <I extends RepositoryIndex<T>> I registerIndex(I index) {
+        index.rebuild(dataList);
+        indexes.add(index);
+        return index;
+    }
+
+    // Persists a single mutation: one log append when journaled, a full rewrite otherwise.
+    // Either way the disk write happens on the persistence writer thread, not the caller's.
+    private void persistPut(T item) {
+        if (journal == null) {
+            PersistenceWriter.snapshot(this, this::persistSnapshot);
+        } else if (journal.appendPut(item)) {
+            scheduleCompaction();
         }
     }
 
+    private void persistDelete(long id) {
+        if (journal == null) {
+            PersistenceWriter.snapshot(this, this::persistSnapshot);
+        } else if (journal.appendDelete(id)) {
+            scheduleCompaction();
+        }
+    }
+
+    /**
+     * For callers that need durability: completes once every mutation made so far is on disk,
+     * exceptionally if one of them could not be written.
+     */
+    public CompletableFuture<Void> flush() {
+        return PersistenceWriter.flush();
+    }
+
+    /**
+     * Folds the journal into a fresh snapshot without holding up writers:
+     * the log is rotated and the list copied under the repository lock,
+     * and the (slow) snapshot write happens on the background thread.
+     */
+    private synchronized void scheduleCompaction() {
+        long version;
+        List<T> copy;
+        synchronized (snapshotLock) {
+            // Queued behind the lines already appended, which the copy below covers
+            journal.rotate();
+            // The repository lock is held, so the read snapshot is current; it is immutable, so no copy is needed
+            copy = snapshot().items();
+            version = ++snapshotVersion;
+        }
+
+        RepositoryJournal.runInBackground(() -> {
+            synchronized (snapshotLock) {
+                // A full save() since the rotation has already covered (and removed) the rotated log, and a
+                // later rotation has folded newer entries into it that only its own copy covers
+                if (version != snapshotVersion) return;
+                try {
+                    writeSnapshot(copy);
+                } catch (UncheckedIOException e) {
+                    return; // The rotated log is kept and folded in by the next compaction
+                }
+                snapshotVersion++;
+                journal.discardRotated();
+            }
+        });
+    }
+
     // Common CRUD
-    public ObservableList<T> getAll() { return dataList; }
 
-    public T findById(long id) {
-        return dataList.stream()
-                .filter(item -> idExtractor.apply(item) == id)
-                .findFirst().orElse(null);
+    /**
+     * List for JavaFX bindings. It follows the repository's writes on the FX application thread
+     * (see {@link FxSnapshotList}); other threads should read {@link #snapshot()} instead.
+     */
+    public synchronized ObservableList<T> getAll() {
+        if (view == null) view = new FxSnapshotList<>(this::snapshot);
+        return view.items();
+    }
+
+    /**
+     * Immutable view of the current rows (archived records excluded). Lock-free unless this is the
+     * first read after a write, which copies the row references once for every reader that follows.
+     */
+    public ReadSnapshot<T> snapshot() {
+        ReadSnapshot<T> current = snapshot;
+        if (current.version() == writeVersion) return current;
+        synchronized (this) {
+            if (snapshot.version() != writeVersion) snapshot = new ReadSnapshot<>(writeVersion, dataList);
+            return snapshot;
+        }
+    }
+
+    // Called under the repository lock after every change to dataList
+    private void published() {
+        writeVersion++;
+        liveCount = dataList.size();
+        if (view != null) view.invalidate();
+    }
+
+    public synchronized T findById(long id) {
+        int index = positions.get(id);
+        if (index != LongIntHashMap.MISSING) return dataList.get(index);
+        return archive == null ? null : archive.get(id);
     }
 
-    public void add(T item) {
+    /**
+     * Number of records, including archived ones. Does not take the repository lock.
+     */
+    public int count() {
+        MappedRecordStore<T> store = archive;
+        return liveCount + (store == null ? 0 : store.size());
+    }
+
+    public synchronized void add(T item) {
+        long id = idExtractor.apply(item);
         dataList.add(item);
-        save();
+        positions.put(id, dataList.size() - 1);
+        ids.observe(id);
+        published();
+        for (RepositoryIndex<T> index : indexes) index.onPut(null, item);
+        persistPut(item);
         if (supabaseTable != null) {
             SyncService.enqueue(supabaseTable, item);
         }
     }
 
-    public void update(T item) {
+    public synchronized void update(T item) {
         long id = idExtractor.apply(item);
-        T existing = findById(id);
-        if (existing != null) {
-            int index = dataList.indexOf(existing);
-            dataList.set(index, item);
-            save();
-            
-            // Note: SyncService.update() is not available in context, 
-            // so we only handle local updates here.
+        int index = positions.get(id);
+        if (index != LongIntHashMap.MISSING) {
+            T previous = dataList.set(index, item);
+            published();
+            for (RepositoryIndex<T> secondary : indexes) secondary.onPut(previous, item);
+            persistPut(item);
+            // Pushed as an upsert of the full row (conditional on the previous version for versioned rows);
+            // unsent earlier writes to the same row are coalesced
+            if (supabaseTable != null) {
+                SyncService.enqueue(supabaseTable, item, previous);
+            }
+        } else if (archive != null && archive.contains(id)) {
+            // A changed archived record is hot again
+            T previous = archive.get(id);
+            putLocal(item);
+            persistPut(item);
+            if (supabaseTable != null) {
+                SyncService.enqueue(supabaseTable, item, previous);
+            }
         }
     }
     
     // Feature Completed: Generic Delete
-    public void delete(long id) {
-        boolean removed = dataList.removeIf(item -> idExtractor.apply(item) == id);
-        if (removed) {
-            save();
-            // Note: SyncService.delete() is not available in context,
-            // so we only handle local deletions here.
+    public synchronized void delete(long id) {
+        boolean archived = archive != null && archive.remove(id);
+        if (archived) {
+            archive.force();
+        }
+        boolean hot = removeLocal(id);
+        if (hot) {
+            persistDelete(id);
+        }
+        if ((archived || hot) && supabaseTable != null) {
+            SyncService.enqueueDelete(supabaseTable, id);
         }
     }
 
+    private boolean removeLocal(long id) {
+        int index = positions.remove(id);
+        if (index == LongIntHashMap.MISSING) return false;
+
+        T previous = dataList.remove(index);
+        for (RepositoryIndex<T> secondary : indexes) secondary.onRemove(previous);
+        // Rows after the removed one moved up by one; deletes are rare, so shifting is fine
+        for (int i = index; i < dataList.size(); i++) {
+            positions.put(idExtractor.apply(dataList.get(i)), i);
+        }
+        published();
+        return true;
+    }
+
+    // Replaces the local copy of a row (or appends it if it is new), in place; returns the replaced row
+    private T putLocal(T item) {
+        long id = idExtractor.apply(item);
+        if (archive != null) archive.remove(id);
+        int index = positions.get(id);
+        T previous = null;
+        if (index == LongIntHashMap.MISSING) {
+            dataList.add(item);
+            positions.put(id, dataList.size() - 1);
+            ids.observe(id);
+        } else {
+            previous = dataList.set(index, item);
+        }
+        published();
+        for (RepositoryIndex<T> secondary : indexes) secondary.onPut(previous, item);
+        return previous;
+    }
+
+    /**
+     * Allocates a new, never used ID in O(1). Safe to call concurrently; with several app instances
+     * on the same data directory, each one allocates from its own block (see {@link IdSequence}).
+     */
     protected long generateNextId() {
-        return dataList.stream()
-                .mapToLong(idExtractor::apply)
-                .max().orElse(0) + 1;
+        return ids.next();
+    }
+
+    /**
+     * Enables the off-heap archive for this repository ({@code <name>.archive} next to the data file).
+     * If the archive cannot be opened, the repository keeps working with everything on the heap.
+     */
+    protected void enableArchive(SlotCodec<T> slotCodec) {
+        Path path = Paths.get(filePath.replaceFirst("\\.json$", "") + ".archive");
+        try {
+            MappedRecordStore<T> store = new MappedRecordStore<>(path, slotCodec);
+            synchronized (this) {
+                archive = store;
+                // A crash between archiving and journaling leaves a record in both places; the heap copy wins
+                for (T item : dataList) archive.remove(idExtractor.apply(item));
+                ids.observe(archive.maxId());
+            }
+        } catch (IOException e) {
+            System.err.println("Archive unavailable for " + filePath + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Moves every record matching {@code cold} from the in-memory list to the off-heap archive.
+     * Archived records are still returned by {@link #findById} and {@link #findArchived}, but no longer
+     * appear in {@link #getAll()} or the secondary indexes. This is local storage only; nothing is synced.
+     *
+     * @return Number of records archived (0 if the repository has no archive).
+     */
+    public synchronized int archive(Predicate<T> cold) {
+        if (archive == null) return 0;
+        List<T> moving = dataList.stream().filter(cold).toList();
+        if (moving.isEmpty()) return 0;
+
+        try {
+            for (T item : moving) archive.put(item);
+        } catch (IOException e) {
+            System.err.println("Archiving failed for " + filePath + ": " + e.getMessage());
+            return 0;
+        }
+        // On disk before the records leave the snapshot/journal
+        archive.force();
+
+        // One pass over the list instead of shifting positions once per archived record
+        Set<Long> ids = new HashSet<>();
+        for (T item : moving) ids.add(idExtractor.apply(item));
+        dataList.removeIf(item -> ids.contains(idExtractor.apply(item)));
+        rebuildIndex();
+        published();
+
+        boolean compact = false;
+        if (journal != null) {
+            for (long id : ids) compact |= journal.appendDelete(id);
+        }
+        if (journal == null) save();
+        else if (compact) scheduleCompaction();
+        return moving.size();
+    }
+
+    /**
+     * Archived records matching {@code filter}. Scans the archive, materializing one record at a time.
+     */
+    protected List<T> findArchived(Predicate<T> filter) {
+        MappedRecordStore<T> store;
+        synchronized (this) {
+            store = archive;
+        }
+        return store == null ? List.of() : store.scan(filter);
+    }
+
+    /**
+     * Every record, including archived ones, e.g. to migrate the repository to another storage mode.
+     */
+    public List<T> exportAll() {
+        List<T> all = new ArrayList<>(snapshot().items());
+        all.addAll(findArchived(item -> true));
+        return all;
     }
 
     // Override this in subclasses to provide default data
@@ -117,17 +620,138 @@ public abstract class BaseJsonRepository<T> {
 
     // Inside BaseJsonRepository.java
 
+    /**
+     * Brings the local data up to date with Supabase.
+     * <p>
+     * After the first full download, only rows whose {@code updated_at} is at or after the table's
+     * watermark are fetched, together with the tombstones of rows deleted since then, and they are
+     * merged into the list in place. The cost is proportional to what changed, not to the table size.
+     * Tables without an {@code updated_at} column never get a watermark and keep being downloaded in full.
+     * </p>
+     */
     public void refreshFromCloud() {
+        String since = SyncWatermarks.get(supabaseTable);
+        if (since == null || !pullChanges(since)) {
+            pullAll();
+        }
+    }
+
+    private void pullAll() {
         System.out.println("Syncing " + supabaseTable + " from Cloud...");
-        
-        // 1. Fetch latest data from Supabase
-        List<T> cloudData = SupabaseSync.selectAll(supabaseTable, listType);
-        
-        // 2. Update Memory (ObservableList)
-        // We use setAll to notify the UI automatically
-        dataList.setAll(cloudData);
-        
-        // 3. Update Local JSON File
-        save();
+        // Rows added after this point are not in the download but were not deleted in the cloud either
+        List<T> local = snapshot().items();
+
+        // 1. Fetch latest data from Supabase, one row at a time (no full response in memory)
+        Type elementType = elementType(listType);
+        List<T> cloudData = new ArrayList<>();
+        Set<Long> inCloud = new HashSet<>();
+        SyncWatermarks.Tracker latest = new SyncWatermarks.Tracker("updated_at");
+        boolean complete = SupabaseSync.streamAll(supabaseTable, row -> {
+            latest.observe(row);
+            T item = SupabaseSync.fromRow(row, elementType);
+            cloudData.add(item);
+            inCloud.add(idExtractor.apply(item));
+        });
+        if (!complete) return; // keep the local copy rather than wiping it
+
+        // 2. Merge row by row, like a delta: rows with unsent local writes are kept, and local rows
+        // missing from the cloud were deleted there
+        List<Long> deleted = new ArrayList<>();
+        for (T item : local) {
+            long id = idExtractor.apply(item);
+            if (!inCloud.contains(id)) deleted.add(id);
+        }
+        mergeFromCloud(cloudData, deleted);
+        SyncWatermarks.advance(supabaseTable, latest.latest());
+    }
+
+    // Returns false if the delta could not be fetched, so the caller falls back to a full pull
+    private boolean pullChanges(String since) {
+        Type elementType = elementType(listType);
+        List<T> changed = new ArrayList<>();
+        SyncWatermarks.Tracker latest = new SyncWatermarks.Tracker("updated_at");
+        boolean complete = SupabaseSync.streamChangedSince(supabaseTable, since, row -> {
+            latest.observe(row);
+            changed.add(SupabaseSync.fromRow(row, elementType));
+        });
+        JsonArray tombstones = complete ? SupabaseSync.selectTombstonesSince(supabaseTable, since) : null;
+        if (tombstones == null) return false;
+        if (changed.isEmpty() && tombstones.isEmpty()) return true;
+
+        List<Long> deleted = new ArrayList<>();
+        for (JsonElement tombstone : tombstones) {
+            deleted.add(((JsonObject) tombstone).get("row_id").getAsLong());
+        }
+        mergeFromCloud(changed, deleted);
+
+        SyncWatermarks.advance(supabaseTable, latest.latest());
+        SyncWatermarks.advance(supabaseTable, SyncWatermarks.latest(tombstones, "deleted_at"));
+        System.out.println("Pulled " + changed.size() + " change(s) and " + deleted.size()
+                + " deletion(s) for " + supabaseTable + ".");
+        return true;
+    }
+
+    /**
+     * Whether a row from the cloud is an older version of the local copy (e.g. a late echo of a write this
+     * terminal already got back with a newer version). Only versioned records can tell.
+     */
+    static boolean isOlder(Object cloud, Object local) {
+        return cloud instanceof Versioned c && local instanceof Versioned l && c.version() < l.version();
+    }
+
+    /**
+     * Applies row changes pushed by the cloud (see {@code RealtimeFeed}) to the list, its indexes
+     * and the local files. They are not queued for sync. Rows with a local write still waiting to
+     * be sent are skipped: the local state is newer and will overwrite the cloud copy.
+     *
+     * @param rows    Inserted or updated rows, in Supabase column naming.
+     * @param deleted IDs of deleted rows.
+     */
+    public void applyCloudChanges(List<JsonObject> rows, List<Long> deleted) {
+        Type elementType = elementType(listType);
+        List<T> changed = new ArrayList<>();
+        for (JsonObject row : rows) changed.add(SupabaseSync.fromRow(row, elementType));
+        mergeFromCloud(changed, deleted);
+    }
+
+    /**
+     * Called (under the repository lock) for every row changed by the cloud, after the list and the
+     * indexes were updated. For state kept outside the indexes. Default: nothing.
+     *
+     * @param previous The local row before the change, or null if it is new.
+     * @param current  The row from the cloud, or null if it was deleted.
+     */
+    protected void onCloudChange(T previous, T current) {}
+
+    // Applies pulled rows locally only: they came from the cloud, so they are not queued for sync.
+    // Rows with an unsent local write keep the local version, and so do rows already newer than the cloud copy.
+    // Rows equal to the local copy are skipped, so a full pull only writes what changed.
+    private synchronized void mergeFromCloud(List<T> changed, List<Long> deleted) {
+        boolean compact = false;
+        boolean touched = false;
+        for (T item : changed) {
+            long id = idExtractor.apply(item);
+            T local = findById(id);
+            if (item.equals(local) || SyncService.hasPending(supabaseTable, id) || isOlder(item, local)) continue;
+            T previous = putLocal(item);
+            onCloudChange(previous, item);
+            touched = true;
+            if (journal != null) compact |= journal.appendPut(item);
+        }
+        for (long id : deleted) {
+            if (SyncService.hasPending(supabaseTable, id)) continue;
+            T previous = findById(id);
+            boolean archived = archive != null && archive.remove(id);
+            if (!removeLocal(id) && !archived) continue;
+            onCloudChange(previous, null);
+            touched = true;
+            if (journal != null) compact |= journal.appendDelete(id);
+        }
+
+        if (journal == null) {
+            if (touched) save();
+        } else if (compact) {
+            scheduleCompaction();
+        }
     }
 }
\ No newline at end of file
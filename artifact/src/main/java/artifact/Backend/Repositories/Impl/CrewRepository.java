@@ -1,7 +1,9 @@
 package artifact.Backend.Repositories.Impl;
 
 import artifact.Backend.Models.Crew;
+import artifact.Backend.Models.Flight;
 import artifact.Backend.Repositories.Interfaces.ICrewRepository;
+import artifact.Backend.Repositories.Interfaces.IFlightRepository;
 import com.google.gson.reflect.TypeToken;
 import java.util.ArrayList;
 
@@ -21,18 +23,9 @@ public class CrewRepository extends BaseJsonRepository<Crew> implements ICrewRep
     
     @Override
     public void delete(long id) {
-        // 1. Delete the User (This triggers Supabase DELETE)
-        // Supabase will automatically delete the user AND cascading tickets/reservations
-        super.delete(id); 
-
-        // 2. Wait a brief moment for Supabase to finish the Cascade? 
-        // Usually it's instant, but safe to fetch immediately.
-
-        // 3. Tell related repositories to refresh themselves
-        RepositoryProvider.getFlightRepository().refreshFromCloud();
-        RepositoryProvider.getReservationRepository().refreshFromCloud();
-        RepositoryProvider.getTicketRepository().refreshFromCloud();
-        
-        System.out.println("Cascading delete handled by Cloud. Local files updated.");
+        // Flights using the crew go first (cascading to their reservations and tickets); all deletes are queued for the cloud
+        IFlightRepository flights = RepositoryProvider.getFlightRepository();
+        for (Flight flight : flights.snapshot().filter(f -> f.crewId() == id)) flights.delete(flight.id());
+        super.delete(id);
     }
 }
\ No newline at end of file
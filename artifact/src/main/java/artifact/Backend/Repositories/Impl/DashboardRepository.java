@@ -31,12 +31,12 @@ public class DashboardRepository implements IDashboardRepository {
     @Override
     public DashboardStats getDashboardStats() {
         return new DashboardStats(
-            airportRepo.getAll().size(),
-            aircraftRepo.getAll().size(),
-            crewRepo.getAll().size(),
-            flightRepo.getAll().size(),
-            reservationRepo.getAll().size(),
-            ticketRepo.getAll().size() 
+            airportRepo.count(),
+            aircraftRepo.count(),
+            crewRepo.count(),
+            flightRepo.count(),
+            reservationRepo.count(),
+            ticketRepo.count()
         );
     }
 }
\ No newline at end of file
@@ -1,59 +1,122 @@
 package artifact.Backend.Repositories.Impl;
 
 import artifact.Backend.Models.Flight;
+import artifact.Backend.Repositories.Index.FlightRouteIndex;
 import artifact.Backend.Repositories.Interfaces.IFlightRepository;
+import artifact.Backend.Repositories.Storage.RecordCodecs;
 
 import com.google.gson.reflect.TypeToken;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class FlightRepository extends BaseJsonRepository<Flight> implements IFlightRepository {
 
+    private final FlightRouteIndex routes = registerIndex(new FlightRouteIndex());
+    private final SeatInventory inventory = registerIndex(new SeatInventory());
+
     public FlightRepository() {
-        super("flights.json", new TypeToken<ArrayList<Flight>>(){}.getType(), "/flights", Flight::id);
+        super("flights.json", new TypeToken<ArrayList<Flight>>(){}.getType(), "/flights", Flight::id, true, RecordCodecs.FLIGHT);
     }
 
     @Override
     protected void seedData() {
         System.out.println("Seeding Flights...");
         // FIXED: Using LocalDateTime and adding hours for duration
-        dataList.add(new Flight(1, 1, 2, 1, 1, LocalDateTime.now().plusDays(10).withHour(10).withMinute(0), LocalDateTime.now().plusDays(10).plusHours(2), 416));
-        dataList.add(new Flight(2, 2, 3, 2, 2, LocalDateTime.now().plusDays(12).withHour(14).withMinute(30), LocalDateTime.now().plusDays(12).plusHours(4), 180));
-        dataList.add(new Flight(3, 3, 4, 2, 1, LocalDateTime.now().plusDays(5).withHour(07).withMinute(15), LocalDateTime.now().plusDays(5).plusHours(1), 180));
+        dataList.add(new Flight(1, 1, 2, 1, 1, LocalDateTime.now().plusDays(10).withHour(10).withMinute(0), LocalDateTime.now().plusDays(10).plusHours(2), 416, 0));
+        dataList.add(new Flight(2, 2, 3, 2, 2, LocalDateTime.now().plusDays(12).withHour(14).withMinute(30), LocalDateTime.now().plusDays(12).plusHours(4), 180, 0));
+        dataList.add(new Flight(3, 3, 4, 2, 1, LocalDateTime.now().plusDays(5).withHour(07).withMinute(15), LocalDateTime.now().plusDays(5).plusHours(1), 180, 0));
         save();
     }
 
     @Override
     public void decrementSeat(long id) {
-        Flight old = findById(id);
-        if (old == null || old.availableSeats() <= 0) return;
+        tryReserveSeats(id, 1);
+    }
+
+    @Override
+    public boolean tryReserveSeats(long flightId, int count) {
+        // The CAS on the per-flight counter decides the sale; no lock is held while racing for seats
+        if (!inventory.tryReserve(flightId, count)) return false;
+        persistSeats(flightId);
+        return true;
+    }
+
+    @Override
+    public void releaseSeats(long flightId, int count) {
+        inventory.release(flightId, count);
+        persistSeats(flightId);
+    }
+
+    /**
+     * Stores an edited flight. A seat count changed here (admin screen, import) rather than by
+     * a sale or release moves the counter by the same amount, so the edit sticks and a sale
+     * taken on the counter but not yet written to the record is kept.
+     */
+    @Override
+    public synchronized void update(Flight item) {
+        Flight old = findById(item.id());
+        super.update(item);
+        if (old != null && old.availableSeats() != item.availableSeats()) {
+            inventory.adjust(item.id(), item.availableSeats() - old.availableSeats());
+        }
+    }
+
+    /**
+     * Copies the live counter into the stored Flight record.
+     * The counter is read under the repository lock, so whichever caller writes last
+     * always writes the newest value, even if sales finished out of order.
+     */
+    private synchronized void persistSeats(long flightId) {
+        Flight old = findById(flightId);
+        int seats = inventory.available(flightId);
+        if (old == null || seats < 0 || old.availableSeats() == seats) return;
 
         Flight updated = new Flight(
             old.id(), old.departureAirportId(), old.arrivalAirportId(),
             old.aircraftId(), old.crewId(), old.departureTime(),
-            old.arrivalTime(), old.availableSeats() - 1
+            old.arrivalTime(), seats, old.version()
         );
-        update(updated);
+        // Written back from the counter, so the counter itself is left alone
+        super.update(updated);
+    }
+
+    // Seats sold on another terminal: the counter moves by the same amount, so a sale taken on the counter
+    // but not yet written to the record is kept
+    @Override
+    protected void onCloudChange(Flight previous, Flight current) {
+        if (previous != null && current != null) {
+            inventory.adjust(current.id(), current.availableSeats() - previous.availableSeats());
+        }
     }
 
     @Override
     public List<Flight> findFlightsByRouteAndMonth(long fromId, long toId, YearMonth month) {
-        return dataList.stream()
-                .filter(f -> f.departureAirportId() == fromId && f.arrivalAirportId() == toId)
-                // FIXED: YearMonth.from works with LocalDateTime
-                .filter(f -> YearMonth.from(f.departureTime()).equals(month))
+        return routes.findByMonth(fromId, toId, month).stream()
                 .filter(f -> f.availableSeats() > 0)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<Flight> findFlightsByRouteAndDate(long fromId, long toId, LocalDate date) {
+        return routes.findByDate(fromId, toId, date).stream()
+                .filter(f -> f.availableSeats() > 0)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public BitSet findAvailableDays(long fromId, long toId, YearMonth month) {
+        return routes.availableDays(fromId, toId, month);
+    }
+
     @Override
     public void delete(long id) {
-        super.delete(id); 
-        RepositoryProvider.getReservationRepository().refreshFromCloud();
-        RepositoryProvider.getTicketRepository().refreshFromCloud();
-        System.out.println("Cascading delete handled by Cloud. Local files updated.");
+        // Reservations (and through them, tickets) go first; all deletes are queued for the cloud
+        RepositoryProvider.getReservationRepository().deleteByFlightId(id);
+        super.delete(id);
     }
 }
\ No newline at end of file
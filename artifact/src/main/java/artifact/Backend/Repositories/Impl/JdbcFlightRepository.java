@@ -0,0 +1,146 @@
+package artifact.Backend.Repositories.Impl;
+
+import artifact.Backend.Models.Flight;
+import artifact.Backend.Repositories.Interfaces.IFlightRepository;
+import artifact.Backend.Repositories.Storage.Database;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Flights stored in H2. Route searches use the (departure, arrival, departure time) index and
+ * seat sales lock the flight's row, so concurrent bookings never oversell.
+ */
+public class JdbcFlightRepository extends BaseJdbcRepository<Flight> implements IFlightRepository {
+
+    public JdbcFlightRepository(Database db) {
+        super(db, "flights",
+                new String[] { "departure_airport_id", "arrival_airport_id", "aircraft_id", "crew_id",
+                        "departure_time", "arrival_time", "available_seats", "version" },
+                "/flights", Flight.class, Flight::id, FlightRepository::new,
+                "CREATE TABLE IF NOT EXISTS flights ("
+                        + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                        + "departure_airport_id BIGINT NOT NULL, arrival_airport_id BIGINT NOT NULL, "
+                        + "aircraft_id BIGINT, crew_id BIGINT, "
+                        + "departure_time TIMESTAMP, arrival_time TIMESTAMP, "
+                        + "available_seats INT NOT NULL, version BIGINT DEFAULT 0 NOT NULL)",
+                // Tables created before rows were versioned
+                "ALTER TABLE flights ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL",
+                "CREATE INDEX IF NOT EXISTS flights_route ON flights (departure_airport_id, arrival_airport_id, departure_time)");
+    }
+
+    @Override
+    protected Flight map(ResultSet row) throws SQLException {
+        return new Flight(
+            row.getLong("id"), row.getLong("departure_airport_id"), row.getLong("arrival_airport_id"),
+            row.getLong("aircraft_id"), row.getLong("crew_id"),
+            row.getObject("departure_time", LocalDateTime.class), row.getObject("arrival_time", LocalDateTime.class),
+            row.getInt("available_seats"), row.getLong("version")
+        );
+    }
+
+    @Override
+    protected void bind(PreparedStatement statement, int first, Flight f) throws SQLException {
+        statement.setLong(first, f.departureAirportId());
+        statement.setLong(first + 1, f.arrivalAirportId());
+        statement.setLong(first + 2, f.aircraftId());
+        statement.setLong(first + 3, f.crewId());
+        statement.setObject(first + 4, f.departureTime());
+        statement.setObject(first + 5, f.arrivalTime());
+        statement.setInt(first + 6, f.availableSeats());
+        statement.setLong(first + 7, f.version());
+    }
+
+    @Override
+    protected Flight withId(Flight f, long id) {
+        return new Flight(id, f.departureAirportId(), f.arrivalAirportId(), f.aircraftId(), f.crewId(),
+                f.departureTime(), f.arrivalTime(), f.availableSeats(), f.version());
+    }
+
+    @Override
+    public void decrementSeat(long id) {
+        tryReserveSeats(id, 1);
+    }
+
+    @Override
+    public boolean tryReserveSeats(long flightId, int count) {
+        return changeSeats(flightId, -count);
+    }
+
+    @Override
+    public void releaseSeats(long flightId, int count) {
+        changeSeats(flightId, count);
+    }
+
+    /**
+     * Adds {@code delta} seats (negative to sell) while holding the flight's row lock, so two
+     * bookings for the last seat are serialized by the database and only one of them succeeds.
+     * The repository lock is held until the change is queued for sync (see {@link #changed}).
+     */
+    private synchronized boolean changeSeats(long flightId, int delta) {
+        try {
+            Flight previous = db.inTransaction(connection -> {
+                List<Flight> rows = select(connection, "WHERE id = ? FOR UPDATE", s -> s.setLong(1, flightId));
+                if (rows.isEmpty()) return null;
+
+                int seats = rows.get(0).availableSeats() + delta;
+                if (seats < 0) return null;
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "UPDATE flights SET available_seats = ? WHERE id = ?")) {
+                    statement.setInt(1, seats);
+                    statement.setLong(2, flightId);
+                    statement.executeUpdate();
+                }
+                return rows.get(0);
+            });
+            if (previous == null) return false;
+            changed(previous);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error updating seats of flight " + flightId + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public List<Flight> findFlightsByRouteAndMonth(long fromId, long toId, YearMonth month) {
+        return findBookable(fromId, toId, month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+    }
+
+    @Override
+    public List<Flight> findFlightsByRouteAndDate(long fromId, long toId, LocalDate date) {
+        return findBookable(fromId, toId, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    private List<Flight> findBookable(long fromId, long toId, LocalDateTime from, LocalDateTime to) {
+        return select("WHERE departure_airport_id = ? AND arrival_airport_id = ? "
+                + "AND departure_time >= ? AND departure_time < ? AND available_seats > 0 ORDER BY departure_time, id", s -> {
+            s.setLong(1, fromId);
+            s.setLong(2, toId);
+            s.setObject(3, from);
+            s.setObject(4, to);
+        });
+    }
+
+    @Override
+    public BitSet findAvailableDays(long fromId, long toId, YearMonth month) {
+        BitSet days = new BitSet(31);
+        for (Flight flight : findFlightsByRouteAndMonth(fromId, toId, month)) {
+            days.set(flight.departureTime().getDayOfMonth() - 1);
+        }
+        return days;
+    }
+
+    @Override
+    public void delete(long id) {
+        // Reservations (and through them, tickets) go first; all deletes are queued for the cloud
+        RepositoryProvider.getReservationRepository().deleteByFlightId(id);
+        super.delete(id);
+    }
+}
@@ -0,0 +1,225 @@
+package artifact.Backend.Repositories.Impl;
+
+import artifact.Backend.Models.Reservation;
+import artifact.Backend.Repositories.Index.SeatMap;
+import artifact.Backend.Repositories.Index.SeatOccupancyIndex;
+import artifact.Backend.Repositories.Interfaces.IReservationRepository;
+import artifact.Backend.Repositories.Storage.Database;
+import artifact.Backend.Tags.BookingStatus;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Reservations stored in H2, indexed by flight and by (status, expiry time).
+ * <p>
+ * Seat holds are per-session state and stay in memory, as in {@link ReservationRepository}:
+ * a flight's {@link SeatMap} is filled from its reservations the first time it is asked for
+ * and then kept in step with every write.
+ * </p>
+ */
+public class JdbcReservationRepository extends BaseJdbcRepository<Reservation> implements IReservationRepository {
+
+    private static final String HOLDS_SEAT = "status IN ('PENDING', 'CONFIRMED')";
+
+    private final SeatOccupancyIndex seats = new SeatOccupancyIndex();
+    private final Set<Long> loadedFlights = ConcurrentHashMap.newKeySet();
+
+    // Overdue reservations already handed out by pollExpired(), until they are written again
+    private final Set<Long> polled = ConcurrentHashMap.newKeySet();
+
+    public JdbcReservationRepository(Database db) {
+        super(db, "reservations",
+                new String[] { "flight_id", "customer_name", "customer_phone", "seat_number", "reservation_date",
+                        "price", "status", "admin_name", "expiry_time" },
+                "/reservations", Reservation.class, Reservation::id, ReservationRepository::new,
+                "CREATE TABLE IF NOT EXISTS reservations ("
+                        + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                        + "flight_id BIGINT NOT NULL, customer_name VARCHAR, customer_phone VARCHAR, "
+                        + "seat_number VARCHAR, reservation_date DATE, price DOUBLE PRECISION, "
+                        + "status VARCHAR(16), admin_name VARCHAR, expiry_time TIMESTAMP)",
+                "CREATE INDEX IF NOT EXISTS reservations_flight ON reservations (flight_id)",
+                "CREATE INDEX IF NOT EXISTS reservations_expiry ON reservations (status, expiry_time)");
+    }
+
+    @Override
+    protected Reservation map(ResultSet row) throws SQLException {
+        String status = row.getString("status");
+        return new Reservation(
+            row.getLong("id"), row.getLong("flight_id"), row.getString("customer_name"),
+            row.getString("customer_phone"), row.getString("seat_number"),
+            row.getObject("reservation_date", LocalDate.class), row.getDouble("price"),
+            status == null ? null : BookingStatus.valueOf(status), row.getString("admin_name"),
+            row.getObject("expiry_time", LocalDateTime.class)
+        );
+    }
+
+    @Override
+    protected void bind(PreparedStatement statement, int first, Reservation r) throws SQLException {
+        statement.setLong(first, r.flightId());
+        statement.setString(first + 1, r.customerName());
+        statement.setString(first + 2, r.customerPhone());
+        statement.setString(first + 3, r.seatNumber());
+        statement.setObject(first + 4, r.reservationDate());
+        statement.setDouble(first + 5, r.price());
+        statement.setString(first + 6, r.status() == null ? null : r.status().name());
+        statement.setString(first + 7, r.adminName());
+        statement.setObject(first + 8, r.expiryTime());
+    }
+
+    @Override
+    protected Reservation withId(Reservation r, long id) {
+        return new Reservation(id, r.flightId(), r.customerName(), r.customerPhone(), r.seatNumber(),
+                r.reservationDate(), r.price(), r.status(), r.adminName(), r.expiryTime());
+    }
+
+    @Override
+    public Reservation addReservation(Reservation r) {
+        // The database assigns the ID
+        Reservation stored = insert(withId(r, 0));
+        if (stored != null) seatsChanged(null, stored);
+        return stored;
+    }
+
+    @Override
+    public void add(Reservation item) {
+        Reservation stored = insert(item);
+        if (stored != null) seatsChanged(null, stored);
+    }
+
+    @Override
+    public void update(Reservation item) {
+        Reservation previous = findById(item.id());
+        super.update(item);
+        polled.remove(item.id());
+        if (previous != null) seatsChanged(previous, item);
+    }
+
+    @Override
+    public synchronized void updateReservationStatus(long id, BookingStatus status) {
+        Reservation old = findById(id);
+        if (old == null) return;
+
+        Reservation updated = new Reservation(
+            old.id(), old.flightId(), old.customerName(), old.customerPhone(),
+            old.seatNumber(), old.reservationDate(), old.price(),
+            status, old.adminName(), null // Assuming expiry is cleared on status change
+        );
+        update(updated);
+    }
+
+    @Override
+    public synchronized boolean updateReservationStatusIf(long id, Predicate<Reservation> condition, BookingStatus status) {
+        Reservation current = findById(id);
+        if (current == null || !condition.test(current)) return false;
+        updateReservationStatus(id, status);
+        return true;
+    }
+
+    @Override
+    public void delete(long id) {
+        Reservation previous = findById(id);
+        RepositoryProvider.getTicketRepository().deleteByReservationId(id);
+        super.delete(id);
+        polled.remove(id);
+        if (previous != null && loadedFlights.contains(previous.flightId())) seats.onRemove(previous);
+    }
+
+    @Override
+    public void deleteByFlightId(long flightId) {
+        for (Reservation r : select("WHERE flight_id = ?", s -> s.setLong(1, flightId))) delete(r.id());
+    }
+
+    // Bookings made or changed on another terminal update the seat maps already loaded
+    @Override
+    protected void onCloudChange(Reservation previous, Reservation current) {
+        if (previous != null) polled.remove(previous.id());
+        if (current == null) {
+            if (loadedFlights.contains(previous.flightId())) seats.onRemove(previous);
+        } else {
+            seatsChanged(previous, current);
+        }
+    }
+
+    @Override
+    public int archive(Predicate<Reservation> cold) {
+        // Rows already live on disk and only the rows asked for are ever loaded, so there is nothing to move
+        return 0;
+    }
+
+    @Override
+    public List<Reservation> findByFlightId(long flightId) {
+        return select("WHERE flight_id = ? AND " + HOLDS_SEAT + " ORDER BY id", s -> s.setLong(1, flightId));
+    }
+
+    @Override
+    public Set<String> findTakenSeats(long flightId, String viewerToken) {
+        return seatMap(flightId).unavailableSeats(viewerToken);
+    }
+
+    @Override
+    public boolean holdSeats(long flightId, Collection<String> seatNumbers, String holderToken, Duration ttl) {
+        return seatMap(flightId).hold(seatNumbers, holderToken, Instant.now().plus(ttl));
+    }
+
+    @Override
+    public boolean claimSeat(long flightId, String seatNumber, String holderToken) {
+        return seatMap(flightId).claim(seatNumber, holderToken);
+    }
+
+    @Override
+    public void unclaimSeat(long flightId, String seatNumber) {
+        seatMap(flightId).unclaim(seatNumber);
+    }
+
+    @Override
+    public void releaseSeatHolds(long flightId, String holderToken) {
+        seatMap(flightId).releaseHolds(holderToken);
+    }
+
+    @Override
+    public List<Reservation> pollExpired(LocalDateTime now, int limit) {
+        // Served by the (status, expiry_time) index; rows handed out earlier are skipped until written again
+        List<Reservation> due = select("WHERE status = 'PENDING' AND expiry_time <= ? ORDER BY expiry_time, id LIMIT ?", s -> {
+            s.setObject(1, now);
+            s.setInt(2, limit + polled.size());
+        });
+        List<Reservation> overdue = new ArrayList<>();
+        for (Reservation r : due) {
+            if (overdue.size() == limit) break;
+            if (polled.add(r.id())) overdue.add(r);
+        }
+        return overdue;
+    }
+
+    // Loads the occupied seats of a flight on first use
+    private SeatMap seatMap(long flightId) {
+        if (!loadedFlights.contains(flightId)) {
+            synchronized (this) {
+                if (!loadedFlights.contains(flightId)) {
+                    for (Reservation r : select("WHERE flight_id = ? AND " + HOLDS_SEAT, s -> s.setLong(1, flightId))) {
+                        seats.onPut(null, r);
+                    }
+                    loadedFlights.add(flightId);
+                }
+            }
+        }
+        return seats.forFlight(flightId);
+    }
+
+    private synchronized void seatsChanged(Reservation previous, Reservation current) {
+        if (previous != null && loadedFlights.contains(previous.flightId())) seats.onRemove(previous);
+        if (loadedFlights.contains(current.flightId())) seats.onPut(null, current);
+    }
+}
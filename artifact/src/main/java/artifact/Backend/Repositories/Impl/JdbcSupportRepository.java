@@ -0,0 +1,182 @@
+package artifact.Backend.Repositories.Impl;
+
+import artifact.Backend.Models.SupportMessage;
+import artifact.Backend.Models.SupportTicket;
+import artifact.Backend.Repositories.Interfaces.ISupportRepository;
+import artifact.Backend.Repositories.Storage.Database;
+import artifact.Backend.Tags.TicketStatus;
+import artifact.Backend.Tags.UserRole;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Support tickets stored in H2. The conversation of a ticket is kept in a child table
+ * ({@code support_messages}, one row per message), so a reply is a single insert instead of
+ * rewriting the whole ticket.
+ */
+public class JdbcSupportRepository extends BaseJdbcRepository<SupportTicket> implements ISupportRepository {
+
+    private static final String INSERT_MESSAGE =
+            "INSERT INTO support_messages (ticket_id, position, sender_name, sender_role, message, sent_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    public JdbcSupportRepository(Database db) {
+        super(db, "support_tickets",
+                new String[] { "user_id", "user_name", "subject", "status", "created_at", "version" },
+                "/support_tickets", SupportTicket.class, SupportTicket::id, SupportRepository::new,
+                "CREATE TABLE IF NOT EXISTS support_tickets ("
+                        + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                        + "user_id BIGINT NOT NULL, user_name VARCHAR, subject VARCHAR, "
+                        + "status VARCHAR(16), created_at DATE, version BIGINT DEFAULT 0 NOT NULL)",
+                // Tables created before rows were versioned
+                "ALTER TABLE support_tickets ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL",
+                "CREATE INDEX IF NOT EXISTS support_tickets_user ON support_tickets (user_id)",
+                "CREATE TABLE IF NOT EXISTS support_messages ("
+                        + "ticket_id BIGINT NOT NULL REFERENCES support_tickets (id) ON DELETE CASCADE, "
+                        + "position INT NOT NULL, sender_name VARCHAR, sender_role VARCHAR(16), "
+                        + "message VARCHAR, sent_at TIMESTAMP, PRIMARY KEY (ticket_id, position))");
+    }
+
+    @Override
+    protected SupportTicket map(ResultSet row) throws SQLException {
+        String status = row.getString("status");
+        return new SupportTicket(
+            row.getLong("id"), row.getLong("user_id"), row.getString("user_name"), row.getString("subject"),
+            status == null ? null : TicketStatus.valueOf(status), row.getObject("created_at", LocalDate.class),
+            new ArrayList<>(), row.getLong("version")
+        );
+    }
+
+    @Override
+    protected void bind(PreparedStatement statement, int first, SupportTicket t) throws SQLException {
+        statement.setLong(first, t.userId());
+        statement.setString(first + 1, t.userName());
+        statement.setString(first + 2, t.subject());
+        statement.setString(first + 3, t.status() == null ? null : t.status().name());
+        statement.setObject(first + 4, t.createdAt());
+        statement.setLong(first + 5, t.version());
+    }
+
+    @Override
+    protected SupportTicket withId(SupportTicket t, long id) {
+        return new SupportTicket(id, t.userId(), t.userName(), t.subject(), t.status(), t.createdAt(), t.messages(), t.version());
+    }
+
+    // Attaches the messages of all loaded tickets with one query
+    @Override
+    protected List<SupportTicket> complete(Connection connection, List<SupportTicket> tickets) throws SQLException {
+        if (tickets.isEmpty()) return tickets;
+        Map<Long, List<SupportMessage>> byTicket = new HashMap<>();
+        for (SupportTicket t : tickets) byTicket.put(t.id(), t.messages());
+
+        Long[] ids = byTicket.keySet().toArray(Long[]::new);
+        Database.query(connection, "SELECT * FROM support_messages WHERE ticket_id = ANY(?) ORDER BY ticket_id, position",
+                s -> s.setObject(1, ids), row -> {
+            List<SupportMessage> messages = byTicket.get(row.getLong("ticket_id"));
+            if (messages != null) messages.add(mapMessage(row));
+            return null;
+        });
+        return tickets;
+    }
+
+    // Replaces the stored conversation of each ticket, in one batch
+    @Override
+    protected void storeChildren(Connection connection, List<SupportTicket> tickets) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM support_messages WHERE ticket_id = ?");
+             PreparedStatement insert = connection.prepareStatement(INSERT_MESSAGE)) {
+            for (SupportTicket t : tickets) {
+                delete.setLong(1, t.id());
+                delete.addBatch();
+                List<SupportMessage> messages = t.messages() == null ? List.of() : t.messages();
+                for (int i = 0; i < messages.size(); i++) {
+                    bindMessage(insert, t.id(), i, messages.get(i));
+                    insert.addBatch();
+                }
+            }
+            delete.executeBatch();
+            insert.executeBatch();
+        }
+    }
+
+    private static SupportMessage mapMessage(ResultSet row) throws SQLException {
+        String role = row.getString("sender_role");
+        return new SupportMessage(row.getString("sender_name"), role == null ? null : UserRole.valueOf(role),
+                row.getString("message"), row.getObject("sent_at", LocalDateTime.class));
+    }
+
+    private static void bindMessage(PreparedStatement statement, long ticketId, int position, SupportMessage m) throws SQLException {
+        statement.setLong(1, ticketId);
+        statement.setInt(2, position);
+        statement.setString(3, m.senderName());
+        statement.setString(4, m.senderRole() == null ? null : m.senderRole().name());
+        statement.setString(5, m.message());
+        statement.setObject(6, m.timestamp());
+    }
+
+    @Override
+    public void add(SupportTicket item) {
+        insert(new SupportTicket(
+            0, item.userId(), item.userName(), item.subject(),
+            TicketStatus.OPEN, item.createdAt(), new ArrayList<>(item.messages()), 0
+        ));
+    }
+
+    @Override
+    public ObservableList<SupportTicket> findByUserId(long userId) {
+        return FXCollections.observableArrayList(select("WHERE user_id = ? ORDER BY id", s -> s.setLong(1, userId)));
+    }
+
+    @Override
+    public void deleteByUserId(long userId) {
+        // Messages go with their ticket (ON DELETE CASCADE)
+        for (SupportTicket t : select("WHERE user_id = ?", s -> s.setLong(1, userId))) delete(t.id());
+    }
+
+    @Override
+    public synchronized void addMessage(long ticketId, SupportMessage message) {
+        try {
+            SupportTicket previous = db.inTransaction(connection -> {
+                // The row lock keeps concurrent replies from taking the same position
+                List<SupportTicket> rows = select(connection, "WHERE id = ? FOR UPDATE", s -> s.setLong(1, ticketId));
+                if (rows.isEmpty()) return null;
+                SupportTicket oldTicket = rows.get(0);
+
+                TicketStatus newStatus = SupportRepository.determineNewStatus(oldTicket.status(), message.senderRole());
+                try (PreparedStatement insert = connection.prepareStatement(INSERT_MESSAGE);
+                     PreparedStatement status = connection.prepareStatement("UPDATE support_tickets SET status = ? WHERE id = ?")) {
+                    bindMessage(insert, ticketId, oldTicket.messages().size(), message);
+                    insert.executeUpdate();
+                    status.setString(1, newStatus.name());
+                    status.setLong(2, ticketId);
+                    status.executeUpdate();
+                }
+                return oldTicket;
+            });
+            if (previous != null) changed(previous);
+        } catch (SQLException e) {
+            System.err.println("Error adding message to support ticket " + ticketId + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void updateStatus(long ticketId, TicketStatus status) {
+        SupportTicket old = findById(ticketId);
+        if (old != null) {
+            SupportTicket updated = new SupportTicket(
+                old.id(), old.userId(), old.userName(), old.subject(),
+                status, old.createdAt(), old.messages(), old.version()
+            );
+            update(updated);
+        }
+    }
+}
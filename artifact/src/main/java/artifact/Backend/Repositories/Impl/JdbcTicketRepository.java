@@ -0,0 +1,97 @@
+package artifact.Backend.Repositories.Impl;
+
+import artifact.Backend.Models.Ticket;
+import artifact.Backend.Repositories.Interfaces.ITicketRepository;
+import artifact.Backend.Repositories.Storage.Database;
+import artifact.Backend.Tags.BookingStatus;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Tickets stored in H2, indexed by reservation and by customer name (case-insensitive column).
+ */
+public class JdbcTicketRepository extends BaseJdbcRepository<Ticket> implements ITicketRepository {
+
+    public JdbcTicketRepository(Database db) {
+        super(db, "tickets",
+                new String[] { "reservation_id", "customer_name", "payment_status", "flight_info", "flight_date" },
+                "/tickets", Ticket.class, Ticket::id, TicketRepository::new,
+                "CREATE TABLE IF NOT EXISTS tickets ("
+                        + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                        + "reservation_id BIGINT NOT NULL, customer_name VARCHAR_IGNORECASE, "
+                        + "payment_status VARCHAR(16), flight_info VARCHAR, flight_date DATE)",
+                "CREATE INDEX IF NOT EXISTS tickets_reservation ON tickets (reservation_id)",
+                "CREATE INDEX IF NOT EXISTS tickets_customer ON tickets (customer_name)");
+    }
+
+    @Override
+    protected Ticket map(ResultSet row) throws SQLException {
+        String status = row.getString("payment_status");
+        return new Ticket(
+            row.getLong("id"), row.getLong("reservation_id"), row.getString("customer_name"),
+            status == null ? null : BookingStatus.valueOf(status), row.getString("flight_info"),
+            row.getObject("flight_date", LocalDate.class)
+        );
+    }
+
+    @Override
+    protected void bind(PreparedStatement statement, int first, Ticket t) throws SQLException {
+        statement.setLong(first, t.reservationId());
+        statement.setString(first + 1, t.customerName());
+        statement.setString(first + 2, t.paymentStatus() == null ? null : t.paymentStatus().name());
+        statement.setString(first + 3, t.flightInfo());
+        statement.setObject(first + 4, t.flightDate());
+    }
+
+    @Override
+    protected Ticket withId(Ticket t, long id) {
+        return new Ticket(id, t.reservationId(), t.customerName(), t.paymentStatus(), t.flightInfo(), t.flightDate());
+    }
+
+    @Override
+    public void add(Ticket item) {
+        // The database assigns the ID, whatever the caller set
+        insert(withId(item, 0));
+    }
+
+    @Override
+    public ObservableList<Ticket> findByCustomerName(String name) {
+        if (name == null) return FXCollections.observableArrayList();
+        return FXCollections.observableArrayList(select("WHERE customer_name = ? ORDER BY id", s -> s.setString(1, name.trim())));
+    }
+
+    @Override
+    public List<Ticket> findByReservationId(long reservationId) {
+        return select("WHERE reservation_id = ? ORDER BY id", s -> s.setLong(1, reservationId));
+    }
+
+    @Override
+    public void deleteByReservationId(long reservationId) {
+        for (Ticket t : findByReservationId(reservationId)) delete(t.id());
+    }
+
+    @Override
+    public void updateTicketStatus(long id, BookingStatus status) {
+        Ticket old = findById(id);
+        if (old == null) return;
+
+        Ticket updated = new Ticket(
+            old.id(), old.reservationId(), old.customerName(),
+            status, old.flightInfo(), old.flightDate()
+        );
+        update(updated);
+    }
+
+    @Override
+    public int archive(Predicate<Ticket> cold) {
+        // Rows already live on disk and only the rows asked for are ever loaded, so there is nothing to move
+        return 0;
+    }
+}
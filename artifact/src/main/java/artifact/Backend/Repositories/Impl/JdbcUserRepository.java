@@ -0,0 +1,66 @@
+package artifact.Backend.Repositories.Impl;
+
+import artifact.Backend.Models.User;
+import artifact.Backend.Repositories.Interfaces.IUserRepository;
+import artifact.Backend.Repositories.Storage.Database;
+import artifact.Backend.Tags.UserRole;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Users stored in H2; logins look up the indexed, case-insensitive email column.
+ */
+public class JdbcUserRepository extends BaseJdbcRepository<User> implements IUserRepository {
+
+    public JdbcUserRepository(Database db) {
+        super(db, "users",
+                new String[] { "name", "email", "password", "role" },
+                "/users", User.class, User::id, UserRepository::new,
+                "CREATE TABLE IF NOT EXISTS users ("
+                        + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                        + "name VARCHAR, email VARCHAR_IGNORECASE, password VARCHAR, role VARCHAR(16))",
+                "CREATE INDEX IF NOT EXISTS users_email ON users (email)");
+    }
+
+    @Override
+    protected User map(ResultSet row) throws SQLException {
+        String role = row.getString("role");
+        return new User(row.getLong("id"), row.getString("name"), row.getString("email"),
+                row.getString("password"), role == null ? null : UserRole.valueOf(role));
+    }
+
+    @Override
+    protected void bind(PreparedStatement statement, int first, User u) throws SQLException {
+        statement.setString(first, u.name());
+        statement.setString(first + 1, u.email());
+        statement.setString(first + 2, u.password());
+        statement.setString(first + 3, u.role() == null ? null : u.role().name());
+    }
+
+    @Override
+    protected User withId(User u, long id) {
+        return new User(id, u.name(), u.email(), u.password(), u.role());
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        if (email == null) return null;
+        List<User> users = select("WHERE email = ? ORDER BY id LIMIT 1", s -> s.setString(1, email.trim()));
+        return users.isEmpty() ? null : users.get(0);
+    }
+
+    @Override
+    public void addUser(String name, String email, String password) {
+        insert(new User(0, name, email, password, UserRole.CUSTOMER));
+    }
+
+    @Override
+    public void delete(long id) {
+        // Support tickets are the only rows that point at a user (see UserRepository)
+        RepositoryProvider.getSupportRepository().deleteByUserId(id);
+        super.delete(id);
+    }
+}
@@ -1,6 +1,11 @@
 package artifact.Backend.Repositories.Impl;
 
 import artifact.Backend.Repositories.Interfaces.*;
+import artifact.Backend.Repositories.Storage.Database;
+import artifact.Backend.Tags.StorageMode;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Central service locator and provider for all Data Access Objects (Repositories).
@@ -10,6 +15,11 @@ import artifact.Backend.Repositories.Interfaces.*;
  * only once (Eager Loading) and provides a global access point to the data layer.
  * </p>
  * <p>
+ * Flights, reservations, tickets, users and support tickets are stored in the embedded H2 database
+ * when their storage mode is {@code DATABASE} ({@code STORAGE_MODE_<NAME>}, then {@code STORAGE_MODE});
+ * otherwise they use the file-based repositories.
+ * </p>
+ * <p>
  * It also handles manual <strong>Dependency Injection</strong> for repositories that
  * require access to other repositories (e.g., DashboardRepository).
  * </p>
@@ -21,14 +31,19 @@ public class RepositoryProvider {
      * These are initialized immediately (Eager Loading) when the class is loaded to ensure
      * data is ready before any service attempts to access it.
      */
-    private static final IUserRepository userRepository = new UserRepository();
+    private static final IUserRepository userRepository =
+            inDatabase("users") ? new JdbcUserRepository(Database.getDefault()) : new UserRepository();
     private static final IAirportRepository airportRepository = new AirportRepository();
     private static final IAircraftRepository aircraftRepository = new AircraftRepository();
     private static final ICrewRepository crewRepository = new CrewRepository();
-    private static final IFlightRepository flightRepository = new FlightRepository();
-    private static final IReservationRepository reservationRepository = new ReservationRepository();
-    private static final ITicketRepository ticketRepository = new TicketRepository();
-    private static final ISupportRepository supportRepository = new SupportRepository();
+    private static final IFlightRepository flightRepository =
+            inDatabase("flights") ? new JdbcFlightRepository(Database.getDefault()) : new FlightRepository();
+    private static final IReservationRepository reservationRepository =
+            inDatabase("reservations") ? new JdbcReservationRepository(Database.getDefault()) : new ReservationRepository();
+    private static final ITicketRepository ticketRepository =
+            inDatabase("tickets") ? new JdbcTicketRepository(Database.getDefault()) : new TicketRepository();
+    private static final ISupportRepository supportRepository =
+            inDatabase("support_tickets") ? new JdbcSupportRepository(Database.getDefault()) : new SupportRepository();
 
     /**
      * The Dashboard Repository aggregates data from multiple sources.
@@ -43,6 +58,10 @@ public class RepositoryProvider {
             ticketRepository
     );
 
+    private static boolean inDatabase(String name) {
+        return BaseJsonRepository.storageModeFor(name) == StorageMode.DATABASE;
+    }
+
     // --- Public Accessors ---
 
     /**
@@ -117,4 +136,21 @@ public class RepositoryProvider {
     public static ISupportRepository getSupportRepository() {
         return supportRepository;
     }
+
+    /**
+     * The repositories mirrored in Supabase, keyed by their Supabase table, parents before children.
+     * @return The map used to route realtime changes to repositories.
+     */
+    public static Map<String, IRepository<?>> getCloudRepositories() {
+        Map<String, IRepository<?>> byTable = new LinkedHashMap<>();
+        byTable.put("/users", userRepository);
+        byTable.put("/airports", airportRepository);
+        byTable.put("/aircraft", aircraftRepository);
+        byTable.put("/crew", crewRepository);
+        byTable.put("/flights", flightRepository);
+        byTable.put("/reservations", reservationRepository);
+        byTable.put("/tickets", ticketRepository);
+        byTable.put("/support_tickets", supportRepository);
+        return byTable;
+    }
 }
\ No newline at end of file
@@ -1,17 +1,34 @@
 package artifact.Backend.Repositories.Impl;
 
 import artifact.Backend.Models.Reservation;
+import artifact.Backend.Repositories.Index.ExpiryQueue;
+import artifact.Backend.Repositories.Index.SeatOccupancyIndex;
+import artifact.Backend.Repositories.Index.SecondaryIndex;
 import artifact.Backend.Repositories.Interfaces.IReservationRepository;
+import artifact.Backend.Repositories.Storage.RecordCodecs;
+import artifact.Backend.Repositories.Storage.SlotCodecs;
 import artifact.Backend.Tags.BookingStatus;
 import com.google.gson.reflect.TypeToken;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class ReservationRepository extends BaseJsonRepository<Reservation> implements IReservationRepository {
 
+    private final SecondaryIndex<Reservation, Long> byFlight = defineIndex(Reservation::flightId);
+    private final SeatOccupancyIndex seats = registerIndex(new SeatOccupancyIndex());
+    private final ExpiryQueue<Reservation> expiries = registerIndex(
+            new ExpiryQueue<>(Reservation::expiryTime, Reservation::id, r -> r.status() == BookingStatus.PENDING));
+
     public ReservationRepository() {
-        super("reservations.json", new TypeToken<ArrayList<Reservation>>(){}.getType(), "/reservations", Reservation::id);
+        super("reservations.json", new TypeToken<ArrayList<Reservation>>(){}.getType(), "/reservations", Reservation::id, true, RecordCodecs.RESERVATION);
+        enableArchive(SlotCodecs.RESERVATION);
     }
 
     @Override
@@ -27,7 +44,7 @@ public class ReservationRepository extends BaseJsonRepository<Reservation> imple
     }
 
     @Override
-    public void updateReservationStatus(long id, BookingStatus status) {
+    public synchronized void updateReservationStatus(long id, BookingStatus status) {
         Reservation old = findById(id);
         if (old == null) return;
 
@@ -39,26 +56,75 @@ public class ReservationRepository extends BaseJsonRepository<Reservation> imple
         update(updated);
     }
 
+    @Override
+    public synchronized boolean updateReservationStatusIf(long id, Predicate<Reservation> condition, BookingStatus status) {
+        Reservation current = findById(id);
+        if (current == null || !condition.test(current)) return false;
+        updateReservationStatus(id, status);
+        return true;
+    }
+
     @Override
     public List<Reservation> findByFlightId(long flightId) {
-        return dataList.stream()
-                .filter(r -> r.flightId() == flightId)
+        return byFlight.find(flightId).stream()
                 .filter(r -> r.status() == BookingStatus.PENDING || r.status() == BookingStatus.CONFIRMED)
                 .collect(Collectors.toList());
     }
 
     @Override
-    public void delete(long id) {
-        // 1. Delete the User (This triggers Supabase DELETE)
-        // Supabase will automatically delete the user AND cascading tickets/reservations
-        super.delete(id); 
+    public Set<String> findTakenSeats(long flightId, String viewerToken) {
+        return seats.forFlight(flightId).unavailableSeats(viewerToken);
+    }
 
-        // 2. Wait a brief moment for Supabase to finish the Cascade? 
-        // Usually it's instant, but safe to fetch immediately.
+    @Override
+    public boolean holdSeats(long flightId, Collection<String> seatNumbers, String holderToken, Duration ttl) {
+        return seats.forFlight(flightId).hold(seatNumbers, holderToken, Instant.now().plus(ttl));
+    }
+
+    @Override
+    public boolean claimSeat(long flightId, String seatNumber, String holderToken) {
+        return seats.forFlight(flightId).claim(seatNumber, holderToken);
+    }
 
-        // 3. Tell related repositories to refresh themselves
-        RepositoryProvider.getTicketRepository().refreshFromCloud();
-        
-        System.out.println("Cascading delete handled by Cloud. Local files updated.");
+    @Override
+    public void unclaimSeat(long flightId, String seatNumber) {
+        seats.forFlight(flightId).unclaim(seatNumber);
+    }
+
+    @Override
+    public void releaseSeatHolds(long flightId, String holderToken) {
+        seats.forFlight(flightId).releaseHolds(holderToken);
+    }
+
+    @Override
+    public List<Reservation> pollExpired(LocalDateTime now, int limit) {
+        List<Reservation> overdue = new ArrayList<>();
+        List<Long> due;
+        while (overdue.size() < limit && !(due = expiries.pollDue(now, limit - overdue.size())).isEmpty()) {
+            for (long id : due) {
+                Reservation r = findById(id);
+                // Skip entries made stale by payment, deletion or a changed expiry
+                if (r != null && r.status() == BookingStatus.PENDING
+                        && r.expiryTime() != null && !r.expiryTime().isAfter(now)) {
+                    overdue.add(r);
+                }
+            }
+        }
+        return overdue;
+    }
+
+    @Override
+    public void deleteByFlightId(long flightId) {
+        List<Reservation> doomed = new ArrayList<>(byFlight.find(flightId));
+        doomed.addAll(findArchived(r -> r.flightId() == flightId));
+        for (Reservation r : doomed) delete(r.id());
+    }
+
+    @Override
+    public void delete(long id) {
+        // Children first, so no ticket is ever left pointing at a missing reservation.
+        // Every delete is queued for the cloud, where the same cascade is a no-op.
+        RepositoryProvider.getTicketRepository().deleteByReservationId(id);
+        super.delete(id);
     }
 }
\ No newline at end of file
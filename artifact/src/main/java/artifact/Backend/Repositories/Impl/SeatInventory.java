@@ -0,0 +1,87 @@
+package artifact.Backend.Repositories.Impl;
+
+import artifact.Backend.Models.Flight;
+import artifact.Backend.Repositories.Index.RepositoryIndex;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free seat counters, one per flight.
+ * <p>
+ * The counter is the source of truth for how many seats can still be sold; the
+ * {@code availableSeats} field of the persisted {@link Flight} record is written from it
+ * afterwards. Reservations on different flights never contend, and two bookers on the same
+ * flight race on a single compare-and-set instead of a lock.
+ * </p>
+ * <p>
+ * Registered as an index on {@link FlightRepository} so counters appear and disappear with
+ * their flights. Plain updates are ignored on purpose: most are the repository writing the
+ * counter value back, and resetting the counter from them could undo a sale that happened
+ * in between. Seat counts edited directly are applied with {@link #adjust} by the repository.
+ * </p>
+ */
+class SeatInventory implements RepositoryIndex<Flight> {
+
+    private final ConcurrentHashMap<Long, AtomicInteger> seats = new ConcurrentHashMap<>();
+
+    /**
+     * Takes {@code count} seats if and only if that many are still free.
+     * @return false if the flight is unknown or has fewer than {@code count} seats left.
+     */
+    boolean tryReserve(long flightId, int count) {
+        AtomicInteger counter = seats.get(flightId);
+        if (counter == null || count <= 0) return false;
+
+        while (true) {
+            int current = counter.get();
+            if (current < count) return false;
+            if (counter.compareAndSet(current, current - count)) return true;
+        }
+    }
+
+    /**
+     * Puts previously reserved seats back on sale.
+     */
+    void release(long flightId, int count) {
+        AtomicInteger counter = seats.get(flightId);
+        if (counter != null && count > 0) counter.addAndGet(count);
+    }
+
+    /**
+     * @return Seats currently free, or -1 if the flight is unknown.
+     */
+    int available(long flightId) {
+        AtomicInteger counter = seats.get(flightId);
+        return counter == null ? -1 : counter.get();
+    }
+
+    /**
+     * Applies a change made elsewhere (another terminal, via the cloud) on top of the local sales.
+     */
+    void adjust(long flightId, int delta) {
+        AtomicInteger counter = seats.get(flightId);
+        if (counter != null) counter.addAndGet(delta);
+    }
+
+    @Override
+    public void onPut(Flight previous, Flight current) {
+        if (previous == null) {
+            seats.put(current.id(), new AtomicInteger(current.availableSeats()));
+        }
+    }
+
+    @Override
+    public void onRemove(Flight previous) {
+        seats.remove(previous.id());
+    }
+
+    @Override
+    public void rebuild(List<Flight> items) {
+        seats.clear();
+        for (Flight flight : items) {
+            seats.put(flight.id(), new AtomicInteger(flight.availableSeats()));
+        }
+    }
+}
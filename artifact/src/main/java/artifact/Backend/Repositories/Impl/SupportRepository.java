@@ -3,6 +3,7 @@ package artifact.Backend.Repositories.Impl;
 import artifact.Backend.Models.SupportMessage;
 import artifact.Backend.Models.SupportTicket;
 import artifact.Backend.Repositories.Interfaces.ISupportRepository;
+import artifact.Backend.Repositories.Storage.RecordCodecs;
 import artifact.Backend.Tags.TicketStatus;
 import artifact.Backend.Tags.UserRole;
 import com.google.gson.reflect.TypeToken;
@@ -16,7 +17,7 @@ import java.util.stream.Collectors;
 public class SupportRepository extends BaseJsonRepository<SupportTicket> implements ISupportRepository {
 
     public SupportRepository() {
-        super("support_tickets.json", new TypeToken<ArrayList<SupportTicket>>(){}.getType(), "/support_tickets", SupportTicket::id);
+        super("support_tickets.json", new TypeToken<ArrayList<SupportTicket>>(){}.getType(), "/support_tickets", SupportTicket::id, true, RecordCodecs.SUPPORT_TICKET);
     }
 
     @Override
@@ -24,18 +25,23 @@ public class SupportRepository extends BaseJsonRepository<SupportTicket> impleme
         // Ensure ID is generated here
         SupportTicket newTicket = new SupportTicket(
             generateNextId(), item.userId(), item.userName(), item.subject(),
-            TicketStatus.OPEN, item.createdAt(), new ArrayList<>(item.messages())
+            TicketStatus.OPEN, item.createdAt(), new ArrayList<>(item.messages()), 0
         );
         super.add(newTicket);
     }
 
     @Override
     public ObservableList<SupportTicket> findByUserId(long userId) {
-        return dataList.stream()
+        return snapshot().stream()
                 .filter(t -> t.userId() == userId)
                 .collect(Collectors.toCollection(FXCollections::observableArrayList));
     }
 
+    @Override
+    public void deleteByUserId(long userId) {
+        for (SupportTicket t : findByUserId(userId)) delete(t.id());
+    }
+
     @Override
     public void addMessage(long ticketId, SupportMessage message) {
         SupportTicket oldTicket = findById(ticketId);
@@ -48,13 +54,13 @@ public class SupportRepository extends BaseJsonRepository<SupportTicket> impleme
 
         SupportTicket updated = new SupportTicket(
             oldTicket.id(), oldTicket.userId(), oldTicket.userName(),
-            oldTicket.subject(), newStatus, oldTicket.createdAt(), newMessages
+            oldTicket.subject(), newStatus, oldTicket.createdAt(), newMessages, oldTicket.version()
         );
         update(updated);
     }
 
     // Extracted Business Logic (Testable!)
-    private TicketStatus determineNewStatus(TicketStatus currentStatus, UserRole senderRole) {
+    static TicketStatus determineNewStatus(TicketStatus currentStatus, UserRole senderRole) {
         if (senderRole == UserRole.STAFF) {
             if (currentStatus == TicketStatus.OPEN || currentStatus == TicketStatus.RESOLVED) {
                 return TicketStatus.IN_PROGRESS;
@@ -73,7 +79,7 @@ public class SupportRepository extends BaseJsonRepository<SupportTicket> impleme
         if (old != null) {
             SupportTicket updated = new SupportTicket(
                 old.id(), old.userId(), old.userName(), old.subject(), 
-                status, old.createdAt(), old.messages()
+                status, old.createdAt(), old.messages(), old.version()
             );
             update(updated);
         }
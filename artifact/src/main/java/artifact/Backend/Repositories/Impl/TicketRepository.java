@@ -1,18 +1,25 @@
 package artifact.Backend.Repositories.Impl;
 
 import artifact.Backend.Models.Ticket;
+import artifact.Backend.Repositories.Index.SecondaryIndex;
 import artifact.Backend.Repositories.Interfaces.ITicketRepository;
+import artifact.Backend.Repositories.Storage.RecordCodecs;
+import artifact.Backend.Repositories.Storage.SlotCodecs;
 import artifact.Backend.Tags.BookingStatus;
 import com.google.gson.reflect.TypeToken;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
+import java.util.List;
 
 public class TicketRepository extends BaseJsonRepository<Ticket> implements ITicketRepository {
 
+    private final SecondaryIndex<Ticket, String> byCustomerName = defineIndex(Ticket::customerName, SecondaryIndex::ignoreCase);
+    private final SecondaryIndex<Ticket, Long> byReservation = defineIndex(Ticket::reservationId);
+
     public TicketRepository() {
-        super("tickets.json", new TypeToken<ArrayList<Ticket>>(){}.getType(), "/tickets", Ticket::id);
+        super("tickets.json", new TypeToken<ArrayList<Ticket>>(){}.getType(), "/tickets", Ticket::id, true, RecordCodecs.TICKET);
+        enableArchive(SlotCodecs.TICKET);
     }
 
     @Override
@@ -30,9 +37,22 @@ public class TicketRepository extends BaseJsonRepository<Ticket> implements ITic
 
     @Override
     public ObservableList<Ticket> findByCustomerName(String name) {
-        return dataList.stream()
-                .filter(t -> t.customerName().equalsIgnoreCase(name))
-                .collect(Collectors.toCollection(FXCollections::observableArrayList));
+        // Booking history: recent tickets from the index, older ones from the archive
+        List<Ticket> tickets = new ArrayList<>(byCustomerName.find(name));
+        tickets.addAll(findArchived(t -> t.customerName() != null && t.customerName().equalsIgnoreCase(name)));
+        return FXCollections.observableArrayList(tickets);
+    }
+
+    @Override
+    public List<Ticket> findByReservationId(long reservationId) {
+        return byReservation.find(reservationId);
+    }
+
+    @Override
+    public void deleteByReservationId(long reservationId) {
+        List<Ticket> doomed = new ArrayList<>(byReservation.find(reservationId));
+        doomed.addAll(findArchived(t -> t.reservationId() == reservationId));
+        for (Ticket t : doomed) delete(t.id());
     }
 
     @Override
@@ -1,15 +1,19 @@
 package artifact.Backend.Repositories.Impl;
 
 import artifact.Backend.Models.User;
+import artifact.Backend.Repositories.Index.SecondaryIndex;
 import artifact.Backend.Repositories.Interfaces.IUserRepository;
+import artifact.Backend.Repositories.Storage.RecordCodecs;
 import artifact.Backend.Tags.UserRole;
 import com.google.gson.reflect.TypeToken;
 import java.util.ArrayList;
 
 public class UserRepository extends BaseJsonRepository<User> implements IUserRepository {
 
+    private final SecondaryIndex<User, String> byEmail = defineIndex(User::email, SecondaryIndex::ignoreCase);
+
     public UserRepository() {
-        super("users.json", new TypeToken<ArrayList<User>>(){}.getType(), "/users", User::id);
+        super("users.json", new TypeToken<ArrayList<User>>(){}.getType(), "/users", User::id, true, RecordCodecs.USER);
     }
 
     @Override
@@ -22,7 +26,7 @@ public class UserRepository extends BaseJsonRepository<User> implements IUserRep
 
     @Override
     public User findByEmail(String email) {
-        return dataList.stream().filter(u -> u.email().equals(email)).findFirst().orElse(null);
+        return byEmail.findFirst(email);
     }
 
     @Override
@@ -35,17 +39,9 @@ public class UserRepository extends BaseJsonRepository<User> implements IUserRep
 
     @Override
     public void delete(long id) {
-        // 1. Delete the User (This triggers Supabase DELETE)
-        // Supabase will automatically delete the user AND cascading tickets/reservations
-        super.delete(id); 
-
-        // 2. Wait a brief moment for Supabase to finish the Cascade? 
-        // Usually it's instant, but safe to fetch immediately.
-
-        // 3. Tell related repositories to refresh themselves
-        RepositoryProvider.getSupportRepository().refreshFromCloud();
-        RepositoryProvider.getReservationRepository().refreshFromCloud();
-        
-        System.out.println("Cascading delete handled by Cloud. Local files updated.");
+        // Reservations only carry the customer's name, so the user's support tickets are the
+        // only rows that point at it; any other cloud-side cascade arrives with the next pull
+        RepositoryProvider.getSupportRepository().deleteByUserId(id);
+        super.delete(id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package artifact.Backend.Repositories.Index;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Time-ordered queue of rows that expire, e.g. "Pay Later" reservations.
+ * <p>
+ * Entries are only ever added; when a row is paid, cancelled or given a new expiry, its old
+ * entry simply stays in the queue and is filtered out by the caller when it comes due
+ * (lazy deletion). Polling therefore costs O(k log n) for the k entries that are due, never a
+ * scan of the whole table.
+ * </p>
+ *
+ * @param <T> Model type stored in the repository.
+ */
+public class ExpiryQueue<T> implements RepositoryIndex<T> {
+
+    private record Entry(LocalDateTime expiresAt, long id) {}
+
+    private final PriorityQueue<Entry> queue =
+            new PriorityQueue<>(Comparator.comparing(Entry::expiresAt).thenComparingLong(Entry::id));
+    private final Function<T, LocalDateTime> expiryExtractor;
+    private final Function<T, Long> idExtractor;
+    private final Predicate<T> expires;
+
+    /**
+     * @param expiryExtractor When the row expires (may return null).
+     * @param idExtractor     Primary key of the row.
+     * @param expires         Whether the row is in a state that can expire at all.
+     */
+    public ExpiryQueue(Function<T, LocalDateTime> expiryExtractor, Function<T, Long> idExtractor, Predicate<T> expires) {
+        this.expiryExtractor = expiryExtractor;
+        this.idExtractor = idExtractor;
+        this.expires = expires;
+    }
+
+    /**
+     * Removes and returns the IDs of up to {@code limit} entries due at {@code now}, oldest first.
+     * Callers must re-check each row, since it may have changed after it was queued.
+     */
+    public synchronized List<Long> pollDue(LocalDateTime now, int limit) {
+        List<Long> due = new ArrayList<>();
+        while (due.size() < limit && !queue.isEmpty() && !queue.peek().expiresAt().isAfter(now)) {
+            due.add(queue.poll().id());
+        }
+        return due;
+    }
+
+    /**
+     * @return The earliest queued expiry, or null if nothing is queued.
+     */
+    public synchronized LocalDateTime nextExpiry() {
+        Entry head = queue.peek();
+        return head == null ? null : head.expiresAt();
+    }
+
+    @Override
+    public synchronized void onPut(T previous, T current) {
+        LocalDateTime expiresAt = expiryExtractor.apply(current);
+        if (expiresAt == null || !expires.test(current)) return;
+        // Unchanged expiry means the row is already queued
+        if (previous != null && expires.test(previous) && expiresAt.equals(expiryExtractor.apply(previous))) return;
+        queue.add(new Entry(expiresAt, idExtractor.apply(current)));
+    }
+
+    @Override
+    public void onRemove(T previous) {
+        // Lazy deletion: the stale entry is dropped when it comes due
+    }
+
+    @Override
+    public synchronized void rebuild(List<T> items) {
+        queue.clear();
+        for (T item : items) {
+            onPut(null, item);
+        }
+    }
+}
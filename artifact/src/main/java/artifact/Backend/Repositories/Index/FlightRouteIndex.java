@@ -0,0 +1,120 @@
+package artifact.Backend.Repositories.Index;
+
+import artifact.Backend.Models.Flight;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Schedule index for flight search.
+ * <p>
+ * Flights are grouped by route (departure airport, arrival airport) and kept sorted by
+ * departure time, so "all flights on this route on day X / in month Y" is a range query
+ * instead of a scan over the whole schedule. For the booking calendar, every route also
+ * carries one {@link BitSet} per month in which bit {@code d - 1} is set when at least one
+ * flight with free seats departs on day {@code d}.
+ * </p>
+ */
+public class FlightRouteIndex implements RepositoryIndex<Flight> {
+
+    private record Route(long fromId, long toId) {}
+
+    // Sort by departure time, then ID so flights leaving at the same minute are all kept
+    private static final Comparator<Flight> BY_DEPARTURE =
+            Comparator.comparing(Flight::departureTime).thenComparingLong(Flight::id);
+
+    private final Map<Route, NavigableSet<Flight>> schedules = new HashMap<>();
+    private final Map<Route, Map<YearMonth, BitSet>> availability = new HashMap<>();
+
+    /**
+     * Flights on the route departing on the given day, in departure order.
+     */
+    public synchronized List<Flight> findByDate(long fromId, long toId, LocalDate date) {
+        return range(new Route(fromId, toId), date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Flights on the route departing in the given month, in departure order.
+     */
+    public synchronized List<Flight> findByMonth(long fromId, long toId, YearMonth month) {
+        return range(new Route(fromId, toId), month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+    }
+
+    /**
+     * Days of the month (bit {@code day - 1}) with at least one bookable flight on the route.
+     * @return A copy that the caller may keep or modify.
+     */
+    public synchronized BitSet availableDays(long fromId, long toId, YearMonth month) {
+        Map<YearMonth, BitSet> months = availability.get(new Route(fromId, toId));
+        BitSet days = months == null ? null : months.get(month);
+        return days == null ? new BitSet() : (BitSet) days.clone();
+    }
+
+    @Override
+    public synchronized void onPut(Flight previous, Flight current) {
+        if (previous != null) onRemove(previous);
+        if (current.departureTime() == null) return;
+
+        Route route = routeOf(current);
+        schedules.computeIfAbsent(route, r -> new TreeSet<>(BY_DEPARTURE)).add(current);
+        refreshDay(route, current.departureTime().toLocalDate());
+    }
+
+    @Override
+    public synchronized void onRemove(Flight previous) {
+        if (previous.departureTime() == null) return;
+
+        Route route = routeOf(previous);
+        NavigableSet<Flight> schedule = schedules.get(route);
+        if (schedule == null) return;
+        schedule.remove(previous);
+        if (schedule.isEmpty()) schedules.remove(route);
+        refreshDay(route, previous.departureTime().toLocalDate());
+    }
+
+    @Override
+    public synchronized void rebuild(List<Flight> items) {
+        schedules.clear();
+        availability.clear();
+        for (Flight flight : items) {
+            onPut(null, flight);
+        }
+    }
+
+    private List<Flight> range(Route route, LocalDateTime from, LocalDateTime to) {
+        NavigableSet<Flight> schedule = schedules.get(route);
+        if (schedule == null) return new ArrayList<>();
+        return new ArrayList<>(schedule.subSet(probe(from), true, probe(to), false));
+    }
+
+    // Recomputes a single calendar bit from the flights of that day only
+    private void refreshDay(Route route, LocalDate date) {
+        boolean bookable = range(route, date.atStartOfDay(), date.plusDays(1).atStartOfDay()).stream()
+                .anyMatch(f -> f.availableSeats() > 0);
+
+        YearMonth month = YearMonth.from(date);
+        Map<YearMonth, BitSet> months = availability.computeIfAbsent(route, r -> new HashMap<>());
+        BitSet days = months.computeIfAbsent(month, m -> new BitSet(31));
+        days.set(date.getDayOfMonth() - 1, bookable);
+        if (days.isEmpty()) months.remove(month);
+        if (months.isEmpty()) availability.remove(route);
+    }
+
+    private static Route routeOf(Flight flight) {
+        return new Route(flight.departureAirportId(), flight.arrivalAirportId());
+    }
+
+    // Sorts before every real flight departing at the same instant
+    private static Flight probe(LocalDateTime time) {
+        return new Flight(Long.MIN_VALUE, 0, 0, 0, 0, time, time, 0, 0);
+    }
+}
@@ -0,0 +1,128 @@
+package artifact.Backend.Repositories.Index;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from {@code long} keys to {@code int} values.
+ * <p>
+ * Used for primary-key lookups (entity ID to list position) where a
+ * {@code HashMap<Long, Integer>} would box every key and value. Collisions are
+ * resolved with linear probing, and removals use backward-shift deletion so no
+ * tombstones build up over time.
+ * </p>
+ * Not thread-safe; callers synchronize externally.
+ */
+public class LongIntHashMap {
+
+    /** Returned by {@link #get(long)} and {@link #remove(long)} when the key is absent. */
+    public static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int mask;
+    private int size;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(long key) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) return values[i];
+            i = (i + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != MISSING;
+    }
+
+    public void put(long key, int value) {
+        // Keep the load factor at or below 0.5 so probe sequences stay short
+        if ((size + 1) * 2 > keys.length) resize(keys.length * 2);
+
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        used[i] = true;
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    public int remove(long key) {
+        int i = slot(key);
+        while (used[i] && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (!used[i]) return MISSING;
+
+        int removed = values[i];
+        int hole = i;
+        int j = (i + 1) & mask;
+        // Pull back any later entry of the same probe run that may no longer be reachable
+        while (used[j]) {
+            int home = slot(keys[j]);
+            boolean reachable = hole < j ? (home > hole && home <= j) : (home > hole || home <= j);
+            if (!reachable) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+            j = (j + 1) & mask;
+        }
+        used[hole] = false;
+        size--;
+        return removed;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void resize(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(newCapacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) capacity <<= 1;
+        return capacity;
+    }
+}
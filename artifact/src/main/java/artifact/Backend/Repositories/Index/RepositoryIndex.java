@@ -0,0 +1,33 @@
+package artifact.Backend.Repositories.Index;
+
+import java.util.List;
+
+/**
+ * A derived view over a repository's rows that is kept up to date incrementally.
+ * <p>
+ * {@code BaseJsonRepository} calls these hooks after every mutation while holding its
+ * own lock, so implementations see changes in the same order as the underlying list.
+ * </p>
+ *
+ * @param <T> Model type stored in the repository.
+ */
+public interface RepositoryIndex<T> {
+
+    /**
+     * Called after a row was inserted or replaced.
+     *
+     * @param previous The row that was replaced, or null for an insert.
+     * @param current  The row now stored.
+     */
+    void onPut(T previous, T current);
+
+    /**
+     * Called after a row was deleted.
+     */
+    void onRemove(T previous);
+
+    /**
+     * Discards all state and re-indexes the given rows (initial load, cloud refresh).
+     */
+    void rebuild(List<T> items);
+}
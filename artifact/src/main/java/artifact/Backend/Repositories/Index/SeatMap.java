@@ -0,0 +1,178 @@
+package artifact.Backend.Repositories.Index;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Seat occupancy of a single flight.
+ * <p>
+ * Seats follow the cabin layout used by the seat selection screen: numbered rows with
+ * {@link #SEATS_PER_ROW} seats lettered A-F, so seat "12C" maps to bit
+ * {@code (12 - 1) * 6 + 2}. Three kinds of state are tracked:
+ * </p>
+ * <ul>
+ * <li><b>reserved</b> - seats of PENDING/CONFIRMED reservations (derived from the repository)</li>
+ * <li><b>claimed</b> - seats confirmed by a booking whose reservation is still being written</li>
+ * <li><b>holds</b> - temporary holds with an expiry, taken while a customer is on the payment screen</li>
+ * </ul>
+ * Labels that do not fit the layout (free text entered by admins) are tracked by name instead.
+ * All methods are synchronized on the map itself, so different flights never contend.
+ */
+public class SeatMap {
+
+    public static final int SEATS_PER_ROW = 6;
+    private static final String LETTERS = "ABCDEF";
+
+    private record Hold(String holder, Instant expiresAt) {
+        boolean isLive(Instant now) { return expiresAt.isAfter(now); }
+    }
+
+    private BitSet reserved = new BitSet();
+    private Set<String> reservedOther = new HashSet<>();
+    private final BitSet claimed = new BitSet();
+    private final Set<String> claimedOther = new HashSet<>();
+    private final Map<Integer, Hold> holds = new HashMap<>();
+
+    /**
+     * Maps a seat label such as "12C" to its bit, or -1 if it does not fit the layout.
+     */
+    public static int indexOf(String label) {
+        if (label == null) return -1;
+        String seat = normalize(label);
+        if (seat.length() < 2) return -1;
+
+        int letter = LETTERS.indexOf(seat.charAt(seat.length() - 1));
+        if (letter < 0) return -1;
+        try {
+            int row = Integer.parseInt(seat.substring(0, seat.length() - 1));
+            return row < 1 ? -1 : (row - 1) * SEATS_PER_ROW + letter;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public static String labelOf(int index) {
+        return (index / SEATS_PER_ROW + 1) + String.valueOf(LETTERS.charAt(index % SEATS_PER_ROW));
+    }
+
+    static String normalize(String label) {
+        return label.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Holds all given seats for {@code holder} until {@code expiresAt}, or none of them if any
+     * seat is taken or held by someone else. Earlier holds of the same holder are replaced.
+     */
+    public synchronized boolean hold(Collection<String> seats, String holder, Instant expiresAt) {
+        Instant now = Instant.now();
+        List<Integer> indexes = new ArrayList<>();
+        for (String seat : seats) {
+            int index = indexOf(seat);
+            if (index < 0 || isTaken(index) || isHeldByOther(index, holder, now)) return false;
+            indexes.add(index);
+        }
+
+        releaseHolds(holder);
+        for (int index : indexes) {
+            holds.put(index, new Hold(holder, expiresAt));
+        }
+        return true;
+    }
+
+    /**
+     * Turns a seat into a booked seat. Succeeds if the seat is free and either unheld or held
+     * by {@code holder} (null for bookings made without a hold, e.g. by an admin).
+     */
+    public synchronized boolean claim(String seat, String holder) {
+        int index = indexOf(seat);
+        if (index < 0) {
+            String name = normalize(seat);
+            if (reservedOther.contains(name) || claimedOther.contains(name)) return false;
+            claimedOther.add(name);
+            return true;
+        }
+
+        if (isTaken(index) || isHeldByOther(index, holder, Instant.now())) return false;
+        claimed.set(index);
+        holds.remove(index);
+        return true;
+    }
+
+    /**
+     * Undoes a claim whose reservation was never written.
+     */
+    public synchronized void unclaim(String seat) {
+        int index = indexOf(seat);
+        if (index < 0) claimedOther.remove(normalize(seat));
+        else claimed.clear(index);
+    }
+
+    public synchronized void releaseHolds(String holder) {
+        holds.values().removeIf(h -> Objects.equals(h.holder(), holder));
+    }
+
+    /**
+     * Labels of every seat that {@code viewer} cannot pick: booked, claimed, or held by someone else.
+     */
+    public synchronized Set<String> unavailableSeats(String viewer) {
+        Instant now = Instant.now();
+        holds.values().removeIf(h -> !h.isLive(now));
+
+        BitSet taken = (BitSet) reserved.clone();
+        taken.or(claimed);
+        holds.forEach((index, h) -> {
+            if (!Objects.equals(h.holder(), viewer)) taken.set(index);
+        });
+
+        Set<String> labels = new HashSet<>(reservedOther);
+        labels.addAll(claimedOther);
+        for (int i = taken.nextSetBit(0); i >= 0; i = taken.nextSetBit(i + 1)) {
+            labels.add(labelOf(i));
+        }
+        return labels;
+    }
+
+    synchronized void reserve(String seat) {
+        int index = indexOf(seat);
+        if (index < 0) {
+            String name = normalize(seat);
+            reservedOther.add(name);
+            claimedOther.remove(name);
+        } else {
+            reserved.set(index);
+            claimed.clear(index);
+        }
+    }
+
+    synchronized void vacate(String seat) {
+        int index = indexOf(seat);
+        if (index < 0) reservedOther.remove(normalize(seat));
+        else reserved.clear(index);
+    }
+
+    // Claims and holds survive a rebuild: they belong to bookings still in flight
+    synchronized void replaceReserved(BitSet bits, Set<String> other) {
+        reserved = bits;
+        reservedOther = other;
+        claimed.andNot(bits);
+        claimedOther.removeAll(other);
+    }
+
+    private boolean isTaken(int index) {
+        return reserved.get(index) || claimed.get(index);
+    }
+
+    private boolean isHeldByOther(int index, String holder, Instant now) {
+        Hold hold = holds.get(index);
+        return hold != null && hold.isLive(now) && !Objects.equals(hold.holder(), holder);
+    }
+}
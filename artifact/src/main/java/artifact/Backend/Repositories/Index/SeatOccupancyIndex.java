@@ -0,0 +1,75 @@
+package artifact.Backend.Repositories.Index;
+
+import artifact.Backend.Models.Reservation;
+import artifact.Backend.Tags.BookingStatus;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one {@link SeatMap} per flight in step with the reservations table.
+ * A reservation occupies its seat while it is PENDING or CONFIRMED; expiring or deleting it
+ * frees the seat again. Seat-map reads therefore never scan reservations.
+ */
+public class SeatOccupancyIndex implements RepositoryIndex<Reservation> {
+
+    private final Map<Long, SeatMap> flights = new ConcurrentHashMap<>();
+
+    /**
+     * The seat map of a flight, created empty on first use.
+     */
+    public SeatMap forFlight(long flightId) {
+        return flights.computeIfAbsent(flightId, id -> new SeatMap());
+    }
+
+    @Override
+    public void onPut(Reservation previous, Reservation current) {
+        if (previous != null && holdsSeat(previous)) {
+            forFlight(previous.flightId()).vacate(previous.seatNumber());
+        }
+        if (holdsSeat(current)) {
+            forFlight(current.flightId()).reserve(current.seatNumber());
+        }
+    }
+
+    @Override
+    public void onRemove(Reservation previous) {
+        if (holdsSeat(previous)) {
+            forFlight(previous.flightId()).vacate(previous.seatNumber());
+        }
+    }
+
+    @Override
+    public void rebuild(List<Reservation> items) {
+        Map<Long, BitSet> bits = new HashMap<>();
+        Map<Long, Set<String>> other = new HashMap<>();
+        for (Reservation r : items) {
+            if (!holdsSeat(r)) continue;
+            int index = SeatMap.indexOf(r.seatNumber());
+            if (index >= 0) {
+                bits.computeIfAbsent(r.flightId(), id -> new BitSet()).set(index);
+            } else {
+                other.computeIfAbsent(r.flightId(), id -> new HashSet<>()).add(SeatMap.normalize(r.seatNumber()));
+            }
+        }
+
+        Set<Long> touched = new HashSet<>(flights.keySet());
+        touched.addAll(bits.keySet());
+        touched.addAll(other.keySet());
+        for (long flightId : touched) {
+            forFlight(flightId).replaceReserved(
+                    bits.getOrDefault(flightId, new BitSet()),
+                    other.getOrDefault(flightId, new HashSet<>()));
+        }
+    }
+
+    private static boolean holdsSeat(Reservation r) {
+        return r.seatNumber() != null
+                && (r.status() == BookingStatus.PENDING || r.status() == BookingStatus.CONFIRMED);
+    }
+}
@@ -0,0 +1,97 @@
+package artifact.Backend.Repositories.Index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Non-unique index from an attribute of a row (e.g. {@code Reservation.flightId}) to the rows
+ * carrying that value. Within a key, rows keep the order in which they were first inserted.
+ * <p>
+ * Instances are created through {@code BaseJsonRepository.defineIndex(...)}, which registers
+ * them for incremental maintenance.
+ * </p>
+ *
+ * @param <T> Model type stored in the repository.
+ * @param <K> Type of the indexed attribute.
+ */
+public class SecondaryIndex<T, K> implements RepositoryIndex<T> {
+
+    private final Function<T, K> keyExtractor;
+    private final UnaryOperator<K> normalizer;
+    private final Function<T, Long> idExtractor;
+    private final Map<K, Map<Long, T>> buckets = new HashMap<>();
+
+    public SecondaryIndex(Function<T, K> keyExtractor, UnaryOperator<K> normalizer, Function<T, Long> idExtractor) {
+        this.keyExtractor = keyExtractor;
+        this.normalizer = normalizer;
+        this.idExtractor = idExtractor;
+    }
+
+    /**
+     * Normalizer for case-insensitive string keys such as e-mail addresses or names.
+     */
+    public static String ignoreCase(String key) {
+        return key == null ? null : key.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns every row whose key equals the given value (after normalization).
+     */
+    public synchronized List<T> find(K key) {
+        Map<Long, T> bucket = buckets.get(normalizer.apply(key));
+        return bucket == null ? Collections.emptyList() : new ArrayList<>(bucket.values());
+    }
+
+    /**
+     * Returns the first row with the given key, or null.
+     */
+    public synchronized T findFirst(K key) {
+        Map<Long, T> bucket = buckets.get(normalizer.apply(key));
+        return bucket == null || bucket.isEmpty() ? null : bucket.values().iterator().next();
+    }
+
+    @Override
+    public synchronized void onPut(T previous, T current) {
+        K newKey = keyOf(current);
+        if (previous != null) {
+            K oldKey = keyOf(previous);
+            if (!Objects.equals(oldKey, newKey)) {
+                removeFrom(oldKey, previous);
+            }
+        }
+        // Replacing within the same bucket keeps the row's position
+        buckets.computeIfAbsent(newKey, k -> new LinkedHashMap<>()).put(idExtractor.apply(current), current);
+    }
+
+    @Override
+    public synchronized void onRemove(T previous) {
+        removeFrom(keyOf(previous), previous);
+    }
+
+    @Override
+    public synchronized void rebuild(List<T> items) {
+        buckets.clear();
+        for (T item : items) {
+            onPut(null, item);
+        }
+    }
+
+    private K keyOf(T item) {
+        return normalizer.apply(keyExtractor.apply(item));
+    }
+
+    private void removeFrom(K key, T item) {
+        Map<Long, T> bucket = buckets.get(key);
+        if (bucket == null) return;
+        bucket.remove(idExtractor.apply(item));
+        if (bucket.isEmpty()) buckets.remove(key);
+    }
+}
@@ -1,9 +1,28 @@
 package artifact.Backend.Repositories.Interfaces;
 import artifact.Backend.Models.Flight;
+import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.BitSet;
 import java.util.List;
 
 public interface IFlightRepository extends IRepository<Flight> {
     void decrementSeat(long flightId);
+    /**
+     * Atomically takes {@code count} seats on a flight: either all of them are reserved or none are.
+     * @return false if fewer than {@code count} seats are left.
+     */
+    boolean tryReserveSeats(long flightId, int count);
+    /**
+     * Returns previously reserved seats to the flight's inventory.
+     */
+    void releaseSeats(long flightId, int count);
     public List<Flight> findFlightsByRouteAndMonth(long fromId, long toId, YearMonth month);
+    /**
+     * Bookable flights (free seats left) on a route departing on the given day.
+     */
+    List<Flight> findFlightsByRouteAndDate(long fromId, long toId, LocalDate date);
+    /**
+     * Calendar availability for a route: bit (day - 1) is set when a bookable flight departs that day.
+     */
+    BitSet findAvailableDays(long fromId, long toId, YearMonth month);
 }
\ No newline at end of file
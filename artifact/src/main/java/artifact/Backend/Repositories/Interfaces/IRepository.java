@@ -1,12 +1,19 @@
 package artifact.Backend.Repositories.Interfaces;
+import artifact.Backend.Repositories.Snapshot.ReadSnapshot;
+import com.google.gson.JsonObject;
 import javafx.collections.ObservableList;
 
+import java.util.List;
+
 public interface IRepository<T> {
-    ObservableList<T> getAll();
+    ObservableList<T> getAll(); // For JavaFX bindings; updated on the FX thread
+    ReadSnapshot<T> snapshot(); // Immutable view for reads off the FX thread; never blocks writers
     T findById(long id);
+    int count(); // Including records that are not held in memory
     void add(T item);
     void update(T item);
     void delete(long id);
 
     void refreshFromCloud();
+    void applyCloudChanges(List<JsonObject> rows, List<Long> deletedIds); // Pushed by the realtime feed; not queued for sync
 }
@@ -1,13 +1,62 @@
 package artifact.Backend.Repositories.Interfaces;
 import artifact.Backend.Models.Reservation;
 import artifact.Backend.Tags.BookingStatus;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
 
 public interface IReservationRepository extends IRepository<Reservation> {
     Reservation addReservation(Reservation reservation); // Supabase needs to return the created item
     void updateReservationStatus(long reservationId, BookingStatus newStatus);
+
+    /**
+     * Sets the status only if the reservation still matches {@code condition}, checked and written in one
+     * step under the repository lock (e.g. PENDING to EXPIRED, unless a payment got there first).
+     * @return Whether the status was changed.
+     */
+    boolean updateReservationStatusIf(long reservationId, Predicate<Reservation> condition, BookingStatus newStatus);
+    int archive(Predicate<Reservation> cold); // Moves old bookings off the heap; returns how many moved
     /**
      * NEW: Finds all non-expired reservations for a specific flight.
      */
     List<Reservation> findByFlightId(long flightId);
+
+    /**
+     * Deletes every reservation of a flight, whatever its status, together with its tickets.
+     * Used to cascade a flight delete locally; each delete is queued for the cloud.
+     */
+    void deleteByFlightId(long flightId);
+
+    /**
+     * Seats of a flight that {@code viewerToken} cannot pick: booked, or held by another session.
+     * Answered from the per-flight seat bitmap, without scanning reservations.
+     */
+    Set<String> findTakenSeats(long flightId, String viewerToken);
+
+    /**
+     * Temporarily holds all given seats for a booking session, or none if any is unavailable.
+     */
+    boolean holdSeats(long flightId, Collection<String> seats, String holderToken, Duration ttl);
+
+    /**
+     * Atomically marks a seat as booked. Fails if the seat is booked or held by another session.
+     * @param holderToken The session holding the seat, or null for bookings made without a hold.
+     */
+    boolean claimSeat(long flightId, String seatNumber, String holderToken);
+
+    /**
+     * Frees a claimed seat whose reservation could not be created.
+     */
+    void unclaimSeat(long flightId, String seatNumber);
+
+    void releaseSeatHolds(long flightId, String holderToken);
+
+    /**
+     * Takes up to {@code limit} PENDING reservations whose expiry time has passed off the expiry queue.
+     * Each overdue reservation is returned once; the caller is expected to expire it.
+     */
+    List<Reservation> pollExpired(LocalDateTime now, int limit);
 }
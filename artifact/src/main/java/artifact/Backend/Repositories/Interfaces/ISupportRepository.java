@@ -6,6 +6,7 @@ import javafx.collections.ObservableList;
 
 public interface ISupportRepository extends IRepository<SupportTicket> {
     ObservableList<SupportTicket> findByUserId(long userId);
+    void deleteByUserId(long userId); // Cascade of a user delete; queued for the cloud
     
     /**
      * Adds a new message to the ticket's conversation.
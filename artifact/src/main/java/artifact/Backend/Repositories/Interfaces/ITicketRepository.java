@@ -2,8 +2,13 @@ package artifact.Backend.Repositories.Interfaces;
 import artifact.Backend.Models.Ticket;
 import artifact.Backend.Tags.BookingStatus;
 import javafx.collections.ObservableList;
+import java.util.List;
+import java.util.function.Predicate;
 
 public interface ITicketRepository extends IRepository<Ticket> {
     ObservableList<Ticket> findByCustomerName(String customerName);
+    List<Ticket> findByReservationId(long reservationId);
+    void deleteByReservationId(long reservationId); // Cascade of a reservation delete; queued for the cloud
     void updateTicketStatus(long ticketId, BookingStatus newStatus);
+    int archive(Predicate<Ticket> cold); // Moves old tickets off the heap; returns how many moved
 }
\ No newline at end of file
@@ -1,7 +1,7 @@
 package artifact.Backend.Repositories.Interfaces;
 import artifact.Backend.Models.User;
 
-public interface IUserRepository {
+public interface IUserRepository extends IRepository<User> {
     User findByEmail(String email);
     void addUser(String name, String email, String password);
 }
\ No newline at end of file
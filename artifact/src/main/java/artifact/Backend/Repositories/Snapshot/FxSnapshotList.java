@@ -0,0 +1,99 @@
+package artifact.Backend.Repositories.Snapshot;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * {@link ObservableList} for JavaFX bindings, fed from a repository's {@link ReadSnapshot}s.
+ * <p>
+ * The list is only ever changed on the FX application thread. Writers just call
+ * {@link #invalidate()}; bursts of writes are coalesced into one update that applies the
+ * difference to the newest snapshot (common prefix and suffix are kept), so a table bound to
+ * the list keeps its selection and scroll position when a single row changes.
+ * </p>
+ * Without a running FX toolkit (tests, tools), updates are applied on the calling thread.
+ */
+public class FxSnapshotList<T> {
+
+    // Changed ranges up to this size are patched row by row, larger ones replaced in one go
+    private static final int MAX_ROW_UPDATES = 16;
+
+    private final ObservableList<T> items = FXCollections.observableArrayList();
+    private final Supplier<ReadSnapshot<T>> source;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private long shownVersion = Long.MIN_VALUE;
+
+    public FxSnapshotList(Supplier<ReadSnapshot<T>> source) {
+        this.source = source;
+        apply();
+    }
+
+    public ObservableList<T> items() {
+        return items;
+    }
+
+    /**
+     * Schedules an update to the newest snapshot. Cheap and safe to call from any thread.
+     */
+    public void invalidate() {
+        if (scheduled.compareAndSet(false, true)) {
+            runOnFxThread(() -> {
+                scheduled.set(false);
+                apply();
+            });
+        }
+    }
+
+    /**
+     * Runs {@code task} on the FX application thread (directly if already on it, or if no toolkit is running).
+     * Tasks posted from one thread run in the order they were posted.
+     */
+    public static void runOnFxThread(Runnable task) {
+        if (Platform.isFxApplicationThread()) {
+            task.run();
+            return;
+        }
+        try {
+            Platform.runLater(task);
+        } catch (IllegalStateException e) {
+            // Toolkit not initialized: nothing is bound to the list, so updating it here is safe
+            task.run();
+        }
+    }
+
+    private synchronized void apply() {
+        ReadSnapshot<T> snapshot = source.get();
+        if (snapshot.version() == shownVersion) return;
+        patch(items, snapshot.items());
+        shownVersion = snapshot.version();
+    }
+
+    // Replaces only the range between the unchanged prefix and suffix (rows compared by identity)
+    private static <T> void patch(ObservableList<T> target, List<T> next) {
+        int oldSize = target.size();
+        int newSize = next.size();
+        int prefix = 0;
+        while (prefix < oldSize && prefix < newSize && target.get(prefix) == next.get(prefix)) prefix++;
+        int suffix = 0;
+        while (suffix < oldSize - prefix && suffix < newSize - prefix
+                && target.get(oldSize - 1 - suffix) == next.get(newSize - 1 - suffix)) suffix++;
+
+        int oldEnd = oldSize - suffix;
+        int newEnd = newSize - suffix;
+        if (prefix == oldEnd && prefix == newEnd) return;
+
+        if (oldEnd - prefix == newEnd - prefix && newEnd - prefix <= MAX_ROW_UPDATES) {
+            for (int i = prefix; i < newEnd; i++) target.set(i, next.get(i));
+        } else if (prefix == 0 && suffix == 0) {
+            target.setAll(next);
+        } else {
+            target.remove(prefix, oldEnd);
+            target.addAll(prefix, next.subList(prefix, newEnd));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package artifact.Backend.Repositories.Snapshot;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Immutable, versioned view of a repository's rows at one point in time.
+ * <p>
+ * Obtaining the current snapshot costs a volatile read as long as nothing was written since it
+ * was taken; the first read after a write copies the row references once. A snapshot never
+ * changes afterwards, so it can be iterated, streamed and shared between threads without locks
+ * while writers carry on.
+ * </p>
+ *
+ * @param version Number of writes the repository had published when the snapshot was taken.
+ * @param items   The rows, in repository order (unmodifiable).
+ */
+public record ReadSnapshot<T>(long version, List<T> items) {
+
+    public ReadSnapshot {
+        items = List.copyOf(items);
+    }
+
+    public static <T> ReadSnapshot<T> empty() {
+        return new ReadSnapshot<>(-1, List.of());
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public Stream<T> stream() {
+        return items.stream();
+    }
+
+    public List<T> filter(Predicate<? super T> predicate) {
+        return items.stream().filter(predicate).toList();
+    }
+}
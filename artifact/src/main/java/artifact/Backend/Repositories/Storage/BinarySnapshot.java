@@ -0,0 +1,133 @@
+package artifact.Backend.Repositories.Storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Compact binary snapshot format for a repository, used instead of pretty-printed JSON when the
+ * repository's storage mode is {@code BINARY}.
+ * <p>
+ * Layout: magic {@code "ATSB"}, format version (short), the codec's schema (string),
+ * record count (int), then the records as written by the {@link RecordCodec}. Strings are
+ * length-prefixed UTF-8 (length -1 for null), dates are epoch days and times nanos of day,
+ * so loading involves no text parsing at all.
+ * </p>
+ */
+public final class BinarySnapshot {
+
+    private static final int MAGIC = 0x41545342; // "ATSB"
+    private static final short FORMAT_VERSION = 1;
+
+    private BinarySnapshot() {}
+
+    public static <T> void write(OutputStream stream, List<T> records, RecordCodec<T> codec) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            writeString(out, codec.schema());
+            out.writeInt(records.size());
+            for (T record : records) {
+                codec.write(out, record);
+            }
+        }
+    }
+
+    /**
+     * Reads a snapshot written with the codec's schema, or with one of its older schemas (see
+     * {@link RecordCodec#migrations()}).
+     *
+     * @throws IOException If the file is not a snapshot, or was written with a different format or an unknown schema.
+     */
+    public static <T> List<T> read(InputStream stream, RecordCodec<T> codec) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException("not a binary snapshot");
+            short version = in.readShort();
+            if (version != FORMAT_VERSION) throw new IOException("unsupported snapshot format " + version);
+            String schema = readString(in);
+            RecordCodec.LegacyReader<T> reader = codec::read;
+            if (!codec.schema().equals(schema)) {
+                reader = codec.migrations().get(schema);
+                if (reader == null) throw new IOException("schema mismatch: " + schema);
+                System.out.println("Reading a snapshot with an older schema, it is converted on the next save: " + schema);
+            }
+
+            int count = in.readInt();
+            List<T> records = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                records.add(reader.read(in));
+            }
+            return records;
+        }
+    }
+
+    // --- Field helpers for codecs ---
+
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeDate(DataOutputStream out, LocalDate value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeLong(value.toEpochDay());
+    }
+
+    public static LocalDate readDate(DataInputStream in) throws IOException {
+        return in.readBoolean() ? LocalDate.ofEpochDay(in.readLong()) : null;
+    }
+
+    public static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toLocalDate().toEpochDay());
+            out.writeLong(value.toLocalTime().toNanoOfDay());
+        }
+    }
+
+    public static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) return null;
+        return LocalDateTime.of(LocalDate.ofEpochDay(in.readLong()), LocalTime.ofNanoOfDay(in.readLong()));
+    }
+
+    // Enums are stored by ordinal; enumSchema() puts the constants into the schema so a reorder is detected
+    public static void writeEnum(DataOutputStream out, Enum<?> value) throws IOException {
+        out.writeByte(value == null ? -1 : value.ordinal());
+    }
+
+    public static <E extends Enum<E>> E readEnum(DataInputStream in, Class<E> type) throws IOException {
+        int ordinal = in.readByte();
+        return ordinal < 0 ? null : type.getEnumConstants()[ordinal];
+    }
+
+    public static String enumSchema(Class<? extends Enum<?>> type) {
+        return type.getSimpleName() + Arrays.stream(type.getEnumConstants())
+                .map(Enum::name)
+                .collect(Collectors.joining("|", "[", "]"));
+    }
+}
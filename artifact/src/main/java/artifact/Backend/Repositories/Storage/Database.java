@@ -0,0 +1,142 @@
+package artifact.Backend.Repositories.Storage;
+
+import artifact.Backend.Config.AppConfig;
+import org.h2.jdbcx.JdbcConnectionPool;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Embedded H2 database used by the repositories in {@code DATABASE} storage mode.
+ * <p>
+ * The database lives in a single file next to the JSON data ({@code data/airline.mv.db}) unless
+ * {@code DATABASE_URL} points elsewhere. Connections come from H2's own pool, so every repository
+ * call gets its own connection and concurrent calls do not queue behind each other.
+ * </p>
+ * <p>
+ * The helpers below only cover the patterns the repositories need (prepared queries, updates and
+ * transactions); errors are reported as {@link SQLException} and handled by the caller.
+ * </p>
+ */
+public final class Database {
+
+    private static final String DEFAULT_URL = "jdbc:h2:file:./src/main/resources/data/airline";
+
+    private static Database instance;
+
+    private final JdbcConnectionPool pool;
+
+    /** Binds the parameters of a prepared statement. */
+    @FunctionalInterface
+    public interface Binder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    /** Maps the current row of a result set. */
+    @FunctionalInterface
+    public interface RowMapper<R> {
+        R map(ResultSet row) throws SQLException;
+    }
+
+    /** Work done on one connection inside a transaction. */
+    @FunctionalInterface
+    public interface Work<R> {
+        R run(Connection connection) throws SQLException;
+    }
+
+    public Database(String url, String user, String password) {
+        this.pool = JdbcConnectionPool.create(url, user, password);
+        this.pool.setMaxConnections(AppConfig.getInt("DATABASE_MAX_CONNECTIONS", 10));
+    }
+
+    /**
+     * The shared database, opened on first use from {@code DATABASE_URL}, {@code DATABASE_USER}
+     * and {@code DATABASE_PASSWORD} (defaults: the local file, user "sa", no password).
+     */
+    public static synchronized Database getDefault() {
+        if (instance == null) {
+            instance = new Database(
+                    AppConfig.get("DATABASE_URL", DEFAULT_URL),
+                    AppConfig.get("DATABASE_USER", "sa"),
+                    AppConfig.get("DATABASE_PASSWORD", ""));
+        }
+        return instance;
+    }
+
+    /**
+     * Closes the shared database if it was opened.
+     */
+    public static synchronized void closeDefault() {
+        if (instance != null) {
+            instance.pool.dispose();
+            instance = null;
+        }
+    }
+
+    public Connection connect() throws SQLException {
+        return pool.getConnection();
+    }
+
+    /**
+     * Runs DDL statements, e.g. {@code CREATE TABLE IF NOT EXISTS ...}.
+     */
+    public void executeDdl(String... statements) throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    public <R> List<R> query(String sql, Binder binder, RowMapper<R> mapper) throws SQLException {
+        try (Connection connection = connect()) {
+            return query(connection, sql, binder, mapper);
+        }
+    }
+
+    public static <R> List<R> query(Connection connection, String sql, Binder binder, RowMapper<R> mapper) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            binder.bind(statement);
+            try (ResultSet rows = statement.executeQuery()) {
+                List<R> result = new ArrayList<>();
+                while (rows.next()) {
+                    result.add(mapper.map(rows));
+                }
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Runs an INSERT/UPDATE/DELETE.
+     * @return Number of rows changed.
+     */
+    public int update(String sql, Binder binder) throws SQLException {
+        try (Connection connection = connect(); PreparedStatement statement = connection.prepareStatement(sql)) {
+            binder.bind(statement);
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Runs {@code work} in one transaction: committed if it returns, rolled back if it throws.
+     */
+    public <R> R inTransaction(Work<R> work) throws SQLException {
+        try (Connection connection = connect()) {
+            connection.setAutoCommit(false);
+            try {
+                R result = work.run(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+}
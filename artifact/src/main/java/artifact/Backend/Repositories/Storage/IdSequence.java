@@ -0,0 +1,127 @@
+package artifact.Backend.Repositories.Storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ID allocator for a repository: hands out IDs in O(1) without scanning the data.
+ * <p>
+ * IDs are taken from blocks of {@code blockSize} consecutive values. The highest value reserved
+ * so far is kept in a small sequence file next to the data file; reserving the next block locks
+ * that file, bumps the value and fsyncs it. Within a block, allocation is a single CAS on an
+ * {@link AtomicLong}, so concurrent inserts never get the same ID.
+ * </p>
+ * <p>
+ * Because the sequence file survives restarts, IDs are never reused, even when the record with the
+ * highest ID was deleted. Several app instances sharing the data directory each reserve their own
+ * blocks and never coordinate per insert. The price is a gap of at most one block per restart.
+ * </p>
+ * <p>
+ * IDs that enter the repository from elsewhere (loaded data, the archive, rows pulled from the cloud)
+ * are passed to {@link #observe(long)}, so the sequence always stays ahead of them.
+ * </p>
+ */
+public class IdSequence {
+
+    // The current block [start, end); replaced as a whole so readers never see a torn pair
+    private record Block(long start, long end) {
+        boolean contains(long id) { return id >= start && id < end; }
+    }
+
+    private final Path path;
+    private final int blockSize;
+    private final AtomicLong cursor = new AtomicLong();
+    private volatile Block block = new Block(0, 0);
+
+    // Lowest ID the next block may start at: one past every ID seen so far
+    private long floor = 1;
+
+    /**
+     * @param path      Sequence file holding the highest reserved ID.
+     * @param blockSize Number of IDs reserved at a time (at least 1).
+     */
+    public IdSequence(Path path, int blockSize) {
+        this.path = path;
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    /**
+     * Returns the next free ID.
+     */
+    public long next() {
+        while (true) {
+            Block current = block;
+            long id = cursor.get();
+            if (current.contains(id)) {
+                if (cursor.compareAndSet(id, id + 1)) return id;
+                continue;
+            }
+            synchronized (this) {
+                if (block == current) reserve();
+            }
+        }
+    }
+
+    /**
+     * Records an ID that is already in use, so it is never handed out.
+     */
+    public synchronized void observe(long id) {
+        if (id == Long.MAX_VALUE) return;
+        floor = Math.max(floor, id + 1);
+        if (block.contains(id)) cursor.accumulateAndGet(id + 1, Math::max);
+    }
+
+    // Reserves the next block. If the sequence file is unusable, nothing is reserved: a block of a single ID,
+    // one past the highest ID seen (the max-scan rule), is handed out and the file is tried again for the next ID
+    private void reserve() {
+        long start = Math.max(floor, cursor.get());
+        int size = blockSize;
+        try {
+            start = reserveInFile(path, start, blockSize);
+        } catch (IOException e) {
+            System.err.println("Error updating ID sequence " + path + ": " + e.getMessage());
+            size = 1;
+        }
+        Block next = new Block(start, start + size);
+        // Move the cursor before publishing the block: a reader that sees the new block sees the new cursor
+        cursor.set(start);
+        block = next;
+    }
+
+    // Static: a JVM may hold only one lock per file, even across two instances of the same repository
+    private static synchronized long reserveInFile(Path path, long start, int blockSize) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), 64));
+                channel.read(buffer, 0);
+                String text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII).trim();
+                if (!text.isEmpty()) {
+                    try {
+                        start = Math.max(start, Long.parseLong(text) + 1);
+                    } catch (NumberFormatException e) {
+                        System.err.println("Ignoring damaged ID sequence " + path);
+                    }
+                }
+
+                byte[] reserved = (Long.toString(start + blockSize - 1) + "\n").getBytes(StandardCharsets.US_ASCII);
+                // Values only grow, so overwriting in place never leaves a shorter, valid-looking number behind
+                channel.write(ByteBuffer.wrap(reserved), 0);
+                channel.truncate(reserved.length);
+                channel.force(false);
+                return start;
+            } finally {
+                lock.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package artifact.Backend.Repositories.Storage;
+
+import artifact.Backend.Repositories.Index.LongIntHashMap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Off-heap archive of records, kept in a memory-mapped file of fixed-width slots plus a string pool.
+ * <p>
+ * Records are only materialized when they are read ({@link #get}, {@link #scan}); apart from the
+ * id-to-slot map (12 bytes per record) nothing stays on the heap, so years of booking history cost
+ * disk and page cache rather than heap. The slot file starts with a 16-byte header
+ * (magic, schema hash, slot size, slot count); each slot starts with a live/free byte followed by
+ * the codec's fields. Freed slots are reused; strings of removed records stay in the pool, which is
+ * fine for an archive that is mostly appended to.
+ * </p>
+ * <p>
+ * Writes go string pool first, then the slot, then the slot count in the header, so a crash in the
+ * middle leaves at most unreferenced bytes behind. Each file is a single mapping, which limits it
+ * to 2 GB (roughly 20 million reservations).
+ * </p>
+ */
+public class MappedRecordStore<T> implements Closeable {
+
+    private static final int MAGIC = 0x41545341; // "ATSA"
+    private static final int HEADER = 16;
+    private static final int COUNT_OFFSET = 12;
+    private static final byte LIVE = 1;
+    private static final byte FREE = 0;
+    private static final long INITIAL_SIZE = 1 << 20;
+
+    private final SlotCodec<T> codec;
+    private final int slotSize;
+    private final Region slots;
+    private final StringPool strings;
+    private final LongIntHashMap slotById = new LongIntHashMap();
+    private final List<Integer> freeSlots = new ArrayList<>();
+    private int slotCount;
+    private long maxId;
+
+    /**
+     * Opens (or creates) the store at {@code path}; strings go to {@code path + ".strings"}.
+     * @throws IOException If the file cannot be mapped or was written with another schema.
+     */
+    public MappedRecordStore(Path path, SlotCodec<T> codec) throws IOException {
+        this.codec = codec;
+        this.slotSize = 1 + codec.slotSize();
+        this.slots = new Region(path);
+        this.strings = new StringPool(path.resolveSibling(path.getFileName() + ".strings"));
+
+        ByteBuffer buffer = slots.buffer;
+        if (buffer.getInt(0) == 0) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, codec.schema().hashCode());
+            buffer.putInt(8, slotSize);
+            buffer.putInt(COUNT_OFFSET, 0);
+        } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != codec.schema().hashCode() || buffer.getInt(8) != slotSize) {
+            close();
+            throw new IOException("schema mismatch in " + path);
+        }
+
+        slotCount = buffer.getInt(COUNT_OFFSET);
+        for (int slot = 0; slot < slotCount; slot++) {
+            int offset = offsetOf(slot);
+            if (buffer.get(offset) == LIVE) {
+                long id = buffer.getLong(offset + 1);
+                slotById.put(id, slot);
+                maxId = Math.max(maxId, id);
+            } else {
+                freeSlots.add(slot);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return slotById.size();
+    }
+
+    public synchronized boolean contains(long id) {
+        return slotById.containsKey(id);
+    }
+
+    /**
+     * Highest id ever stored, so id generation never hands out an archived id again.
+     */
+    public synchronized long maxId() {
+        return maxId;
+    }
+
+    /**
+     * Materializes one record, or returns null if it is not archived.
+     */
+    public synchronized T get(long id) {
+        int slot = slotById.get(id);
+        return slot == LongIntHashMap.MISSING ? null : codec.read(slots.buffer, offsetOf(slot) + 1, strings);
+    }
+
+    /**
+     * Stores a record, replacing an archived record with the same id.
+     */
+    public synchronized void put(T record) throws IOException {
+        long id = codec.id(record);
+        int slot = slotById.get(id);
+        if (slot == LongIntHashMap.MISSING) {
+            slot = freeSlots.isEmpty() ? slotCount : freeSlots.remove(freeSlots.size() - 1);
+        }
+        int offset = offsetOf(slot);
+        slots.ensure(offset + slotSize);
+
+        ByteBuffer buffer = slots.buffer;
+        codec.write(buffer, offset + 1, record, strings);
+        buffer.put(offset, LIVE);
+        if (slot == slotCount) {
+            slotCount++;
+            buffer.putInt(COUNT_OFFSET, slotCount);
+        }
+        slotById.put(id, slot);
+        maxId = Math.max(maxId, id);
+    }
+
+    public synchronized boolean remove(long id) {
+        int slot = slotById.remove(id);
+        if (slot == LongIntHashMap.MISSING) return false;
+        slots.buffer.put(offsetOf(slot), FREE);
+        freeSlots.add(slot);
+        return true;
+    }
+
+    /**
+     * Materializes the archived records matching {@code filter}, one slot at a time.
+     */
+    public synchronized List<T> scan(Predicate<T> filter) {
+        List<T> matches = new ArrayList<>();
+        ByteBuffer buffer = slots.buffer;
+        for (int slot = 0; slot < slotCount; slot++) {
+            int offset = offsetOf(slot);
+            if (buffer.get(offset) != LIVE) continue;
+            T record = codec.read(buffer, offset + 1, strings);
+            if (filter.test(record)) matches.add(record);
+        }
+        return matches;
+    }
+
+    /**
+     * Flushes both files to disk.
+     */
+    public synchronized void force() {
+        strings.region.buffer.force();
+        slots.buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        slots.channel.close();
+        strings.region.channel.close();
+    }
+
+    private int offsetOf(int slot) {
+        return HEADER + slot * slotSize;
+    }
+
+    // --- Field helpers for codecs ---
+
+    public static void putString(ByteBuffer buffer, int offset, String value, StringPool strings) {
+        buffer.putLong(offset, strings.add(value));
+    }
+
+    public static String getString(ByteBuffer buffer, int offset, StringPool strings) {
+        return strings.get(buffer.getLong(offset));
+    }
+
+    // Dates are epoch days; Long.MIN_VALUE marks null (8 bytes)
+    public static void putDate(ByteBuffer buffer, int offset, LocalDate value) {
+        buffer.putLong(offset, value == null ? Long.MIN_VALUE : value.toEpochDay());
+    }
+
+    public static LocalDate getDate(ByteBuffer buffer, int offset) {
+        long day = buffer.getLong(offset);
+        return day == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    // Epoch day followed by nanos of day (16 bytes)
+    public static void putDateTime(ByteBuffer buffer, int offset, LocalDateTime value) {
+        putDate(buffer, offset, value == null ? null : value.toLocalDate());
+        buffer.putLong(offset + 8, value == null ? 0 : value.toLocalTime().toNanoOfDay());
+    }
+
+    public static LocalDateTime getDateTime(ByteBuffer buffer, int offset) {
+        LocalDate date = getDate(buffer, offset);
+        return date == null ? null : LocalDateTime.of(date, LocalTime.ofNanoOfDay(buffer.getLong(offset + 8)));
+    }
+
+    // Ordinal, -1 for null (1 byte)
+    public static void putEnum(ByteBuffer buffer, int offset, Enum<?> value) {
+        buffer.put(offset, (byte) (value == null ? -1 : value.ordinal()));
+    }
+
+    public static <E extends Enum<E>> E getEnum(ByteBuffer buffer, int offset, Class<E> type) {
+        int ordinal = buffer.get(offset);
+        return ordinal < 0 ? null : type.getEnumConstants()[ordinal];
+    }
+
+    /**
+     * Append-only pool of UTF-8 strings. A reference is the byte offset of the entry (-1 for null);
+     * the first eight bytes of the file hold the end of the used area.
+     */
+    public static final class StringPool {
+        private final Region region;
+
+        StringPool(Path path) throws IOException {
+            this.region = new Region(path);
+            if (region.buffer.getLong(0) == 0) region.buffer.putLong(0, 8);
+        }
+
+        long add(String value) {
+            if (value == null) return -1;
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            long end = region.buffer.getLong(0);
+            try {
+                region.ensure(end + 4 + bytes.length);
+            } catch (IOException e) {
+                throw new IllegalStateException("String pool is full: " + e.getMessage(), e);
+            }
+            ByteBuffer buffer = region.buffer;
+            buffer.putInt((int) end, bytes.length);
+            buffer.put((int) end + 4, bytes);
+            buffer.putLong(0, end + 4 + bytes.length);
+            return end;
+        }
+
+        String get(long reference) {
+            if (reference < 0) return null;
+            ByteBuffer buffer = region.buffer;
+            byte[] bytes = new byte[buffer.getInt((int) reference)];
+            buffer.get((int) reference + 4, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    // A file mapped in full; remapped (doubling) when it needs to grow
+    private static final class Region {
+        private final FileChannel channel;
+        private MappedByteBuffer buffer;
+
+        Region(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), INITIAL_SIZE));
+        }
+
+        void ensure(long capacity) throws IOException {
+            if (capacity <= buffer.capacity()) return;
+            long size = buffer.capacity();
+            while (size < capacity) size *= 2;
+            if (size > Integer.MAX_VALUE) throw new IOException("archive file would exceed 2 GB");
+            buffer.force();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+}
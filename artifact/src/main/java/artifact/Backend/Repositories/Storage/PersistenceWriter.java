@@ -0,0 +1,202 @@
+package artifact.Backend.Repositories.Storage;
+
+import artifact.Backend.Config.AppConfig;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dedicated persistence thread with group commit.
+ * <p>
+ * Log appends ({@link #append}) and snapshot requests ({@link #snapshot}) are queued by the caller
+ * and return immediately, so no mutation ever waits for the disk on the calling (usually the
+ * JavaFX) thread. The writer takes the first queued operation, keeps collecting for
+ * {@code GROUP_COMMIT_WINDOW_MS} (default 2) or until {@code GROUP_COMMIT_MAX_OPS} operations
+ * (default 256) are gathered, then writes every line of the group to its file and syncs each file
+ * once. Booking a 9-seat group therefore costs one fsync per touched log instead of one per record.
+ * </p>
+ * <p>
+ * Lines are written in submission order, so the writes to each file keep their order. Repeated
+ * snapshot requests for the same owner within one group are written once. File operations that
+ * replace or move a log ({@link #run}) are queued like lines and run in their place: lines queued
+ * before them are written first, lines queued after them go to the new file. Callers that need
+ * durability wait on the returned futures, or on {@link #flush()}.
+ * </p>
+ */
+public final class PersistenceWriter {
+
+    /**
+     * A log file: writes the lines of one group and syncs them to disk before returning.
+     * Must be the same instance for every append to the same file (typically kept in a field).
+     */
+    @FunctionalInterface
+    public interface Target {
+        void writeAndSync(List<String> lines) throws IOException;
+    }
+
+    /**
+     * An operation on a log file (truncate, rotate, rewrite), run on the writer thread.
+     */
+    @FunctionalInterface
+    public interface FileTask {
+        void run() throws IOException;
+    }
+
+    private static final int MAX_OPS = AppConfig.getInt("GROUP_COMMIT_MAX_OPS", 256);
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(AppConfig.getInt("GROUP_COMMIT_WINDOW_MS", 2));
+
+    // target + line for appends, target + fileTask for file operations, owner + task for snapshots,
+    // none of them for flush barriers
+    private record Op(Target target, String line, FileTask fileTask, Object owner, Runnable task,
+                      CompletableFuture<Void> done) {}
+
+    private static final BlockingQueue<Op> queue = new LinkedBlockingQueue<>();
+
+    // Owners whose last snapshot failed, until one succeeds; flushes fail meanwhile (writer thread only)
+    private static final Set<Object> unsaved = new HashSet<>();
+
+    static {
+        Thread writer = new Thread(PersistenceWriter::run, "persistence-writer");
+        writer.setDaemon(true);
+        writer.start();
+        // Daemon so it never keeps the app alive, but whatever is queued is written before exit
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                flush().get(5, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                System.err.println("Pending writes not flushed on exit: " + e.getMessage());
+            }
+        }));
+    }
+
+    private PersistenceWriter() {}
+
+    /**
+     * Queues one line for {@code target}.
+     * @return Completes once the line is synced to disk (exceptionally if the write failed).
+     */
+    public static CompletableFuture<Void> append(Target target, String line) {
+        return enqueue(new Op(target, line, null, null, null, new CompletableFuture<>()));
+    }
+
+    /**
+     * Queues an operation on the file of {@code target}, ordered with its lines.
+     * @return Completes once the task has run (exceptionally if it failed).
+     */
+    public static CompletableFuture<Void> run(Target target, FileTask task) {
+        return enqueue(new Op(target, null, task, null, null, new CompletableFuture<>()));
+    }
+
+    /**
+     * Queues a snapshot write. Requests with the same {@code owner} in one group run only once.
+     * @return Completes once the task has run.
+     */
+    public static CompletableFuture<Void> snapshot(Object owner, Runnable task) {
+        return enqueue(new Op(null, null, null, owner, task, new CompletableFuture<>()));
+    }
+
+    /**
+     * @return Completes once everything queued before this call is on disk; exceptionally if a write
+     *         in the same group failed, or a snapshot has failed and not been written since.
+     */
+    public static CompletableFuture<Void> flush() {
+        return enqueue(new Op(null, null, null, null, null, new CompletableFuture<>()));
+    }
+
+    private static CompletableFuture<Void> enqueue(Op op) {
+        queue.add(op);
+        return op.done();
+    }
+
+    private static void run() {
+        List<Op> group = new ArrayList<>();
+        while (true) {
+            try {
+                group.add(queue.take());
+                long deadline = System.nanoTime() + WINDOW_NANOS;
+                while (group.size() < MAX_OPS) {
+                    Op next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    group.add(next);
+                }
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("Persistence writer error: " + e.getMessage());
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private static void commit(List<Op> group) {
+        Map<Target, List<String>> lines = new LinkedHashMap<>();
+        Map<Object, Runnable> snapshots = new LinkedHashMap<>();
+        Set<Object> failed = new LinkedHashSet<>();
+        Set<Op> failedTasks = new HashSet<>();
+        for (Op op : group) {
+            if (op.fileTask() != null) {
+                // Lines queued before the task belong to the file as it is now
+                write(op.target(), lines.remove(op.target()), failed);
+                try {
+                    op.fileTask().run();
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Log file operation failed: " + e.getMessage());
+                    failedTasks.add(op);
+                }
+            } else if (op.target() != null) {
+                lines.computeIfAbsent(op.target(), t -> new ArrayList<>()).add(op.line());
+            } else if (op.task() != null) {
+                snapshots.put(op.owner(), op.task());
+            }
+        }
+
+        for (Map.Entry<Target, List<String>> entry : lines.entrySet()) {
+            write(entry.getKey(), entry.getValue(), failed);
+        }
+        for (Map.Entry<Object, Runnable> entry : snapshots.entrySet()) {
+            try {
+                entry.getValue().run();
+                unsaved.remove(entry.getKey());
+            } catch (RuntimeException e) {
+                System.err.println("Snapshot write failed: " + e.getMessage());
+                failed.add(entry.getKey());
+                unsaved.add(entry.getKey());
+            }
+        }
+
+        // A flush barrier promises that everything before it is on disk
+        boolean incomplete = !failed.isEmpty() || !failedTasks.isEmpty() || !unsaved.isEmpty();
+        for (Op op : group) {
+            Object key = op.fileTask() != null ? null : op.target() != null ? op.target() : op.owner();
+            boolean barrier = op.fileTask() == null && op.target() == null && op.task() == null;
+            if (failedTasks.contains(op) || key != null && failed.contains(key) || barrier && incomplete) {
+                op.done().completeExceptionally(new IOException("write failed"));
+            } else {
+                op.done().complete(null);
+            }
+        }
+    }
+
+    private static void write(Target target, List<String> batch, Set<Object> failed) {
+        if (batch == null) return;
+        try {
+            target.writeAndSync(batch);
+        } catch (IOException e) {
+            System.err.println("Group commit failed: " + e.getMessage());
+            failed.add(target);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package artifact.Backend.Repositories.Storage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Binary encoding of one record type for {@link BinarySnapshot}.
+ * <p>
+ * The schema is an explicit description of the fields in the order they are written
+ * (e.g. {@code "id:long,name:string?"}). It is stored in every snapshot header, and a file whose
+ * schema differs from the codec's is rejected instead of being misread, so any change to the
+ * field list or order must be reflected in the schema string. When the schema changes, the old
+ * schema is kept in {@link #migrations()} with a reader for its layout, so existing snapshots still
+ * load (and are rewritten in the current layout on the next save).
+ * </p>
+ */
+public interface RecordCodec<T> {
+
+    @FunctionalInterface
+    interface LegacyReader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    String schema();
+
+    void write(DataOutputStream out, T record) throws IOException;
+
+    T read(DataInputStream in) throws IOException;
+
+    /**
+     * Readers for the schemas this codec wrote before, by schema string. Fields added since are given
+     * their defaults.
+     */
+    default Map<String, LegacyReader<T>> migrations() {
+        return Map.of();
+    }
+}
@@ -0,0 +1,204 @@
+package artifact.Backend.Repositories.Storage;
+
+import artifact.Backend.Models.Flight;
+import artifact.Backend.Models.Reservation;
+import artifact.Backend.Models.SupportMessage;
+import artifact.Backend.Models.SupportTicket;
+import artifact.Backend.Models.Ticket;
+import artifact.Backend.Models.User;
+import artifact.Backend.Tags.BookingStatus;
+import artifact.Backend.Tags.TicketStatus;
+import artifact.Backend.Tags.UserRole;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static artifact.Backend.Repositories.Storage.BinarySnapshot.*;
+
+/**
+ * Binary codecs for the record models that support the {@code BINARY} storage mode.
+ * Fields are written in declaration order; a trailing '?' in the schema marks a nullable field.
+ */
+public final class RecordCodecs {
+
+    private RecordCodecs() {}
+
+    // Schemas of earlier layouts, still readable through the codecs' migrations
+    private static final String FLIGHT_UNVERSIONED = "Flight:id:long,departureAirportId:long,arrivalAirportId:long,"
+            + "aircraftId:long,crewId:long,departureTime:datetime?,arrivalTime:datetime?,availableSeats:int";
+    private static final String SUPPORT_TICKET_UNVERSIONED = "SupportTicket:id:long,userId:long,userName:string?,"
+            + "subject:string?,status:" + enumSchema(TicketStatus.class) + "?,createdAt:date?,messages:list?<SupportMessage:"
+            + "senderName:string?,senderRole:" + enumSchema(UserRole.class) + "?,message:string?,timestamp:datetime?>";
+
+    public static final RecordCodec<Flight> FLIGHT = new RecordCodec<>() {
+        @Override
+        public String schema() {
+            return FLIGHT_UNVERSIONED + ",version:long";
+        }
+
+        @Override
+        public void write(DataOutputStream out, Flight f) throws IOException {
+            out.writeLong(f.id());
+            out.writeLong(f.departureAirportId());
+            out.writeLong(f.arrivalAirportId());
+            out.writeLong(f.aircraftId());
+            out.writeLong(f.crewId());
+            writeDateTime(out, f.departureTime());
+            writeDateTime(out, f.arrivalTime());
+            out.writeInt(f.availableSeats());
+            out.writeLong(f.version());
+        }
+
+        @Override
+        public Flight read(DataInputStream in) throws IOException {
+            return readFlight(in, true);
+        }
+
+        @Override
+        public Map<String, LegacyReader<Flight>> migrations() {
+            // Written before rows were versioned: version 0
+            return Map.of(FLIGHT_UNVERSIONED, in -> readFlight(in, false));
+        }
+    };
+
+    private static Flight readFlight(DataInputStream in, boolean versioned) throws IOException {
+        return new Flight(in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readLong(),
+                readDateTime(in), readDateTime(in), in.readInt(), versioned ? in.readLong() : 0);
+    }
+
+    public static final RecordCodec<Reservation> RESERVATION = new RecordCodec<>() {
+        @Override
+        public String schema() {
+            return "Reservation:id:long,flightId:long,customerName:string?,customerPhone:string?,seatNumber:string?,"
+                    + "reservationDate:date?,price:double,status:" + enumSchema(BookingStatus.class) + "?,"
+                    + "adminName:string?,expiryTime:datetime?";
+        }
+
+        @Override
+        public void write(DataOutputStream out, Reservation r) throws IOException {
+            out.writeLong(r.id());
+            out.writeLong(r.flightId());
+            writeString(out, r.customerName());
+            writeString(out, r.customerPhone());
+            writeString(out, r.seatNumber());
+            writeDate(out, r.reservationDate());
+            out.writeDouble(r.price());
+            writeEnum(out, r.status());
+            writeString(out, r.adminName());
+            writeDateTime(out, r.expiryTime());
+        }
+
+        @Override
+        public Reservation read(DataInputStream in) throws IOException {
+            return new Reservation(in.readLong(), in.readLong(), readString(in), readString(in), readString(in),
+                    readDate(in), in.readDouble(), readEnum(in, BookingStatus.class), readString(in), readDateTime(in));
+        }
+    };
+
+    public static final RecordCodec<Ticket> TICKET = new RecordCodec<>() {
+        @Override
+        public String schema() {
+            return "Ticket:id:long,reservationId:long,customerName:string?,paymentStatus:"
+                    + enumSchema(BookingStatus.class) + "?,flightInfo:string?,flightDate:date?";
+        }
+
+        @Override
+        public void write(DataOutputStream out, Ticket t) throws IOException {
+            out.writeLong(t.id());
+            out.writeLong(t.reservationId());
+            writeString(out, t.customerName());
+            writeEnum(out, t.paymentStatus());
+            writeString(out, t.flightInfo());
+            writeDate(out, t.flightDate());
+        }
+
+        @Override
+        public Ticket read(DataInputStream in) throws IOException {
+            return new Ticket(in.readLong(), in.readLong(), readString(in), readEnum(in, BookingStatus.class),
+                    readString(in), readDate(in));
+        }
+    };
+
+    public static final RecordCodec<User> USER = new RecordCodec<>() {
+        @Override
+        public String schema() {
+            return "User:id:long,name:string?,email:string?,password:string?,role:" + enumSchema(UserRole.class) + "?";
+        }
+
+        @Override
+        public void write(DataOutputStream out, User u) throws IOException {
+            out.writeLong(u.id());
+            writeString(out, u.name());
+            writeString(out, u.email());
+            writeString(out, u.password());
+            writeEnum(out, u.role());
+        }
+
+        @Override
+        public User read(DataInputStream in) throws IOException {
+            return new User(in.readLong(), readString(in), readString(in), readString(in), readEnum(in, UserRole.class));
+        }
+    };
+
+    public static final RecordCodec<SupportTicket> SUPPORT_TICKET = new RecordCodec<>() {
+        @Override
+        public String schema() {
+            return SUPPORT_TICKET_UNVERSIONED + ",version:long";
+        }
+
+        @Override
+        public void write(DataOutputStream out, SupportTicket t) throws IOException {
+            out.writeLong(t.id());
+            out.writeLong(t.userId());
+            writeString(out, t.userName());
+            writeString(out, t.subject());
+            writeEnum(out, t.status());
+            writeDate(out, t.createdAt());
+            List<SupportMessage> messages = t.messages();
+            out.writeInt(messages == null ? -1 : messages.size());
+            if (messages != null) {
+                for (SupportMessage m : messages) {
+                    writeString(out, m.senderName());
+                    writeEnum(out, m.senderRole());
+                    writeString(out, m.message());
+                    writeDateTime(out, m.timestamp());
+                }
+            }
+            out.writeLong(t.version());
+        }
+
+        @Override
+        public SupportTicket read(DataInputStream in) throws IOException {
+            return readSupportTicket(in, true);
+        }
+
+        @Override
+        public Map<String, LegacyReader<SupportTicket>> migrations() {
+            // Written before rows were versioned: version 0
+            return Map.of(SUPPORT_TICKET_UNVERSIONED, in -> readSupportTicket(in, false));
+        }
+    };
+
+    private static SupportTicket readSupportTicket(DataInputStream in, boolean versioned) throws IOException {
+        long id = in.readLong();
+        long userId = in.readLong();
+        String userName = readString(in);
+        String subject = readString(in);
+        TicketStatus status = readEnum(in, TicketStatus.class);
+        LocalDate createdAt = readDate(in);
+        int count = in.readInt();
+        List<SupportMessage> messages = null;
+        if (count >= 0) {
+            messages = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                messages.add(new SupportMessage(readString(in), readEnum(in, UserRole.class), readString(in), readDateTime(in)));
+            }
+        }
+        return new SupportTicket(id, userId, userName, subject, status, createdAt, messages, versioned ? in.readLong() : 0);
+    }
+}
@@ -0,0 +1,263 @@
+package artifact.Backend.Repositories.Storage;
+
+import artifact.Backend.Config.GsonProvider;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Append-only write-ahead log for a single repository.
+ * <p>
+ * Every mutation is written as one compact JSON line: {@code PUT} carries the full record,
+ * {@code DEL} only the id. A write therefore costs the same no matter how many records the
+ * repository holds. Lines are handed to the {@link PersistenceWriter}, which writes and fsyncs
+ * them in groups off the calling thread. On startup the log is replayed on top of the last snapshot, and once it
+ * grows past {@link #COMPACTION_THRESHOLD} entries the owning repository folds it into a new
+ * snapshot on a background thread.
+ * </p>
+ * <p>
+ * Compaction works in two steps so that writers never wait for the snapshot:
+ * {@link #rotate()} moves the live log aside (cheap, done under the repository lock), and
+ * once the snapshot is on disk {@link #discardRotated()} deletes the rotated file. Replay reads
+ * the rotated file first, so a crash in between only means some entries are applied twice,
+ * which is harmless because every entry carries the full state of its row.
+ * </p>
+ * <p>
+ * Rotation, reset and discard are queued on the {@link PersistenceWriter} behind the lines
+ * already handed to it, so a line appended before a rotation always ends up in the rotated log
+ * and a line appended before a reset is dropped with the log instead of landing in the new one.
+ * </p>
+ */
+public class RepositoryJournal<T> {
+
+    public static final int COMPACTION_THRESHOLD = 500;
+
+    private static final String PUT = "PUT";
+    private static final String DEL = "DEL";
+
+    // One shared thread is plenty: compactions are rare and each one is a single file write
+    private static final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "journal-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // One line of the log
+    private record Entry(String op, long id, JsonElement data) {}
+
+    private final Path logPath;
+    private final Path rotatedPath;
+    private final Type elementType;
+    private final Function<T, Long> idExtractor;
+    private final Gson gson = GsonProvider.getCompactGson();
+
+    private Writer writer;
+    private FileChannel channel;
+    private int entryCount;
+
+    // Group-committed by the shared persistence writer (same instance for every append)
+    private final PersistenceWriter.Target target = this::writeAndSync;
+
+    public RepositoryJournal(Path logPath, Type elementType, Function<T, Long> idExtractor) {
+        this.logPath = logPath;
+        this.rotatedPath = logPath.resolveSibling(logPath.getFileName() + ".old");
+        this.elementType = elementType;
+        this.idExtractor = idExtractor;
+    }
+
+    /**
+     * Applies the rotated and live logs on top of a snapshot.
+     * Updates keep the row's original position; new rows are appended in log order.
+     *
+     * @param snapshot Records loaded from the last snapshot.
+     * @return The recovered list of records.
+     */
+    public synchronized List<T> replay(List<T> snapshot) {
+        Map<Long, T> rows = new LinkedHashMap<>();
+        for (T item : snapshot) {
+            rows.put(idExtractor.apply(item), item);
+        }
+        entryCount = replayFile(rotatedPath, rows) + replayFile(logPath, rows);
+        return new ArrayList<>(rows.values());
+    }
+
+    private int replayFile(Path path, Map<Long, T> rows) {
+        if (!Files.exists(path)) return 0;
+
+        int applied = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                try {
+                    Entry entry = gson.fromJson(line, Entry.class);
+                    if (PUT.equals(entry.op())) {
+                        rows.put(entry.id(), gson.fromJson(entry.data(), elementType));
+                    } else if (DEL.equals(entry.op())) {
+                        rows.remove(entry.id());
+                    }
+                    applied++;
+                } catch (JsonParseException e) {
+                    // A torn line can only come from a crash mid-append, so it is always the last one
+                    System.err.println("Skipping damaged journal entry in " + path + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error replaying " + path + ": " + e.getMessage());
+        }
+        return applied;
+    }
+
+    /**
+     * Appends an insert or update of a full record.
+     * @return true once the log is large enough to be compacted.
+     */
+    public boolean appendPut(T item) {
+        return append(new Entry(PUT, idExtractor.apply(item), gson.toJsonTree(item, elementType)));
+    }
+
+    /**
+     * Appends a deletion.
+     * @return true once the log is large enough to be compacted.
+     */
+    public boolean appendDelete(long id) {
+        return append(new Entry(DEL, id, null));
+    }
+
+    // The line is queued for the persistence writer; the caller does not wait for the disk
+    private synchronized boolean append(Entry entry) {
+        PersistenceWriter.append(target, gson.toJson(entry));
+        entryCount++;
+        return entryCount >= COMPACTION_THRESHOLD;
+    }
+
+    // Called on the writer thread with every line of one group, then synced once
+    private synchronized void writeAndSync(List<String> lines) throws IOException {
+        try {
+            if (writer == null) openWriter();
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+            writer.flush();
+            channel.force(false);
+        } catch (IOException e) {
+            System.err.println("Error appending to " + logPath + ": " + e.getMessage());
+            throw e;
+        }
+    }
+
+    private void openWriter() throws IOException {
+        Files.createDirectories(logPath.getParent());
+        boolean needsNewline = false;
+        if (Files.exists(logPath) && Files.size(logPath) > 0) {
+            // Terminate a torn last line so the next entry does not get glued onto it
+            try (RandomAccessFile raf = new RandomAccessFile(logPath.toFile(), "r")) {
+                raf.seek(raf.length() - 1);
+                needsNewline = raf.read() != '\n';
+            }
+        }
+        FileOutputStream out = new FileOutputStream(logPath.toFile(), true);
+        channel = out.getChannel();
+        writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (needsNewline) writer.write('\n');
+    }
+
+    /**
+     * Moves the live log aside so a snapshot can be written without blocking appends.
+     * If an earlier compaction never finished, the live log is folded into the rotated one.
+     * @return Completes once the log has been moved.
+     */
+    public synchronized CompletableFuture<Void> rotate() {
+        entryCount = 0;
+        return PersistenceWriter.run(target, this::moveLogAside);
+    }
+
+    private synchronized void moveLogAside() throws IOException {
+        try {
+            closeWriter();
+            if (Files.exists(logPath)) {
+                if (Files.exists(rotatedPath)) {
+                    Files.write(rotatedPath, Files.readAllBytes(logPath), StandardOpenOption.APPEND);
+                    Files.delete(logPath);
+                } else {
+                    Files.move(logPath, rotatedPath);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error rotating " + logPath + ": " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes the rotated log once its entries are covered by a snapshot on disk.
+     */
+    public void discardRotated() {
+        PersistenceWriter.run(target, () -> {
+            synchronized (this) {
+                try {
+                    Files.deleteIfExists(rotatedPath);
+                } catch (IOException e) {
+                    System.err.println("Error deleting " + rotatedPath + ": " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops both logs after a full snapshot has been written.
+     * @return Completes once both files are gone.
+     */
+    public synchronized CompletableFuture<Void> reset() {
+        entryCount = 0;
+        return PersistenceWriter.run(target, () -> {
+            synchronized (this) {
+                try {
+                    closeWriter();
+                    Files.deleteIfExists(logPath);
+                    Files.deleteIfExists(rotatedPath);
+                } catch (IOException e) {
+                    System.err.println("Error resetting " + logPath + ": " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+            channel = null;
+        }
+    }
+
+    /**
+     * Runs a compaction task on the shared background thread.
+     */
+    public static void runInBackground(Runnable task) {
+        compactor.execute(task);
+    }
+}
@@ -0,0 +1,26 @@
+package artifact.Backend.Repositories.Storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-width encoding of one record type for {@link MappedRecordStore}.
+ * <p>
+ * Every record occupies exactly {@link #slotSize()} bytes starting at {@code offset}; the first
+ * eight bytes must be the record id. Strings are not stored in the slot but in the store's
+ * string pool, and the slot holds an 8-byte reference to them (see the helpers on
+ * {@link MappedRecordStore}). The schema string works as in {@link RecordCodec}: a file written
+ * with a different schema is rejected.
+ * </p>
+ */
+public interface SlotCodec<T> {
+
+    String schema();
+
+    int slotSize();
+
+    long id(T record);
+
+    void write(ByteBuffer slots, int offset, T record, MappedRecordStore.StringPool strings);
+
+    T read(ByteBuffer slots, int offset, MappedRecordStore.StringPool strings);
+}
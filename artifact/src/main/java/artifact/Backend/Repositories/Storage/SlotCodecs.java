@@ -0,0 +1,92 @@
+package artifact.Backend.Repositories.Storage;
+
+import artifact.Backend.Models.Reservation;
+import artifact.Backend.Models.Ticket;
+import artifact.Backend.Tags.BookingStatus;
+
+import java.nio.ByteBuffer;
+
+import static artifact.Backend.Repositories.Storage.MappedRecordStore.*;
+
+/**
+ * Fixed-width slot layouts for the archived booking history (see {@link MappedRecordStore}).
+ * Offsets are relative to the start of the record; strings take 8 bytes (pool reference).
+ */
+public final class SlotCodecs {
+
+    private SlotCodecs() {}
+
+    public static final SlotCodec<Reservation> RESERVATION = new SlotCodec<>() {
+        @Override
+        public String schema() {
+            return RecordCodecs.RESERVATION.schema();
+        }
+
+        // id 0, flightId 8, customerName 16, customerPhone 24, seatNumber 32, reservationDate 40,
+        // price 48, status 56, adminName 57, expiryTime 65
+        @Override
+        public int slotSize() {
+            return 81;
+        }
+
+        @Override
+        public long id(Reservation r) {
+            return r.id();
+        }
+
+        @Override
+        public void write(ByteBuffer b, int o, Reservation r, StringPool s) {
+            b.putLong(o, r.id());
+            b.putLong(o + 8, r.flightId());
+            putString(b, o + 16, r.customerName(), s);
+            putString(b, o + 24, r.customerPhone(), s);
+            putString(b, o + 32, r.seatNumber(), s);
+            putDate(b, o + 40, r.reservationDate());
+            b.putDouble(o + 48, r.price());
+            putEnum(b, o + 56, r.status());
+            putString(b, o + 57, r.adminName(), s);
+            putDateTime(b, o + 65, r.expiryTime());
+        }
+
+        @Override
+        public Reservation read(ByteBuffer b, int o, StringPool s) {
+            return new Reservation(b.getLong(o), b.getLong(o + 8), getString(b, o + 16, s), getString(b, o + 24, s),
+                    getString(b, o + 32, s), getDate(b, o + 40), b.getDouble(o + 48),
+                    getEnum(b, o + 56, BookingStatus.class), getString(b, o + 57, s), getDateTime(b, o + 65));
+        }
+    };
+
+    public static final SlotCodec<Ticket> TICKET = new SlotCodec<>() {
+        @Override
+        public String schema() {
+            return RecordCodecs.TICKET.schema();
+        }
+
+        // id 0, reservationId 8, customerName 16, paymentStatus 24, flightInfo 25, flightDate 33
+        @Override
+        public int slotSize() {
+            return 41;
+        }
+
+        @Override
+        public long id(Ticket t) {
+            return t.id();
+        }
+
+        @Override
+        public void write(ByteBuffer b, int o, Ticket t, StringPool s) {
+            b.putLong(o, t.id());
+            b.putLong(o + 8, t.reservationId());
+            putString(b, o + 16, t.customerName(), s);
+            putEnum(b, o + 24, t.paymentStatus());
+            putString(b, o + 25, t.flightInfo(), s);
+            putDate(b, o + 33, t.flightDate());
+        }
+
+        @Override
+        public Ticket read(ByteBuffer b, int o, StringPool s) {
+            return new Ticket(b.getLong(o), b.getLong(o + 8), getString(b, o + 16, s),
+                    getEnum(b, o + 24, BookingStatus.class), getString(b, o + 25, s), getDate(b, o + 33));
+        }
+    };
+}
@@ -0,0 +1,192 @@
+package artifact.Backend.Repositories.Storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Crash-safe snapshot files with a checksum trailer and one previous generation.
+ * <p>
+ * {@link #write} streams the payload into {@code <file>.tmp}, appends a trailer line
+ * {@code #snapshot-crc32c:<hex>:<payload length>}, fsyncs, keeps the current file as
+ * {@code <file>.prev} and atomically moves the new one into place. A crash at any point leaves
+ * either the old or the new generation intact, never a half-written file under the real name.
+ * </p>
+ * <p>
+ * {@link #read} verifies the trailer before handing the payload to the parser, and falls back to
+ * {@code <file>.prev} if the current generation is damaged. Files without a trailer (written by
+ * older versions or by hand) are accepted as they are.
+ * </p>
+ */
+public final class SnapshotFile {
+
+    private static final String TRAILER_PREFIX = "\n#snapshot-crc32c:";
+    private static final int TAIL_SCAN = 64;
+
+    @FunctionalInterface
+    public interface Writer {
+        void write(OutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface Reader<R> {
+        R read(InputStream in) throws IOException;
+    }
+
+    private SnapshotFile() {}
+
+    public static Path previousOf(Path path) {
+        return path.resolveSibling(path.getFileName() + ".prev");
+    }
+
+    public static void write(Path path, Writer body) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream raw = Channels.newOutputStream(channel);
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(raw, 1 << 16), new CRC32C());
+            body.write(nonClosing(checked));
+            checked.flush();
+            long length = channel.position();
+            String trailer = TRAILER_PREFIX + String.format("%08x", checked.getChecksum().getValue()) + ":" + length + "\n";
+            raw.write(trailer.getBytes(StandardCharsets.US_ASCII));
+            channel.force(true);
+        }
+
+        if (Files.exists(path)) {
+            Files.move(path, previousOf(path), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(parent);
+    }
+
+    /**
+     * Reads the newest intact generation of the snapshot.
+     *
+     * @return The parsed snapshot, or null if neither the file nor its previous generation exists.
+     * @throws IOException If generations exist but none of them passes verification and parsing.
+     */
+    public static <R> R read(Path path, Reader<R> parser) throws IOException {
+        IOException failure = null;
+        for (Path candidate : new Path[] { path, previousOf(path) }) {
+            if (!Files.exists(candidate)) continue;
+            try {
+                long length = verifiedLength(candidate);
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(candidate), 1 << 16)) {
+                    R result = parser.read(limit(in, length));
+                    if (failure != null) System.err.println("Recovered " + path + " from previous generation " + candidate);
+                    return result;
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Snapshot " + candidate + " is damaged: " + e.getMessage());
+                if (failure == null) failure = new IOException("no readable generation of " + path, e);
+            }
+        }
+        if (failure != null) throw failure;
+        return null;
+    }
+
+    // Checks the trailer and checksum; returns the payload length (the whole file if there is no trailer)
+    private static long verifiedLength(Path path) throws IOException {
+        long size = Files.size(path);
+        String tail;
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r")) {
+            int n = (int) Math.min(TAIL_SCAN, size);
+            byte[] bytes = new byte[n];
+            file.seek(size - n);
+            file.readFully(bytes);
+            tail = new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+
+        int at = tail.lastIndexOf(TRAILER_PREFIX);
+        if (at < 0 || !tail.endsWith("\n")) return size; // legacy file without trailer
+
+        String[] fields = tail.substring(at + TRAILER_PREFIX.length(), tail.length() - 1).split(":");
+        long expectedCrc;
+        long length;
+        try {
+            expectedCrc = Long.parseLong(fields[0], 16);
+            length = Long.parseLong(fields[1]);
+        } catch (RuntimeException e) {
+            throw new IOException("malformed checksum trailer");
+        }
+        if (length != size - (tail.length() - at)) throw new IOException("truncated (length mismatch)");
+
+        CRC32C crc = new CRC32C();
+        try (InputStream in = new CheckedInputStream(limit(Files.newInputStream(path), length), crc)) {
+            byte[] buffer = new byte[1 << 16];
+            while (in.read(buffer) >= 0) {
+                // only the checksum is needed
+            }
+        }
+        if (crc.getValue() != expectedCrc) throw new IOException("checksum mismatch");
+        return length;
+    }
+
+    /**
+     * Syncs a directory, so that renames and new files in it survive a crash.
+     */
+    public static void syncDirectory(Path directory) {
+        // Makes the renames durable; not supported on every platform, where the rename itself has to do
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // ignored, see above
+        }
+    }
+
+    private static InputStream limit(InputStream in, long length) {
+        return new FilterInputStream(in) {
+            private long remaining = length;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) return -1;
+                int b = super.read();
+                if (b >= 0) remaining--;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (remaining <= 0) return -1;
+                int n = super.read(b, off, (int) Math.min(len, remaining));
+                if (n > 0) remaining -= n;
+                return n;
+            }
+        };
+    }
+
+    // Writers may close their stream; the trailer still has to be appended afterwards
+    private static OutputStream nonClosing(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+}
@@ -0,0 +1,88 @@
+package artifact.Backend.Services.Impl;
+
+import artifact.Backend.Config.AppConfig;
+import artifact.Backend.Models.Flight;
+import artifact.Backend.Models.Reservation;
+import artifact.Backend.Repositories.Interfaces.IFlightRepository;
+import artifact.Backend.Repositories.Interfaces.IReservationRepository;
+import artifact.Backend.Repositories.Interfaces.ITicketRepository;
+import artifact.Backend.Tags.BookingStatus;
+
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background service that moves booking history off the heap.
+ * <p>
+ * Reservations and tickets of flights that departed more than {@code ARCHIVE_AFTER_DAYS} days ago
+ * (default 30) are moved into the repositories' memory-mapped archives, so only the working set of
+ * current and upcoming flights stays in memory. Pending bookings are never archived; they still
+ * belong to the expiry service.
+ * </p>
+ */
+public class BookingArchiveService {
+
+    private static final long SWEEP_INTERVAL_HOURS = 24;
+
+    private final IReservationRepository reservationRepository;
+    private final ITicketRepository ticketRepository;
+    private final IFlightRepository flightRepository;
+    private final int archiveAfterDays = AppConfig.getInt("ARCHIVE_AFTER_DAYS", 30);
+    private ScheduledExecutorService scheduler;
+
+    public BookingArchiveService(IReservationRepository reservationRepository,
+                                 ITicketRepository ticketRepository,
+                                 IFlightRepository flightRepository) {
+        this.reservationRepository = reservationRepository;
+        this.ticketRepository = ticketRepository;
+        this.flightRepository = flightRepository;
+    }
+
+    /**
+     * Archives immediately and then once every {@value #SWEEP_INTERVAL_HOURS} hours.
+     */
+    public synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "booking-archive");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                int archived = archive(LocalDate.now().minusDays(archiveAfterDays));
+                if (archived > 0) System.out.println("Archived " + archived + " past booking record(s).");
+            } catch (Exception e) {
+                System.err.println("Error during booking archiving: " + e.getMessage());
+            }
+        }, 0, SWEEP_INTERVAL_HOURS, TimeUnit.HOURS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Archives the reservations and tickets of flights that departed before {@code cutoff}.
+     * @return Number of records archived.
+     */
+    public int archive(LocalDate cutoff) {
+        int tickets = ticketRepository.archive(t -> t.paymentStatus() != BookingStatus.PENDING
+                && t.flightDate() != null && t.flightDate().isBefore(cutoff));
+        int reservations = reservationRepository.archive(r -> r.status() != BookingStatus.PENDING
+                && departureDate(r).isBefore(cutoff));
+        return tickets + reservations;
+    }
+
+    // Reservations of deleted flights fall back to their booking date
+    private LocalDate departureDate(Reservation reservation) {
+        Flight flight = flightRepository.findById(reservation.flightId());
+        if (flight != null && flight.departureTime() != null) return flight.departureTime().toLocalDate();
+        return reservation.reservationDate() != null ? reservation.reservationDate() : LocalDate.MAX;
+    }
+}
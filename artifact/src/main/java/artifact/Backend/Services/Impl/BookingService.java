@@ -49,14 +49,20 @@ public class BookingService implements IBookingService {
         if (!result.isSuccess()) return result;
 
         Flight flight = request.flightResult().flight();
+
+        // Turn the seat hold from seat selection into a booked seat; fails if someone else got it first
+        if (!reservationRepository.claimSeat(flight.id(), request.seatNumber(), request.holdToken())) {
+            result.setGlobalError("Seat " + request.seatNumber() + " is no longer available.");
+            return result;
+        }
         
-        if (flight.availableSeats() <= 0) {
+        // The search result may be stale; the inventory decides atomically whether a seat is left
+        if (!flightRepository.tryReserveSeats(flight.id(), 1)) {
+            reservationRepository.unclaimSeat(flight.id(), request.seatNumber());
             result.setGlobalError("Sorry, this flight just sold out.");
             return result;
         }
         
-        flightRepository.decrementSeat(flight.id());
-        
         BookingStatus status = request.status();
         LocalDateTime expiry = (status == BookingStatus.PENDING) ? 
             flight.departureTime().minusDays(1) : null;
@@ -11,7 +11,9 @@ import artifact.Backend.Services.Interfaces.IFlightService;
 
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -62,7 +64,8 @@ public class FlightService implements IFlightService {
             // FIXED: Convert Request LocalDate to LocalDateTime
             request.depDate().atStartOfDay(), 
             request.arrDate().atStartOfDay(), 
-            capacity
+            capacity,
+            0
         ));
         
         return result;
@@ -72,21 +75,19 @@ public class FlightService implements IFlightService {
     public Set<LocalDate> getAvailableFlightDates(Airport from, Airport to, YearMonth month) {
         if (from == null || to == null) return Collections.emptySet();
         
-        return flightRepository.findFlightsByRouteAndMonth(from.id(), to.id(), month).stream()
-            // FIXED: Convert LocalDateTime back to LocalDate for the Calendar UI
-            .map(f -> f.departureTime().toLocalDate())
-            .collect(Collectors.toSet());
+        // Precomputed per-month bitset: bit (day - 1) set when a bookable flight departs that day
+        BitSet days = flightRepository.findAvailableDays(from.id(), to.id(), month);
+        Set<LocalDate> dates = new HashSet<>();
+        for (int d = days.nextSetBit(0); d >= 0; d = days.nextSetBit(d + 1)) {
+            dates.add(month.atDay(d + 1));
+        }
+        return dates;
     }
 
     @Override
     public List<FlightSearchResult> searchFlights(Airport from, Airport to, LocalDate date) {
-        List<Flight> matchingFlights = flightRepository.getAll().stream()
-            .filter(f -> f.departureAirportId() == from.id())
-            .filter(f -> f.arrivalAirportId() == to.id())
-            // FIXED: Compare only the Date part of the LocalDateTime
-            .filter(f -> f.departureTime().toLocalDate().isEqual(date))
-            .filter(f -> f.availableSeats() > 0)
-            .collect(Collectors.toList());
+        // Range query on the route index instead of filtering the whole schedule
+        List<Flight> matchingFlights = flightRepository.findFlightsByRouteAndDate(from.id(), to.id(), date);
         
         return matchingFlights.stream()
             .map(flight -> new FlightSearchResult(
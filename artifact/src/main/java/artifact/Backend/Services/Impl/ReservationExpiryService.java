@@ -0,0 +1,103 @@
+package artifact.Backend.Services.Impl;
+
+import artifact.Backend.Models.Reservation;
+import artifact.Backend.Models.Ticket;
+import artifact.Backend.Repositories.Interfaces.IFlightRepository;
+import artifact.Backend.Repositories.Interfaces.IReservationRepository;
+import artifact.Backend.Repositories.Interfaces.ITicketRepository;
+import artifact.Backend.Tags.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background service that expires unpaid "Pay Later" reservations.
+ * <p>
+ * Overdue reservations are taken from the repository's time-ordered expiry queue, so a sweep
+ * only touches reservations that are actually due. Each one is moved to EXPIRED together with
+ * its ticket, and its seat is returned to the flight's inventory (the seat map frees the seat
+ * automatically once the reservation is no longer PENDING). A reservation paid for after it was
+ * polled stays CONFIRMED and keeps its seat.
+ * </p>
+ */
+public class ReservationExpiryService {
+
+    // Upper bound of reservations handled per batch, so one sweep never monopolises the repositories
+    private static final int BATCH_SIZE = 200;
+    private static final long SWEEP_INTERVAL_SECONDS = 30;
+
+    private final IReservationRepository reservationRepository;
+    private final ITicketRepository ticketRepository;
+    private final IFlightRepository flightRepository;
+    private ScheduledExecutorService scheduler;
+
+    public ReservationExpiryService(IReservationRepository reservationRepository,
+                                    ITicketRepository ticketRepository,
+                                    IFlightRepository flightRepository) {
+        this.reservationRepository = reservationRepository;
+        this.ticketRepository = ticketRepository;
+        this.flightRepository = flightRepository;
+    }
+
+    /**
+     * Starts sweeping immediately and then every {@value #SWEEP_INTERVAL_SECONDS} seconds.
+     */
+    public synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reservation-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                int expired = sweep();
+                if (expired > 0) System.out.println("Expired " + expired + " unpaid reservation(s).");
+            } catch (Exception e) {
+                System.err.println("Error during reservation expiry: " + e.getMessage());
+            }
+        }, 0, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Expires every reservation that is overdue right now, in batches of {@value #BATCH_SIZE}.
+     * @return Number of reservations expired.
+     */
+    public int sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        List<Reservation> batch;
+        do {
+            batch = reservationRepository.pollExpired(now, BATCH_SIZE);
+            for (Reservation reservation : batch) {
+                if (expire(reservation)) total++;
+            }
+        } while (!batch.isEmpty());
+        return total;
+    }
+
+    // False if the reservation left PENDING (e.g. was paid) since it was polled
+    private boolean expire(Reservation reservation) {
+        if (!reservationRepository.updateReservationStatusIf(reservation.id(),
+                r -> r.status() == BookingStatus.PENDING, BookingStatus.EXPIRED)) {
+            return false;
+        }
+        for (Ticket ticket : ticketRepository.findByReservationId(reservation.id())) {
+            if (ticket.paymentStatus() == BookingStatus.PENDING) {
+                ticketRepository.updateTicketStatus(ticket.id(), BookingStatus.EXPIRED);
+            }
+        }
+        flightRepository.releaseSeats(reservation.flightId(), 1);
+        return true;
+    }
+}
@@ -9,11 +9,12 @@ import artifact.Backend.Repositories.Interfaces.IReservationRepository;
 import artifact.Backend.Repositories.Interfaces.ITicketRepository;
 import artifact.Backend.Services.Interfaces.IReservationService;
 import artifact.Backend.UserSession;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 
 /**
@@ -22,6 +23,9 @@ import java.util.stream.Collectors;
  */
 public class ReservationService implements IReservationService {
 
+    // How long seats stay held while the customer is on the payment screen
+    public static final Duration SEAT_HOLD_TTL = Duration.ofMinutes(10);
+
     private final IReservationRepository reservationRepository;
     private final ITicketRepository ticketRepository;
     private final IFlightRepository flightRepository;
@@ -53,9 +57,63 @@ public class ReservationService implements IReservationService {
     @Override
     public ServiceResult addReservation(String custName, String custPhone, Flight flight, String seatNum, LocalDate resDate, String priceStr, boolean isPaid) 
     {
-        ServiceResult result = new ServiceResult();
-        
         // 1. Validation Logic
+        ServiceResult result = validate(custName, custPhone, flight, priceStr, 1);
+        if (!result.isSuccess()) return result;
+        double price = Double.parseDouble(priceStr);
+
+        // 2. Business Logic
+        if (!reservationRepository.claimSeat(flight.id(), seatNum, null)) {
+            result.setGlobalError("Seat " + seatNum + " is already taken on this flight.");
+            return result;
+        }
+        if (!flightRepository.tryReserveSeats(flight.id(), 1)) {
+            reservationRepository.unclaimSeat(flight.id(), seatNum);
+            result.setGlobalError("No available seats on this flight.");
+            return result;
+        }
+        book(custName, custPhone, flight, seatNum, resDate, price, isPaid);
+        return result; 
+    }
+    
+    /**
+     * Books several seats for one customer, splitting the total price evenly.
+     * The seats are booked together or not at all: the flight's seat count is reserved for the
+     * whole group in one step, and given back if any of the seats turns out to be taken.
+     */
+    public ServiceResult addGroupReservation(String custName, String custPhone, Flight flight, Set<String> seats, LocalDate resDate, String totalPriceStr, boolean isPaid) {
+        if (seats == null || seats.isEmpty()) {
+            ServiceResult result = new ServiceResult();
+            result.setGlobalError("Select at least one seat.");
+            return result;
+        }
+        ServiceResult result = validate(custName, custPhone, flight, totalPriceStr, seats.size());
+        if (!result.isSuccess()) return result;
+        double perSeat = Double.parseDouble(totalPriceStr) / seats.size();
+
+        if (!flightRepository.tryReserveSeats(flight.id(), seats.size())) {
+            result.setGlobalError("Not enough available seats on this flight.");
+            return result;
+        }
+        List<String> claimed = new ArrayList<>();
+        for (String seat : seats) {
+            if (!reservationRepository.claimSeat(flight.id(), seat, null)) {
+                for (String taken : claimed) reservationRepository.unclaimSeat(flight.id(), taken);
+                flightRepository.releaseSeats(flight.id(), seats.size());
+                result.setGlobalError("Seat " + seat + " is already taken on this flight.");
+                return result;
+            }
+            claimed.add(seat);
+        }
+        for (String seat : seats) {
+            book(custName, custPhone, flight, seat, resDate, perSeat, isPaid);
+        }
+        return result;
+    }
+
+    // Checks the booking form and that the flight still has seatCount seats left
+    private ServiceResult validate(String custName, String custPhone, Flight flight, String priceStr, int seatCount) {
+        ServiceResult result = new ServiceResult();
         if (custName == null || custName.trim().isEmpty()) {
             result.addError("name", "Customer name is required*");
         }
@@ -67,9 +125,8 @@ public class ReservationService implements IReservationService {
         }
         
         // Validate Price Format
-        double price = 0.0; 
         try {
-            price = Double.parseDouble(priceStr);
+            double price = Double.parseDouble(priceStr);
             if (price <= 0) result.addError("price", "Price must be positive*");
         } catch (NumberFormatException e) {
             result.addError("price", "Invalid price*");
@@ -78,18 +135,18 @@ public class ReservationService implements IReservationService {
         // Check availability
         if (flight != null) {
             Flight flightData = flightRepository.findById(flight.id());
-            if (flightData.availableSeats() <= 0) {
-                result.setGlobalError("No available seats on this flight.");
-                return result; 
+            if (flightData.availableSeats() < seatCount) {
+                result.setGlobalError(seatCount == 1 ? "No available seats on this flight."
+                        : "Not enough available seats on this flight.");
             }
         }
+        return result;
+    }
 
-        if (!result.isSuccess()) return result;
-
-        // 2. Business Logic
+    // Stores the reservation of a claimed seat (already counted off the flight) and its ticket
+    private void book(String custName, String custPhone, Flight flight, String seatNum, LocalDate resDate, double price, boolean isPaid) {
         String adminName = userSession.getAdminName(); // Track which admin made the booking
-        flightRepository.decrementSeat(flight.id());
-        
+
         // Determine Status and Expiry logic
         BookingStatus status = isPaid ? BookingStatus.CONFIRMED : BookingStatus.PENDING;
         LocalDateTime expiry = isPaid ? null : LocalDateTime.now().plusDays(1);
@@ -101,24 +158,6 @@ public class ReservationService implements IReservationService {
         // Persist Ticket
         Ticket newTicket = new Ticket(0, createdReservation.id(), custName, status, "Flight " + flight.id(), flight.departureTime().toLocalDate());
         ticketRepository.add(newTicket);
-        
-        return result; 
-    }
-    
-    public ServiceResult addGroupReservation(String custName, String custPhone, Flight flight, Set<String> seats, LocalDate resDate, String totalPriceStr, boolean isPaid) {
-         ServiceResult result = new ServiceResult();
-         
-         double total = Double.parseDouble(totalPriceStr);
-         double perSeat = total / seats.size();
-         String perSeatStr = String.valueOf(perSeat);
-         
-         for (String seat : seats) {
-             ServiceResult res = addReservation(custName, custPhone, flight, seat, resDate, perSeatStr, isPaid);
-             if (!res.isSuccess()) {
-                 return res; // Stop if one fails
-             }
-         }
-         return result;
     }
 
     
@@ -128,9 +167,26 @@ public class ReservationService implements IReservationService {
      */
     public Set<String> getTakenSeats(long flightId) 
     {
-        List<Reservation> reservations = reservationRepository.findByFlightId(flightId);
-        return reservations.stream()
-            .map(Reservation::seatNumber)
-            .collect(Collectors.toSet());
+        return getTakenSeats(flightId, null);
+    }
+
+    /**
+     * Same as {@link #getTakenSeats(long)}, but seats held by {@code holdToken} stay selectable,
+     * so a customer coming back from the payment screen still sees their own seats as free.
+     */
+    public Set<String> getTakenSeats(long flightId, String holdToken)
+    {
+        return reservationRepository.findTakenSeats(flightId, holdToken);
+    }
+
+    /**
+     * Holds the selected seats while the customer pays.
+     * All seats are held or none; holds expire after {@link #SEAT_HOLD_TTL}.
+     *
+     * @return false if any seat was booked or held by someone else in the meantime.
+     */
+    public boolean holdSeats(long flightId, Set<String> seats, String holdToken)
+    {
+        return reservationRepository.holdSeats(flightId, seats, holdToken, SEAT_HOLD_TTL);
     }
 }
\ No newline at end of file
@@ -68,7 +68,8 @@ public class SupportService implements ISupportService {
             request.subject(),
             TicketStatus.OPEN, 
             LocalDate.now(), 
-            messages
+            messages,
+            0
         );
         
         supportRepository.add(ticket);
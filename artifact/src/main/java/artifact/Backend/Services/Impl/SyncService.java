@@ -1,43 +1,564 @@
 package artifact.Backend.Services.Impl;
+import artifact.Backend.Config.AppConfig;
+import artifact.Backend.Repositories.Impl.RepositoryProvider;
+import artifact.Backend.Repositories.Interfaces.IRepository;
+import artifact.Backend.Supabase.OptimisticWrite;
 import artifact.Backend.Supabase.SupabaseSync;
+import artifact.Backend.Supabase.SyncOutbox;
+import artifact.Backend.Supabase.SyncScheduler;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service implementation for managing offline-first data synchronization.
  * <p>
- * This service queues database operations (upserts) in memory and 
- * flushes them to the remote Supabase instance when triggered.
- * Useful for batching updates or handling intermittent connectivity.
+ * Every queued upsert or delete is first appended to a durable outbox on disk
+ * ({@link SyncOutbox}, group-committed within milliseconds) and then kept in memory until it is flushed to
+ * the remote Supabase instance. Rows are acknowledged in the outbox only
+ * after Supabase confirms them with a 2xx response, and unacknowledged rows
+ * are replayed when the app starts, so delivery is at-least-once.
+ * </p>
+ * <p>
+ * Pending work is keyed by (table, row id): a newer write to a row that has not been sent yet
+ * replaces the older one in place, so a burst of updates to the same flight or ticket goes out
+ * as a single upsert of its latest state, and a row deleted before it was sent goes out as just
+ * the delete. Rows keep the queue position of their first unsent write.
+ * </p>
+ * <p>
+ * Tables whose rows reference other tables are sent after them: inserts and updates once the
+ * referenced (parent) tables are done, deletes once the referencing (child) tables are done, so
+ * the cloud never sees a ticket before its reservation or a flight deleted before its bookings.
+ * Tables that do not depend on each other are sent in parallel.
+ * </p>
+ * <p>
+ * Pending rows are grouped by table and sent in batches of up to {@code SYNC_BATCH_SIZE} rows
+ * (default 100), one HTTP request per batch: inserts and updates as bulk upserts of the full
+ * rows, deletes as one {@code DELETE ?id=in.(...)} per batch.
+ * </p>
+ * <p>
+ * Rows of versioned tables (models with a {@code version}, see {@link OptimisticWrite}) are never
+ * blindly overwritten: new rows are bulk inserted, skipping IDs that already exist, and every
+ * update is a conditional write against the version it was made on, merged and retried if another
+ * terminal got there first. Once stored, the cloud row (with its new version) replaces the local
+ * copy, unless the row has been written again locally in the meantime.
  * </p>
  */
 public class SyncService {
-    
-    // In-memory queue for pending operations
-    private static final List<SyncItem> pending = new ArrayList<>();
+
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    // SYNC_OUTBOX moves the file, e.g. to keep a test run away from the real queue
+    private static final SyncOutbox outbox = new SyncOutbox(Paths.get(AppConfig.get("SYNC_OUTBOX", "src/main/resources/data/sync_outbox.log")));
+
+    // In-memory queue for pending operations, seeded with whatever the last run left unsent
+    private static LinkedHashMap<RowKey, SyncItem> pending = new LinkedHashMap<>();
+
+    // Writes dropped because a newer write to the same row superseded them (reset on every flush)
+    private static int coalesced;
+
+    static {
+        long now = System.currentTimeMillis();
+        for (SyncOutbox.Entry entry : outbox.recover()) {
+            offer(new SyncItem(entry.seq(), entry.table(), entry.op(), entry.row(), entry.base(), entry.writeId(), now));
+        }
+        if (!pending.isEmpty()) {
+            System.out.println("Sync: replaying " + pending.size() + " unsent row(s) from the outbox.");
+        }
+    }
+
+    private static volatile int batchSize = AppConfig.getInt("SYNC_BATCH_SIZE", DEFAULT_BATCH_SIZE);
+    private static volatile int maxInFlight = AppConfig.getInt("SYNC_MAX_IN_FLIGHT", DEFAULT_MAX_IN_FLIGHT);
+
+    // Foreign keys between the synced tables: each table with the tables its rows reference
+    private static final Map<String, List<String>> PARENTS = Map.of(
+            "/flights", List.of("/airports", "/aircraft", "/crew"),
+            "/reservations", List.of("/flights"),
+            "/tickets", List.of("/reservations"),
+            "/support_tickets", List.of("/users"));
+
+    // Lanes still in flight, by table; each completes once its failed rows are back in the queue
+    // (guarded by SyncService.class)
+    private static final Map<String, CompletableFuture<Void>> lanes = new HashMap<>();
 
     // Internal record to hold operation metadata
-    private record SyncItem(String table, Object data) {}
+    // base/writeId are only set for versioned rows (see OptimisticWrite); base is null for new rows
+    // queuedAt is the time of the row's first unsent write, kept when newer writes replace it
+    private record SyncItem(long seq, String table, SyncOutbox.Op op, JsonElement row, JsonElement base,
+                            String writeId, long queuedAt) {}
+
+    // Coalescing key; rows without an "id" column get a unique key and are never merged
+    private record RowKey(String table, Object id) {
+        static RowKey of(SyncItem item) {
+            JsonElement id = item.row().isJsonObject() ? ((JsonObject) item.row()).get("id") : null;
+            return of(item.table(), id);
+        }
+
+        // Numeric IDs are keyed as Long: a number parsed from the outbox hashes differently from one built in memory
+        static RowKey of(String table, JsonElement id) {
+            if (id == null || id.isJsonNull()) return new RowKey(table, new Object());
+            if (id.isJsonPrimitive() && id.getAsJsonPrimitive().isNumber()) return new RowKey(table, id.getAsLong());
+            return new RowKey(table, id);
+        }
+    }
+
+    // How a queued item is sent: plain rows as bulk upserts, versioned rows as bulk inserts or one conditional update each
+    private enum Request {
+        UPSERT, INSERT, UPDATE, DELETE;
+
+        static Request of(SyncItem item) {
+            if (item.op() == SyncOutbox.Op.DELETE) return DELETE;
+            if (item.writeId() == null) return UPSERT;
+            return item.base() == null ? INSERT : UPDATE;
+        }
+    }
+
+    /**
+     * Outcome of one bulk request sent by {@link #syncAll()}.
+     *
+     * @param table   Target table.
+     * @param rows    Number of rows in the batch.
+     * @param success Whether Supabase accepted the batch (2xx).
+     */
+    public record BatchResult(String table, int rows, boolean success) {}
 
     /**
      * Adds an operation to the synchronization queue.
-     * This method is synchronized to ensure thread safety.
+     * The row is handed to the outbox before this method returns and reaches the disk with the next
+     * group commit of the outbox; a crash before that loses it. Wait for the returned future when
+     * the row must survive a crash.
+     * If the same row (table and id) is still waiting to be sent, the older write is dropped.
+     * Safe to call from any thread.
      *
      * @param tableName The target table in the database.
      * @param data      The object/data to upsert.
+     * @return Completes once the row is on disk in the outbox (exceptionally if the write failed).
      */
-    public static synchronized void enqueue(String tableName, Object data) {
-        pending.add(new SyncItem(tableName, data));
+    public static CompletableFuture<Void> enqueue(String tableName, Object data) {
+        return enqueue(tableName, data, null);
     }
 
     /**
-     * Flushes the queue, attempting to push all pending items to Supabase.
-     * Clears the pending list upon completion.
+     * Same as {@link #enqueue(String, Object)}, for a change made on {@code previous}. For versioned rows
+     * the previous row is the base of the conditional write (its version is the one expected in the cloud,
+     * and the local change is merged against it on a conflict); it is ignored for other tables.
+     *
+     * @param previous The row before the change, or null if the row is new.
+     */
+    public static CompletableFuture<Void> enqueue(String tableName, Object data, Object previous) {
+        JsonElement row = SupabaseSync.toRow(data);
+        if (!OptimisticWrite.isVersioned(row)) {
+            return append(tableName, SyncOutbox.Op.UPSERT, row, null, null);
+        }
+        JsonElement base = previous == null ? null : SupabaseSync.toRow(previous);
+        return append(tableName, SyncOutbox.Op.UPSERT, row, base, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Queues the deletion of a row. Like an upsert, it is handed to the outbox first and
+     * replaces any unsent write to the same row; deletes of one table are sent together.
+     *
+     * @param tableName The target table in the database.
+     * @param id        Primary key of the deleted row.
+     * @return Completes once the delete is on disk in the outbox (exceptionally if the write failed).
      */
-    public static synchronized void syncAll() {
-        for (SyncItem item : pending) {
-            SupabaseSync.upsert(item.table, item.data);
+    public static CompletableFuture<Void> enqueueDelete(String tableName, long id) {
+        JsonObject row = new JsonObject();
+        row.addProperty("id", id);
+        return append(tableName, SyncOutbox.Op.DELETE, row, null, null);
+    }
+
+    private static CompletableFuture<Void> append(String tableName, SyncOutbox.Op op, JsonElement row, JsonElement base, String writeId) {
+        int depth;
+        SyncOutbox.Appended appended;
+        synchronized (SyncService.class) {
+            // The replaced write is acknowledged below, so the base it passes on must be in the outbox first
+            SyncItem unsent = pending.get(RowKey.of(tableName, row.getAsJsonObject().get("id")));
+            if (unsent != null) base = coalescedBase(unsent, base);
+            appended = outbox.append(tableName, op, row, base, writeId);
+            SyncOutbox.Entry entry = appended.entry();
+            SyncItem superseded = offer(new SyncItem(entry.seq(), tableName, op, entry.row(), entry.base(),
+                    entry.writeId(), System.currentTimeMillis()));
+            if (superseded != null) {
+                outbox.ack(List.of(superseded.seq()));
+            }
+            depth = pending.size();
+        }
+        // Outside the queue lock: the scheduler reads the queue under its own lock
+        SyncScheduler.onQueued(depth);
+        return appended.written();
+    }
+
+    // Queues an item, replacing an unsent write to the same row in place; returns the replaced item
+    private static SyncItem offer(SyncItem item) {
+        RowKey key = RowKey.of(item);
+        SyncItem superseded = pending.get(key);
+        if (superseded != null) {
+            coalesced++;
+            item = new SyncItem(item.seq(), item.table(), item.op(), item.row(), coalescedBase(superseded, item.base()),
+                    item.writeId(), superseded.queuedAt());
         }
-        pending.clear();
+        pending.put(key, item);
+        return superseded;
+    }
+
+    // Base of a versioned write that replaces an unsent one. A write made on top of the unsent row inherits
+    // the unsent write's base, so the cloud still sees both changes; one computed before it (and queued
+    // late) already has the older base.
+    private static JsonElement coalescedBase(SyncItem unsent, JsonElement base) {
+        return base == null || base.equals(unsent.row()) ? unsent.base() : base;
+    }
+
+    /**
+     * Changes the maximum number of rows sent per bulk request.
+     */
+    public static void setBatchSize(int size) {
+        if (size < 1) throw new IllegalArgumentException("Batch size must be at least 1");
+        batchSize = size;
+    }
+
+    /**
+     * Changes the maximum number of concurrent requests per table.
+     */
+    public static void setMaxInFlight(int requests) {
+        if (requests < 1) throw new IllegalArgumentException("At least one request must be allowed in flight");
+        maxInFlight = requests;
+    }
+
+    /**
+     * Number of rows waiting to be sent.
+     */
+    public static synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Whether a local write to the row is still waiting to be sent. Changes pushed by the cloud for
+     * such a row are older than the local state and are skipped; the local write wins once it lands.
+     */
+    public static synchronized boolean hasPending(String tableName, long id) {
+        return pending.containsKey(new RowKey(tableName, id));
+    }
+
+    /**
+     * How long the oldest unsent row has been waiting, in milliseconds (0 when the queue is empty).
+     * Failed rows go back to the front of the queue, so the front row is the oldest one.
+     */
+    public static synchronized long lagMillis() {
+        if (pending.isEmpty()) return 0;
+        return System.currentTimeMillis() - pending.values().iterator().next().queuedAt();
+    }
+
+    /**
+     * Flushes the queue and waits for the result. See {@link #syncAllAsync()}.
+     *
+     * @return One result per batch sent, grouped by table.
+     */
+    public static List<BatchResult> syncAll() {
+        return syncAllAsync().join();
+    }
+
+    /**
+     * Flushes the queue, pushing pending items to Supabase as chunked bulk upserts and deletes.
+     * <p>
+     * Every table is sent on its own lane, and within a lane up to {@code SYNC_MAX_IN_FLIGHT}
+     * batches (default 4) are in flight at once over the shared HTTP/2 client. A lane's inserts and
+     * updates wait for the lanes of its parent tables, its deletes for the lanes of its child
+     * tables (including lanes still running from an earlier flush); lanes of unrelated tables run
+     * concurrently, so their latency overlaps instead of adding up.
+     * A table whose previous lane is still running is skipped and picked up by a later flush;
+     * together with coalescing (one write per row per flush) this keeps the writes of each row
+     * in order. The inserts and updates of the tables referencing a skipped table are skipped
+     * with it, and so are the deletes of the tables it references.
+     * </p>
+     * <p>
+     * The queue is only locked while it is drained, so new items can be enqueued while the
+     * requests are in flight. Batches that succeed are acknowledged in the outbox; batches
+     * that fail are put back at the front of the queue and retried on the next flush.
+     * </p>
+     *
+     * @return Completes with one result per batch sent once every lane started by this flush is done.
+     */
+    public static CompletableFuture<List<BatchResult>> syncAllAsync() {
+        Map<String, List<SyncItem>> byTable = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Void>> earlier;
+        int merged;
+        synchronized (SyncService.class) {
+            if (pending.isEmpty()) return CompletableFuture.completedFuture(List.of());
+
+            // Take the rows of idle tables; rows of tables still in flight wait for the next flush,
+            // and so do the rows that would otherwise reach the cloud before the rows they depend on
+            Set<String> heldWrites = new HashSet<>();
+            Set<String> heldDeletes = new HashSet<>();
+            hold(heldWrites, heldDeletes);
+            LinkedHashMap<RowKey, SyncItem> waiting = new LinkedHashMap<>();
+            for (Map.Entry<RowKey, SyncItem> entry : pending.entrySet()) {
+                SyncItem item = entry.getValue();
+                Set<String> held = item.op() == SyncOutbox.Op.DELETE ? heldDeletes : heldWrites;
+                if (held.contains(item.table())) {
+                    waiting.put(entry.getKey(), item);
+                } else {
+                    byTable.computeIfAbsent(item.table(), t -> new ArrayList<>()).add(item);
+                }
+            }
+            if (byTable.isEmpty()) return CompletableFuture.completedFuture(List.of());
+            pending = waiting;
+            earlier = new HashMap<>(lanes);
+            for (String table : byTable.keySet()) lanes.put(table, new CompletableFuture<>());
+            merged = coalesced;
+            coalesced = 0;
+        }
+
+        List<String> tables = new ArrayList<>(byTable.keySet());
+        tables.sort(Comparator.comparingInt(SyncService::depth));
+        Map<String, List<SyncItem>> failed = new HashMap<>();
+        for (String table : tables) failed.put(table, Collections.synchronizedList(new ArrayList<>()));
+
+        // Inserts and updates parents first, deletes children first
+        Map<String, CompletableFuture<List<BatchResult>>> writes = new HashMap<>();
+        for (String table : tables) {
+            List<SyncItem> rows = byTable.get(table).stream().filter(item -> Request.of(item) != Request.DELETE).toList();
+            writes.put(table, after(PARENTS.getOrDefault(table, List.of()), writes, earlier)
+                    .thenCompose(ready -> sendTable(table, rows, failed.get(table))));
+        }
+        Map<String, CompletableFuture<List<BatchResult>>> deletes = new HashMap<>();
+        for (String table : tables.reversed()) {
+            List<SyncItem> rows = byTable.get(table).stream().filter(item -> Request.of(item) == Request.DELETE).toList();
+            deletes.put(table, after(children(table), deletes, earlier)
+                    .thenCompose(ready -> sendTable(table, rows, failed.get(table))));
+        }
+
+        List<CompletableFuture<List<BatchResult>>> done = new ArrayList<>();
+        for (String table : tables) {
+            done.add(writes.get(table).thenCombine(deletes.get(table), (written, deleted) -> {
+                endLane(table, failed.get(table));
+                List<BatchResult> results = new ArrayList<>(written);
+                results.addAll(deleted);
+                return results;
+            }));
+        }
+        return CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).thenApply(all -> {
+            List<BatchResult> results = new ArrayList<>();
+            for (CompletableFuture<List<BatchResult>> lane : done) {
+                results.addAll(lane.join());
+            }
+            logSummary(results, merged);
+            return results;
+        });
+    }
+
+    // Collects the tables whose queued writes or deletes must wait for the next flush: those of tables
+    // still in flight, the writes of tables referencing a table whose writes wait, and the deletes of
+    // tables referenced by a table whose deletes wait (guarded by SyncService.class)
+    private static void hold(Set<String> heldWrites, Set<String> heldDeletes) {
+        Set<String> writing = new HashSet<>();
+        Set<String> deleting = new HashSet<>();
+        for (SyncItem item : pending.values()) {
+            (item.op() == SyncOutbox.Op.DELETE ? deleting : writing).add(item.table());
+        }
+        Set<String> queued = new HashSet<>(writing);
+        queued.addAll(deleting);
+        List<String> tables = new ArrayList<>(queued);
+        tables.sort(Comparator.comparingInt(SyncService::depth));
+
+        for (String table : tables) {
+            if (writing.contains(table) && (lanes.containsKey(table)
+                    || PARENTS.getOrDefault(table, List.of()).stream().anyMatch(heldWrites::contains))) {
+                heldWrites.add(table);
+            }
+        }
+        for (String table : tables.reversed()) {
+            if (deleting.contains(table) && (lanes.containsKey(table)
+                    || children(table).stream().anyMatch(heldDeletes::contains))) {
+                heldDeletes.add(table);
+            }
+        }
+    }
+
+    // Completes once the given tables are done: their part of this flush, or their lane from an earlier one
+    private static CompletableFuture<Void> after(List<String> tables, Map<String, CompletableFuture<List<BatchResult>>> thisFlush,
+                                                 Map<String, CompletableFuture<Void>> earlier) {
+        List<CompletableFuture<?>> waits = new ArrayList<>();
+        for (String table : tables) {
+            CompletableFuture<?> wait = thisFlush.containsKey(table) ? thisFlush.get(table) : earlier.get(table);
+            if (wait != null) waits.add(wait);
+        }
+        return CompletableFuture.allOf(waits.toArray(CompletableFuture[]::new));
+    }
+
+    // Number of tables above this one in the chain of references (0 for tables that reference none)
+    private static int depth(String table) {
+        int depth = 0;
+        for (String parent : PARENTS.getOrDefault(table, List.of())) {
+            depth = Math.max(depth, depth(parent) + 1);
+        }
+        return depth;
+    }
+
+    private static List<String> children(String table) {
+        List<String> children = new ArrayList<>();
+        PARENTS.forEach((child, parents) -> {
+            if (parents.contains(table)) children.add(child);
+        });
+        return children;
+    }
+
+    // Sends one table's rows in chunks, keeping at most maxInFlight requests open at a time
+    // Rows of failed batches are added to failed
+    private static CompletableFuture<List<BatchResult>> sendTable(String table, List<SyncItem> items, List<SyncItem> failed) {
+        // Each row appears once per flush, so upserts and deletes of different rows can go out in any order
+        List<List<SyncItem>> chunks = new ArrayList<>();
+        for (Request kind : Request.values()) {
+            List<SyncItem> ofKind = items.stream().filter(item -> Request.of(item) == kind).toList();
+            int size = kind == Request.UPDATE ? 1 : batchSize;
+            for (int from = 0; from < ofKind.size(); from += size) {
+                chunks.add(ofKind.subList(from, Math.min(from + size, ofKind.size())));
+            }
+        }
+
+        BatchResult[] results = new BatchResult[chunks.size()];
+        AtomicInteger next = new AtomicInteger();
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(maxInFlight, chunks.size()); i++) {
+            workers.add(sendNext(table, chunks, results, next));
+        }
+
+        return CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).handle((done, error) -> {
+            for (int i = 0; i < chunks.size(); i++) {
+                if (results[i] == null || !results[i].success()) failed.addAll(chunks.get(i));
+            }
+            return Arrays.stream(results).filter(Objects::nonNull).toList();
+        });
+    }
+
+    // One worker of a lane: sends the next unsent chunk, then the one after, until none are left
+    private static CompletableFuture<Void> sendNext(String table, List<List<SyncItem>> chunks,
+                                                    BatchResult[] results, AtomicInteger next) {
+        int index = next.getAndIncrement();
+        if (index >= chunks.size()) return CompletableFuture.completedFuture(null);
+
+        List<SyncItem> chunk = chunks.get(index);
+        CompletableFuture<Boolean> request = switch (Request.of(chunk.get(0))) {
+            case DELETE -> SupabaseSync.deleteBatchAsync(table, chunk.stream().map(item -> item.row().getAsJsonObject().get("id").getAsLong()).toList());
+            case UPSERT -> SupabaseSync.upsertBatchAsync(table, chunk.stream().map(SyncItem::row).toList());
+            case INSERT -> insertVersioned(table, chunk);
+            case UPDATE -> updateVersioned(table, chunk.get(0));
+        };
+        return request.thenCompose(ok -> {
+            results[index] = new BatchResult(table, chunk.size(), ok);
+            if (ok) outbox.ack(chunk.stream().map(SyncItem::seq).toList());
+            return sendNext(table, chunks, results, next);
+        });
+    }
+
+    // New versioned rows: one bulk insert; IDs already in the cloud are left alone (e.g. a replayed insert)
+    private static CompletableFuture<Boolean> insertVersioned(String table, List<SyncItem> chunk) {
+        List<JsonObject> rows = new ArrayList<>();
+        for (SyncItem item : chunk) {
+            JsonObject row = item.row().getAsJsonObject();
+            rows.add(OptimisticWrite.stamp(row, OptimisticWrite.versionOf(row) + 1, item.writeId()));
+        }
+        return SupabaseSync.insertBatchAsync(table, rows).thenApply(inserted -> {
+            if (inserted == null) return false;
+            for (JsonElement row : inserted) committed(table, row.getAsJsonObject());
+            return true;
+        });
+    }
+
+    // One conditional write, merged and retried on a conflict
+    private static CompletableFuture<Boolean> updateVersioned(String table, SyncItem item) {
+        JsonObject row = item.row().getAsJsonObject();
+        long id = row.get("id").getAsLong();
+        return OptimisticWrite.update(table, id, item.base().getAsJsonObject(), row, item.writeId()).thenApply(outcome -> {
+            if (outcome.committed()) committed(table, outcome.row());
+            return outcome.committed();
+        });
+    }
+
+    // A versioned row is stored in the cloud: an unsent newer write of it made on the same content is rebased
+    // onto the stored version; otherwise the stored row (new version, merged changes) replaces the local copy
+    private static void committed(String table, JsonObject stored) {
+        synchronized (SyncService.class) {
+            RowKey key = RowKey.of(table, stored.get("id"));
+            SyncItem next = pending.get(key);
+            if (next != null) {
+                if (next.base() != null && next.base().isJsonObject()
+                        && OptimisticWrite.sameContent(next.base().getAsJsonObject(), stored)) {
+                    pending.put(key, new SyncItem(next.seq(), next.table(), next.op(), next.row(), stored,
+                            next.writeId(), next.queuedAt()));
+                }
+                return;
+            }
+        }
+        // Skipped by the repository if the row is written again in between
+        applyLocally(table, List.of(stored));
+    }
+
+    private static void applyLocally(String table, List<JsonObject> rows) {
+        IRepository<?> repository = RepositoryProvider.getCloudRepositories().get(table);
+        if (repository == null) return;
+        try {
+            repository.applyCloudChanges(rows, List.of());
+        } catch (RuntimeException e) {
+            System.err.println("Error applying synced rows of " + table + " locally: " + e.getMessage());
+        }
+    }
+
+    // Ends a table's lane once its failed items are back in the queue; lanes waiting for it start then
+    private static synchronized void endLane(String table, List<SyncItem> failed) {
+        requeue(failed);
+        CompletableFuture<Void> lane = lanes.remove(table);
+        if (lane != null) lane.complete(null);
+    }
+
+    // Puts failed items back in front of the queue, unless the row was written again in the meantime
+    private static synchronized void requeue(List<SyncItem> failed) {
+        if (failed.isEmpty()) return;
+
+        LinkedHashMap<RowKey, SyncItem> queue = new LinkedHashMap<>();
+        List<Long> superseded = new ArrayList<>();
+        for (SyncItem item : failed) {
+            RowKey key = RowKey.of(item);
+            SyncItem newer = pending.get(key);
+            if (newer == null) {
+                queue.put(key, item);
+                continue;
+            }
+            superseded.add(item.seq());
+            // The newer write was made on top of the failed one, so it must now carry the failed write's change too
+            JsonElement base = coalescedBase(item, newer.base());
+            if (!Objects.equals(base, newer.base())) {
+                SyncOutbox.Entry entry = outbox.append(newer.table(), newer.op(), newer.row(), base, newer.writeId()).entry();
+                superseded.add(newer.seq());
+                pending.put(key, new SyncItem(entry.seq(), newer.table(), newer.op(), newer.row(), base,
+                        newer.writeId(), newer.queuedAt()));
+            }
+        }
+        queue.putAll(pending);
+        pending = queue;
+        outbox.ack(superseded);
+    }
+
+    private static void logSummary(List<BatchResult> results, int merged) {
+        long okBatches = results.stream().filter(BatchResult::success).count();
+        int okRows = results.stream().filter(BatchResult::success).mapToInt(BatchResult::rows).sum();
+        int failedRows = results.stream().filter(r -> !r.success()).mapToInt(BatchResult::rows).sum();
+        System.out.println("Sync: " + okBatches + "/" + results.size() + " batches ok, "
+                + okRows + " rows synced, " + failedRows + " rows re-queued, " + merged + " writes coalesced.");
     }
-}
\ No newline at end of file
+}
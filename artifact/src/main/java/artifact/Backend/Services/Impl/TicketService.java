@@ -13,6 +13,8 @@ import artifact.Backend.Tags.BookingStatus;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.time.LocalDateTime;
+
 /**
  * Service implementation for managing Flight Tickets.
  * Handles fetching tickets for users/admins and processing payment confirmations.
@@ -73,20 +75,28 @@ public class TicketService implements ITicketService {
     /**
      * Confirms payment for a pending ticket.
      * <ol>
-     * <li>Updates the Reservation status to CONFIRMED.</li>
+     * <li>Updates the Reservation status to CONFIRMED, if it is still PENDING and not past its expiry
+     * time (the caller's copy may be stale, and an expired reservation's seat may already be resold).</li>
      * <li>Updates the Ticket status to CONFIRMED.</li>
      * <li>Sends a confirmation email to the user.</li>
      * </ol>
      *
      * @param ticket      The ticket being paid for.
      * @param reservation The linked reservation object.
-     * @return true if successful, false if an exception occurred.
+     * @return true if successful, false if the reservation can no longer be paid for or an exception occurred.
      */
     @Override
     public boolean confirmPayment(Ticket ticket, Reservation reservation) {
         try {
             // Update Database Statuses
-            reservationRepository.updateReservationStatus(reservation.id(), BookingStatus.CONFIRMED);
+            LocalDateTime now = LocalDateTime.now();
+            boolean confirmed = reservationRepository.updateReservationStatusIf(reservation.id(),
+                    r -> r.status() == BookingStatus.PENDING && (r.expiryTime() == null || r.expiryTime().isAfter(now)),
+                    BookingStatus.CONFIRMED);
+            if (!confirmed) {
+                System.err.println("Payment rejected: reservation " + reservation.id() + " is no longer pending.");
+                return false;
+            }
             ticketRepository.updateTicketStatus(ticket.id(), BookingStatus.CONFIRMED);
             
             // Send Notification
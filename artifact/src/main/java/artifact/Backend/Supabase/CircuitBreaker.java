@@ -0,0 +1,75 @@
+package artifact.Backend.Supabase;
+
+import artifact.Backend.Supabase.SyncScheduler.Circuit;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Failure counting, backoff and circuit state of the {@link SyncScheduler}, apart from its timers.
+ * <p>
+ * Every failed flush counts; after {@code threshold} failures in a row the circuit opens for
+ * {@code openMs}. The next flush is a probe: the circuit is half-open while it runs, closes if it
+ * succeeds and opens again right away if it fails. Until the threshold is reached failures are
+ * retried after an exponential backoff with jitter. Not thread-safe: the scheduler guards it.
+ * </p>
+ */
+final class CircuitBreaker {
+
+    private final int threshold;
+    private final long openMs;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+
+    private int failures;
+    private Circuit circuit = Circuit.CLOSED;
+
+    CircuitBreaker(int threshold, long openMs, long backoffBaseMs, long backoffMaxMs) {
+        this.threshold = threshold;
+        this.openMs = openMs;
+        this.backoffBaseMs = backoffBaseMs;
+        this.backoffMaxMs = backoffMaxMs;
+    }
+
+    /**
+     * A flush is starting; if the circuit was open, this flush is the probe.
+     */
+    void flushing() {
+        if (circuit == Circuit.OPEN) circuit = Circuit.HALF_OPEN;
+    }
+
+    /**
+     * @return true if the circuit was not closed, i.e. the connection is back.
+     */
+    boolean succeeded() {
+        boolean restored = circuit != Circuit.CLOSED;
+        failures = 0;
+        circuit = Circuit.CLOSED;
+        return restored;
+    }
+
+    /**
+     * @return Milliseconds to wait before the next flush.
+     */
+    long failed() {
+        failures++;
+        if (circuit == Circuit.HALF_OPEN || failures >= threshold) {
+            circuit = Circuit.OPEN;
+            return openMs;
+        }
+        return backoff(failures);
+    }
+
+    // "Equal jitter": half of the exponential step is fixed, the other half random
+    long backoff(int attempt) {
+        long step = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempt - 1, 30));
+        return step / 2 + ThreadLocalRandom.current().nextLong(step / 2 + 1);
+    }
+
+    int failures() {
+        return failures;
+    }
+
+    Circuit circuit() {
+        return circuit;
+    }
+}
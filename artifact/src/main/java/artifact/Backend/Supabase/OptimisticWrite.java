@@ -0,0 +1,215 @@
+package artifact.Backend.Supabase;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optimistic concurrency for rows that several terminals write at once (flights and support tickets).
+ * <p>
+ * Versioned rows carry a {@value #VERSION} column (bigint, default 0) and a {@value #WRITE_ID} column
+ * (text) naming the write that produced them. An update is sent as
+ * {@code PATCH ?id=eq.<id>&version=eq.<base>} with {@code version = base + 1}, where {@code base} is the
+ * version the local change was made on, so it only lands if nobody wrote the row in between. No lock
+ * is held anywhere; a stale write is simply rejected.
+ * </p>
+ * <p>
+ * A rejected write is merged into the current cloud row, three-way against the row it was based on,
+ * and retried against the new version (up to {@value #MAX_ATTEMPTS} times, then again on the next flush):
+ * </p>
+ * <ul>
+ *   <li>Counters ({@code flights.available_seats}) merge as deltas: the cloud value plus the local change,
+ *       so seats sold on two terminals are both counted.</li>
+ *   <li>Append-only lists ({@code support_tickets.messages}) merge as appends: the cloud list plus the
+ *       messages added locally.</li>
+ *   <li>Any other column keeps the local value if it was changed locally, otherwise the cloud value.</li>
+ * </ul>
+ * <p>
+ * If the cloud row already carries the write's own {@code write_id}, an earlier attempt landed but its
+ * response was lost, and the write counts as done instead of being applied twice. This only holds while
+ * that write is still the latest one on the row. A row missing from the cloud (never synced, e.g. seeded
+ * locally) is inserted, as the plain upsert used to do.
+ * </p>
+ */
+public final class OptimisticWrite {
+
+    public static final String VERSION = "version";
+    public static final String WRITE_ID = "write_id";
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private enum Merge { DELTA, APPEND }
+
+    // Columns merged by something other than "local change wins", per table
+    private static final Map<String, Map<String, Merge>> RULES = Map.of(
+            "/flights", Map.of("available_seats", Merge.DELTA),
+            "/support_tickets", Map.of("messages", Merge.APPEND));
+
+    private static final AtomicLong merges = new AtomicLong();
+
+    /**
+     * Result of a versioned write.
+     *
+     * @param committed Whether the write (possibly merged) is stored; if not, it should be retried later.
+     * @param row       The row as stored in the cloud when committed, otherwise null.
+     */
+    public record Outcome(boolean committed, JsonObject row) {}
+
+    private OptimisticWrite() {}
+
+    /**
+     * Whether a queued row belongs to a versioned table, i.e. its model has a version field.
+     */
+    public static boolean isVersioned(JsonElement row) {
+        return row != null && row.isJsonObject() && row.getAsJsonObject().has(VERSION);
+    }
+
+    public static long versionOf(JsonObject row) {
+        JsonElement version = row.get(VERSION);
+        return version == null || version.isJsonNull() ? 0 : version.getAsLong();
+    }
+
+    /**
+     * Copy of {@code row} carrying the version it will have once written, and the ID of the write.
+     */
+    public static JsonObject stamp(JsonObject row, long version, String writeId) {
+        JsonObject stamped = row.deepCopy();
+        stamped.addProperty(VERSION, version);
+        stamped.addProperty(WRITE_ID, writeId);
+        return stamped;
+    }
+
+    /**
+     * Whether {@code other} holds the same value as {@code row} in every column of {@code row},
+     * ignoring the version columns (e.g. to tell that a stored row is the one that was sent).
+     */
+    public static boolean sameContent(JsonObject row, JsonObject other) {
+        for (Map.Entry<String, JsonElement> column : row.entrySet()) {
+            String name = column.getKey();
+            if (name.equals(VERSION) || name.equals(WRITE_ID)) continue;
+            if (!column.getValue().equals(other.get(name))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Number of writes that were rejected as stale and merged since the app started.
+     */
+    public static long mergeCount() {
+        return merges.get();
+    }
+
+    /**
+     * Writes a local change to an existing row, merging and retrying if the row moved on in the cloud.
+     *
+     * @param base    The row the change was made on (its version is the one expected in the cloud).
+     * @param row     The changed row.
+     * @param writeId Identifies this write; the same ID must be used when it is retried.
+     * @return Never completes exceptionally.
+     */
+    public static CompletableFuture<Outcome> update(String table, long id, JsonObject base, JsonObject row, String writeId) {
+        return attempt(table, id, base, row, writeId, 1);
+    }
+
+    private static CompletableFuture<Outcome> attempt(String table, long id, JsonObject base, JsonObject row,
+                                                      String writeId, int attempt) {
+        long expected = versionOf(base);
+        JsonObject body = stamp(row, expected + 1, writeId);
+        return SupabaseSync.updateIfVersionAsync(table, id, expected, body).thenCompose(updated -> {
+            if (updated == null) return done(null);
+            if (!updated.isEmpty()) return done(updated.get(0).getAsJsonObject());
+
+            // Written by someone else since our base, or not in the cloud at all
+            return SupabaseSync.selectByIdAsync(table, id).thenCompose(current -> {
+                if (current == null) return done(null);
+                if (current.isEmpty()) {
+                    return SupabaseSync.insertBatchAsync(table, List.of(body)).thenCompose(inserted -> {
+                        if (inserted == null) return done(null);
+                        if (!inserted.isEmpty()) return done(inserted.get(0).getAsJsonObject());
+                        return retry(table, id, base, row, writeId, attempt); // Inserted elsewhere in between
+                    });
+                }
+                JsonObject cloud = current.get(0).getAsJsonObject();
+                JsonElement lastWrite = cloud.get(WRITE_ID);
+                if (lastWrite != null && !lastWrite.isJsonNull() && lastWrite.getAsString().equals(writeId)) {
+                    return done(cloud);
+                }
+                merges.incrementAndGet();
+                return retry(table, id, cloud, merge(table, base, row, cloud), writeId, attempt);
+            });
+        });
+    }
+
+    private static CompletableFuture<Outcome> retry(String table, long id, JsonObject base, JsonObject row,
+                                                    String writeId, int attempt) {
+        if (attempt >= MAX_ATTEMPTS) {
+            System.err.println("Sync: " + table + " " + id + " kept changing during " + attempt
+                    + " attempts, retrying on the next flush.");
+            return done(null);
+        }
+        return attempt(table, id, base, row, writeId, attempt + 1);
+    }
+
+    // A null row means the write did not go through
+    private static CompletableFuture<Outcome> done(JsonObject row) {
+        return CompletableFuture.completedFuture(new Outcome(row != null, row));
+    }
+
+    /**
+     * Three-way merge of a local change into the current cloud row, column by column (see the class comment).
+     *
+     * @param base  The row the local change was made on.
+     * @param local The changed row; the result has exactly its columns.
+     * @param cloud The row as it is now in the cloud.
+     */
+    static JsonObject merge(String table, JsonObject base, JsonObject local, JsonObject cloud) {
+        Map<String, Merge> rules = RULES.getOrDefault(table, Map.of());
+        JsonObject merged = new JsonObject();
+        for (Map.Entry<String, JsonElement> column : local.entrySet()) {
+            String name = column.getKey();
+            JsonElement mine = column.getValue();
+            JsonElement theirs = cloud.has(name) ? cloud.get(name) : mine;
+            JsonElement before = base.get(name);
+
+            JsonElement value;
+            if (mine.equals(before)) {
+                value = theirs; // Not changed locally
+            } else if (rules.get(name) == Merge.DELTA && isNumber(mine) && isNumber(before) && isNumber(theirs)) {
+                long sum = theirs.getAsLong() + mine.getAsLong() - before.getAsLong();
+                if (sum < 0) {
+                    System.err.println("Sync: " + name + " of " + table + " " + local.get("id")
+                            + " went negative (" + sum + ") after merging changes made on several terminals.");
+                }
+                value = new JsonPrimitive(sum);
+            } else if (rules.get(name) == Merge.APPEND && mine.isJsonArray() && theirs.isJsonArray()) {
+                value = appendMerge(before, mine.getAsJsonArray(), theirs.getAsJsonArray());
+            } else {
+                value = mine; // Changed locally: the local value wins
+            }
+            merged.add(name, value);
+        }
+        return merged;
+    }
+
+    // The cloud list plus whatever was appended locally since the base; the local list if it was not an append
+    private static JsonArray appendMerge(JsonElement before, JsonArray mine, JsonArray theirs) {
+        JsonArray base = before != null && before.isJsonArray() ? before.getAsJsonArray() : new JsonArray();
+        if (mine.size() < base.size()) return mine;
+        for (int i = 0; i < base.size(); i++) {
+            if (!base.get(i).equals(mine.get(i))) return mine;
+        }
+        JsonArray merged = theirs.deepCopy();
+        for (int i = base.size(); i < mine.size(); i++) merged.add(mine.get(i));
+        return merged;
+    }
+
+    private static boolean isNumber(JsonElement value) {
+        return value != null && value.isJsonPrimitive() && value.getAsJsonPrimitive().isNumber();
+    }
+}
@@ -0,0 +1,302 @@
+package artifact.Backend.Supabase;
+
+import artifact.Backend.Config.AppConfig;
+import artifact.Backend.Repositories.Interfaces.IRepository;
+import artifact.Backend.Supabase.StandIn.PostgrestStandIn;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change feed from Supabase Realtime: inserts, updates and deletes made by other terminals are
+ * pushed over one WebSocket and applied to the matching repositories as they happen, instead of
+ * re-downloading tables.
+ * <p>
+ * The client speaks the Phoenix channel protocol used by Realtime: one {@code phx_join} per table
+ * (topic {@code realtime:public:<table>}, subscribing to all {@code postgres_changes} of the table)
+ * and a heartbeat every 25 seconds. Every time a table's channel is (re)joined, the table is brought
+ * up to date with one delta pull ({@link IRepository#refreshFromCloud()}), which covers whatever
+ * happened while the socket was down. Tables without a watermark (never pulled, or without
+ * {@code updated_at}) are not pulled on join, since that would be a full download.
+ * </p>
+ * <p>
+ * Changes are applied on a single thread, in arrival order. Changes that arrive while the previous
+ * ones are being applied are coalesced per row (the last one wins) and applied as one batch per
+ * table. The socket URL is derived from {@code SUPABASE_URL} unless {@code SUPABASE_REALTIME_URL}
+ * is set (or the REST stand-in runs one, see {@code SUPABASE_STAND_IN}); after a disconnect the client reconnects with a jittered exponential backoff (1 s to 30 s).
+ * </p>
+ */
+public class RealtimeFeed {
+
+    private static final long HEARTBEAT_SECONDS = 25;
+    private static final long RECONNECT_BASE_MS = 1000;
+    private static final long RECONNECT_MAX_MS = 30000;
+
+    private final Map<String, IRepository<?>> repositories;
+    private final URI uri;
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "realtime-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Changes waiting to be applied, and whether a drain is already scheduled
+    private final ConcurrentLinkedQueue<Change> inbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final AtomicLong ref = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private volatile WebSocket socket;
+    private volatile boolean stopped;
+    private int attempts; // Reconnects since the last successful connect (timer thread only)
+
+    // One row change: row is null for deletes
+    private record Change(String table, long id, JsonObject row) {}
+
+    /**
+     * @param repositories Repositories to keep up to date, by Supabase table (e.g. {@code "/flights"}).
+     */
+    public RealtimeFeed(Map<String, IRepository<?>> repositories) {
+        this.repositories = new LinkedHashMap<>(repositories);
+        this.uri = socketUri();
+    }
+
+    private static URI socketUri() {
+        String configured = AppConfig.get("SUPABASE_REALTIME_URL", null);
+        if (configured != null) return URI.create(configured);
+        PostgrestStandIn standIn = SupabaseSync.standIn();
+        if (standIn != null && standIn.realtime() != null) return standIn.realtime().uri();
+        String base = SupabaseSync.url().replaceFirst("^http", "ws");
+        return URI.create(base + "/realtime/v1/websocket?apikey=" + SupabaseSync.apiKey() + "&vsn=1.0.0");
+    }
+
+    public void start() {
+        timer.execute(this::connect);
+        timer.scheduleAtFixedRate(this::heartbeat, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public void stop() {
+        stopped = true;
+        WebSocket current = socket;
+        if (current != null) current.sendClose(WebSocket.NORMAL_CLOSURE, "bye");
+        timer.shutdownNow();
+    }
+
+    /**
+     * Number of row changes applied since the feed started.
+     */
+    public long appliedCount() {
+        return applied.get();
+    }
+
+    public boolean isConnected() {
+        WebSocket current = socket;
+        return current != null && !current.isOutputClosed() && !current.isInputClosed();
+    }
+
+    // --- Connection ---
+
+    private void connect() {
+        if (stopped) return;
+        client.newWebSocketBuilder()
+                .buildAsync(uri, new Listener())
+                .whenComplete((ws, error) -> {
+                    if (error != null) {
+                        System.err.println("Realtime connection failed: " + error.getMessage());
+                        reconnectLater();
+                        return;
+                    }
+                    socket = ws;
+                    if (!stopped) timer.execute(() -> attempts = 0);
+                    for (String table : repositories.keySet()) join(ws, table);
+                });
+    }
+
+    private void reconnectLater() {
+        socket = null;
+        if (stopped) return;
+        timer.execute(() -> {
+            long step = Math.min(RECONNECT_MAX_MS, RECONNECT_BASE_MS << Math.min(attempts++, 16));
+            long delay = step / 2 + ThreadLocalRandom.current().nextLong(step / 2 + 1);
+            timer.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private void join(WebSocket ws, String table) {
+        JsonObject change = new JsonObject();
+        change.addProperty("event", "*");
+        change.addProperty("schema", "public");
+        change.addProperty("table", bareName(table));
+        JsonArray changes = new JsonArray();
+        changes.add(change);
+        JsonObject config = new JsonObject();
+        config.add("postgres_changes", changes);
+        JsonObject payload = new JsonObject();
+        payload.add("config", config);
+        send(ws, topicOf(table), "phx_join", payload);
+    }
+
+    private void heartbeat() {
+        WebSocket current = socket;
+        if (current != null) send(current, "phoenix", "heartbeat", new JsonObject());
+    }
+
+    private void send(WebSocket ws, String topic, String event, JsonObject payload) {
+        JsonObject message = new JsonObject();
+        message.addProperty("topic", topic);
+        message.addProperty("event", event);
+        message.add("payload", payload);
+        message.addProperty("ref", String.valueOf(ref.incrementAndGet()));
+        // The JDK socket allows one outstanding send at a time
+        synchronized (ws) {
+            try {
+                ws.sendText(message.toString(), true).join();
+            } catch (RuntimeException e) {
+                // The listener sees the broken socket and reconnects
+                System.err.println("Realtime send failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static String bareName(String table) {
+        return table.startsWith("/") ? table.substring(1) : table;
+    }
+
+    private static String topicOf(String table) {
+        return "realtime:public:" + bareName(table);
+    }
+
+    private String tableOfTopic(String topic) {
+        for (String table : repositories.keySet()) {
+            if (topicOf(table).equals(topic)) return table;
+        }
+        return null;
+    }
+
+    // --- Incoming messages ---
+
+    private final class Listener implements WebSocket.Listener {
+        private final StringBuilder partial = new StringBuilder();
+
+        @Override
+        public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                String text = partial.toString();
+                partial.setLength(0);
+                try {
+                    handle(JsonParser.parseString(text).getAsJsonObject());
+                } catch (RuntimeException e) {
+                    System.err.println("Skipping malformed realtime message: " + e.getMessage());
+                }
+            }
+            ws.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket ws, int statusCode, String reason) {
+            if (!stopped) System.err.println("Realtime connection closed (" + statusCode + "), reconnecting.");
+            reconnectLater();
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket ws, Throwable error) {
+            if (!stopped) System.err.println("Realtime connection error: " + error.getMessage());
+            reconnectLater();
+        }
+    }
+
+    private void handle(JsonObject message) {
+        if (!message.has("event") || !message.has("topic")) return;
+        String event = message.get("event").getAsString();
+        JsonObject payload = message.has("payload") && message.get("payload").isJsonObject()
+                ? message.getAsJsonObject("payload") : new JsonObject();
+        String table = tableOfTopic(message.get("topic").getAsString());
+        if (table == null) return;
+
+        if ("phx_reply".equals(event)) {
+            // A joined channel only sees changes from now on: catch up on what was missed, off the socket thread
+            boolean ok = payload.has("status") && "ok".equals(payload.get("status").getAsString());
+            if (ok && isJoinReply(payload) && SyncWatermarks.get(table) != null) {
+                CompletableFuture.runAsync(() -> repositories.get(table).refreshFromCloud());
+            }
+        } else if ("postgres_changes".equals(event) && payload.has("data")) {
+            Change change = toChange(table, payload.getAsJsonObject("data"));
+            if (change != null) {
+                inbox.add(change);
+                if (draining.compareAndSet(false, true)) CompletableFuture.runAsync(this::drain);
+            }
+        } else if ("phx_error".equals(event)) {
+            System.err.println("Realtime channel error on " + table + ": " + payload);
+        }
+    }
+
+    private static boolean isJoinReply(JsonObject payload) {
+        return payload.has("response") && payload.get("response").isJsonObject()
+                && payload.getAsJsonObject("response").has("postgres_changes");
+    }
+
+    private static Change toChange(String table, JsonObject data) {
+        String type = data.has("type") ? data.get("type").getAsString() : "";
+        boolean delete = "DELETE".equals(type);
+        JsonElement row = data.get(delete ? "old_record" : "record");
+        if (row == null || !row.isJsonObject()) return null;
+        JsonElement id = row.getAsJsonObject().get("id");
+        if (id == null || id.isJsonNull()) return null;
+        return new Change(table, id.getAsLong(), delete ? null : row.getAsJsonObject());
+    }
+
+    // Applies everything in the inbox, one batch per table; runs on one thread at a time
+    private void drain() {
+        while (true) {
+            Map<String, LinkedHashMap<Long, Change>> byTable = new LinkedHashMap<>();
+            Change change;
+            while ((change = inbox.poll()) != null) {
+                byTable.computeIfAbsent(change.table(), t -> new LinkedHashMap<>()).put(change.id(), change);
+            }
+            for (Map.Entry<String, LinkedHashMap<Long, Change>> entry : byTable.entrySet()) {
+                apply(entry.getKey(), entry.getValue().values());
+            }
+
+            draining.set(false);
+            // A change that arrived after the last poll but before the flag was cleared must not be stranded
+            if (inbox.isEmpty() || !draining.compareAndSet(false, true)) return;
+        }
+    }
+
+    private void apply(String table, Iterable<Change> changes) {
+        List<JsonObject> rows = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        for (Change change : changes) {
+            if (change.row() == null) deleted.add(change.id());
+            else rows.add(change.row());
+        }
+        try {
+            repositories.get(table).applyCloudChanges(rows, deleted);
+            applied.addAndGet(rows.size() + deleted.size());
+        } catch (RuntimeException e) {
+            System.err.println("Error applying realtime changes to " + table + ": " + e.getMessage());
+        }
+    }
+}
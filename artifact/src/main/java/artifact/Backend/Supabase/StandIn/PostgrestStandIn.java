@@ -0,0 +1,642 @@
+package artifact.Backend.Supabase.StandIn;
+
+import artifact.Backend.Config.AppConfig;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the Supabase REST API (PostgREST), for measuring and testing sync
+ * without a Supabase project.
+ * <p>
+ * Tables live in memory, keyed by {@code id}, and are created on first use. It understands the
+ * subset of PostgREST that {@code SupabaseSync} sends:
+ * </p>
+ * <ul>
+ *   <li>{@code GET} with {@code select} (a column list or {@code *}), filters ({@code eq}, {@code neq},
+ *       {@code gt}, {@code gte}, {@code lt}, {@code lte}, {@code in.(...)}, {@code is.null}),
+ *       {@code or=(...)} / {@code and=(...)} over those filters, {@code order}, {@code limit} and {@code offset}.</li>
+ *   <li>{@code POST} of one row or an array, as a plain insert (a duplicate ID is a 409 and nothing
+ *       is written) or with {@code Prefer: resolution=merge-duplicates} / {@code ignore-duplicates}.</li>
+ *   <li>{@code PATCH} and {@code DELETE} of the rows matching the filters (e.g. {@code id=eq.5&version=eq.2}).</li>
+ *   <li>{@code Prefer: return=representation} (the written rows) or {@code return=minimal}.</li>
+ * </ul>
+ * <p>
+ * It also does what the project's triggers do: every write stamps {@code updated_at}, and every
+ * delete adds a row to {@code sync_tombstones}, so delta pulls work as they do against the cloud.
+ * Writes are applied one at a time, and a request's rows are applied all together or not at all.
+ * </p>
+ * <p>
+ * For load tests each request can be delayed (a fixed latency plus random jitter) and made to fail:
+ * either before it is applied (an outage) or after (a lost response, for testing retries).
+ * A terminal uses it when {@code SUPABASE_STAND_IN} is set, see {@link #fromConfig()}.
+ * </p>
+ */
+public class PostgrestStandIn implements Closeable {
+
+    /** Key sent by clients of the stand-in; any key is accepted. */
+    public static final String API_KEY = "stand-in";
+
+    private static final String BASE_PATH = "/rest/v1/";
+    private static final String TOMBSTONES = "sync_tombstones";
+
+    // Same shape as Postgres timestamptz output, fixed width so values also sort as text
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSxxx");
+
+    private final HttpServer server;
+    private final ExecutorService workers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "postgrest-stand-in");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Table (without the leading '/') -> rows by ID; guarded by the map itself
+    private final Map<String, TreeMap<Long, JsonObject>> tables = new HashMap<>();
+    private long lastStamp; // Microseconds of the last updated_at handed out
+
+    private volatile RealtimeStandIn realtime;
+    private volatile long latencyMs;
+    private volatile long jitterMs;
+    private volatile double errorRate;
+    private volatile double lostResponseRate;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedFailures = new AtomicLong();
+
+    // A request that cannot be answered with rows: HTTP status and PostgREST-style error body
+    private static final class RequestError extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+        final String code;
+
+        RequestError(int status, String code, String message) {
+            super(message);
+            this.status = status;
+            this.code = code;
+        }
+    }
+
+    /**
+     * Starts listening on localhost.
+     * @param port TCP port, or 0 for any free port.
+     */
+    public PostgrestStandIn(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(workers);
+        server.createContext(BASE_PATH, this::serve);
+        server.start();
+    }
+
+    /**
+     * Starts a stand-in as configured, or returns null if {@code SUPABASE_STAND_IN} is not set.
+     * <ul>
+     *   <li>{@code SUPABASE_STAND_IN}: port to listen on (0 for any free port).</li>
+     *   <li>{@code SUPABASE_STAND_IN_LATENCY_MS} / {@code SUPABASE_STAND_IN_JITTER_MS}: delay of every request.</li>
+     *   <li>{@code SUPABASE_STAND_IN_ERROR_PERCENT}: requests that fail with 503 without being applied.</li>
+     *   <li>{@code SUPABASE_STAND_IN_LOST_PERCENT}: writes that are applied but answered with 503.</li>
+     * </ul>
+     * Unless {@code SUPABASE_REALTIME=false}, a {@link RealtimeStandIn} is started alongside and fed
+     * with every change.
+     */
+    public static PostgrestStandIn fromConfig() {
+        String port = AppConfig.get("SUPABASE_STAND_IN", null);
+        if (port == null) return null;
+        try {
+            PostgrestStandIn standIn = new PostgrestStandIn(AppConfig.getInt("SUPABASE_STAND_IN", 0));
+            standIn.setLatency(AppConfig.getInt("SUPABASE_STAND_IN_LATENCY_MS", 0),
+                    AppConfig.getInt("SUPABASE_STAND_IN_JITTER_MS", 0));
+            standIn.setErrorRate(AppConfig.getInt("SUPABASE_STAND_IN_ERROR_PERCENT", 0) / 100.0);
+            standIn.setLostResponseRate(AppConfig.getInt("SUPABASE_STAND_IN_LOST_PERCENT", 0) / 100.0);
+            if (Boolean.parseBoolean(AppConfig.get("SUPABASE_REALTIME", "true"))) {
+                standIn.attach(new RealtimeStandIn(0));
+            }
+            System.out.println("Using the Supabase stand-in at " + standIn.url());
+            return standIn;
+        } catch (IOException e) {
+            System.err.println("Could not start the Supabase stand-in on port " + port + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Base URL to use as {@code SUPABASE_URL}. */
+    public String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /** The realtime stand-in fed by this server, or null. */
+    public RealtimeStandIn realtime() {
+        return realtime;
+    }
+
+    /** Publishes every change made through this server to {@code feed}. */
+    public void attach(RealtimeStandIn feed) {
+        this.realtime = feed;
+    }
+
+    /** Delays every request by {@code latencyMs} plus a random 0..{@code jitterMs}. */
+    public void setLatency(long latencyMs, long jitterMs) {
+        this.latencyMs = Math.max(0, latencyMs);
+        this.jitterMs = Math.max(0, jitterMs);
+    }
+
+    /** Share of requests (0..1) that fail with 503 without being applied. */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /** Share of writes (0..1) that are applied but answered with 503, as if the response was lost. */
+    public void setLostResponseRate(double lostResponseRate) {
+        this.lostResponseRate = lostResponseRate;
+    }
+
+    public long requestCount() {
+        return requests.get();
+    }
+
+    public long injectedFailureCount() {
+        return injectedFailures.get();
+    }
+
+    /** Copy of the rows of {@code table} (without the leading '/'), by ID. */
+    public List<JsonObject> rows(String table) {
+        synchronized (tables) {
+            List<JsonObject> copy = new ArrayList<>();
+            for (JsonObject row : table(bareName(table)).values()) copy.add(row.deepCopy());
+            return copy;
+        }
+    }
+
+    /** Stores {@code row} as it is (no {@code updated_at}, no realtime event), e.g. to seed a table. */
+    public void put(String table, JsonObject row) {
+        synchronized (tables) {
+            table(bareName(table)).put(row.get("id").getAsLong(), row.deepCopy());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.stop(0);
+        workers.shutdownNow();
+        RealtimeStandIn feed = realtime;
+        if (feed != null) feed.close();
+    }
+
+    // --- Requests ---
+
+    private void serve(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            delay();
+            String method = exchange.getRequestMethod();
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                injectedFailures.incrementAndGet();
+                reply(exchange, 503, error("PGRST000", "Stand-in: injected failure"));
+                return;
+            }
+
+            String table = bareName(exchange.getRequestURI().getRawPath().substring(BASE_PATH.length()));
+            Map<String, List<String>> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String prefer = exchange.getRequestHeaders().getFirst("Prefer");
+            prefer = prefer == null ? "" : prefer;
+            JsonElement body = null;
+            if (method.equals("POST") || method.equals("PATCH")) {
+                String text = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                body = text.isBlank() ? null : JsonParser.parseString(text);
+            }
+
+            JsonArray rows;
+            try {
+                rows = switch (method) {
+                    case "GET" -> select(table, query);
+                    case "POST" -> insert(table, body, prefer);
+                    case "PATCH" -> patch(table, query, body);
+                    case "DELETE" -> delete(table, query);
+                    default -> throw new RequestError(405, "PGRST117", "Unsupported method " + method);
+                };
+            } catch (RequestError e) {
+                reply(exchange, e.status, error(e.code, e.getMessage()));
+                return;
+            }
+
+            if (!method.equals("GET") && ThreadLocalRandom.current().nextDouble() < lostResponseRate) {
+                injectedFailures.incrementAndGet();
+                reply(exchange, 503, error("PGRST000", "Stand-in: injected failure after the write"));
+            } else if (method.equals("GET")) {
+                reply(exchange, 200, rows.toString());
+            } else if (prefer.contains("return=representation")) {
+                reply(exchange, method.equals("POST") ? 201 : 200, rows.toString());
+            } else {
+                reply(exchange, method.equals("POST") ? 201 : 204, null);
+            }
+        } catch (RuntimeException e) {
+            // Malformed JSON or values: PostgREST answers 400
+            reply(exchange, 400, error("PGRST102", String.valueOf(e.getMessage())));
+        }
+    }
+
+    private void delay() {
+        long jitter = jitterMs;
+        long millis = latencyMs + (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0);
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String error(String code, String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("code", code);
+        error.addProperty("message", message);
+        error.add("details", JsonNull.INSTANCE);
+        error.add("hint", JsonNull.INSTANCE);
+        return error.toString();
+    }
+
+    // A parameter may repeat (e.g. id=gte.5&id=lt.9): every value is kept, and all of them must match
+    private static Map<String, List<String>> parseQuery(String raw) {
+        Map<String, List<String>> query = new LinkedHashMap<>();
+        if (raw == null || raw.isEmpty()) return query;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            query.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+        }
+        return query;
+    }
+
+    // --- Operations (each holds the table lock for its whole request) ---
+
+    private JsonArray select(String table, Map<String, List<String>> query) throws RequestError {
+        List<JsonObject> matches;
+        synchronized (tables) {
+            matches = matching(table, query);
+            matches.replaceAll(JsonObject::deepCopy);
+        }
+        String order = param(query, "order");
+        if (order != null) matches.sort(ordering(order));
+
+        int offset = intParam(query, "offset", 0);
+        int limit = intParam(query, "limit", Integer.MAX_VALUE);
+        List<String> columns = columnsOf(param(query, "select"));
+        JsonArray result = new JsonArray();
+        for (int i = offset; i < matches.size() && result.size() < limit; i++) {
+            result.add(project(matches.get(i), columns));
+        }
+        return result;
+    }
+
+    private JsonArray insert(String table, JsonElement body, String prefer) throws RequestError {
+        if (body == null || !(body.isJsonObject() || body.isJsonArray())) {
+            throw new RequestError(400, "PGRST102", "Expected a row or an array of rows");
+        }
+        JsonArray input = body.isJsonArray() ? body.getAsJsonArray() : new JsonArray();
+        if (body.isJsonObject()) input.add(body);
+        boolean merge = prefer.contains("resolution=merge-duplicates");
+        boolean ignore = prefer.contains("resolution=ignore-duplicates");
+
+        JsonArray written = new JsonArray();
+        List<JsonObject> inserted = new ArrayList<>();
+        List<JsonObject> updated = new ArrayList<>();
+        synchronized (tables) {
+            TreeMap<Long, JsonObject> rows = table(table);
+            // Checked first so that a failing request writes nothing
+            if (!merge && !ignore) {
+                for (JsonElement element : input) {
+                    JsonElement id = element.getAsJsonObject().get("id");
+                    if (id != null && !id.isJsonNull() && rows.containsKey(id.getAsLong())) {
+                        throw new RequestError(409, "23505", "duplicate key value violates unique constraint \""
+                                + table + "_pkey\" (id=" + id + ")");
+                    }
+                }
+            }
+            String stamp = nextStamp();
+            for (JsonElement element : input) {
+                JsonObject row = element.getAsJsonObject().deepCopy();
+                JsonElement id = row.get("id");
+                if (id == null || id.isJsonNull()) {
+                    row.addProperty("id", rows.isEmpty() ? 1 : rows.lastKey() + 1);
+                }
+                long key = row.get("id").getAsLong();
+                JsonObject existing = rows.get(key);
+                if (existing != null && ignore) continue;
+
+                JsonObject stored = existing == null ? row : existing;
+                if (existing != null) {
+                    for (Map.Entry<String, JsonElement> column : row.entrySet()) stored.add(column.getKey(), column.getValue());
+                }
+                stampRow(table, stored, stamp);
+                rows.put(key, stored);
+                (existing == null ? inserted : updated).add(stored.deepCopy());
+                written.add(stored.deepCopy());
+            }
+        }
+        publish(table, inserted, updated, List.of());
+        return written;
+    }
+
+    private JsonArray patch(String table, Map<String, List<String>> query, JsonElement body) throws RequestError {
+        if (body == null || !body.isJsonObject()) throw new RequestError(400, "PGRST102", "Expected one row");
+        JsonArray written = new JsonArray();
+        List<JsonObject> updated = new ArrayList<>();
+        synchronized (tables) {
+            String stamp = nextStamp();
+            for (JsonObject row : matching(table, query)) {
+                for (Map.Entry<String, JsonElement> column : body.getAsJsonObject().entrySet()) {
+                    if (!column.getKey().equals("id")) row.add(column.getKey(), column.getValue().deepCopy());
+                }
+                stampRow(table, row, stamp);
+                updated.add(row.deepCopy());
+                written.add(row.deepCopy());
+            }
+        }
+        publish(table, List.of(), updated, List.of());
+        return written;
+    }
+
+    private JsonArray delete(String table, Map<String, List<String>> query) throws RequestError {
+        JsonArray removed = new JsonArray();
+        List<Long> ids = new ArrayList<>();
+        synchronized (tables) {
+            TreeMap<Long, JsonObject> rows = table(table);
+            String stamp = nextStamp();
+            for (JsonObject row : matching(table, query)) {
+                long id = row.get("id").getAsLong();
+                rows.remove(id);
+                ids.add(id);
+                removed.add(row);
+                if (!table.equals(TOMBSTONES)) tombstone(table, id, stamp);
+            }
+        }
+        publish(table, List.of(), List.of(), ids);
+        return removed;
+    }
+
+    // Caller holds the table lock
+    private TreeMap<Long, JsonObject> table(String table) {
+        return tables.computeIfAbsent(table, name -> new TreeMap<>());
+    }
+
+    // Live rows of the table matching every filter of the query; caller holds the table lock
+    private List<JsonObject> matching(String table, Map<String, List<String>> query) throws RequestError {
+        List<JsonObject> matches = new ArrayList<>();
+        outer:
+        for (JsonObject row : table(table).values()) {
+            for (Map.Entry<String, List<String>> param : query.entrySet()) {
+                String name = param.getKey();
+                if (isReserved(name)) continue;
+                for (String filter : param.getValue()) {
+                    boolean match = name.equals("or") || name.equals("and")
+                            ? testTree(row, name.equals("or"), filter)
+                            : test(row.get(name), filter);
+                    if (!match) continue outer;
+                }
+            }
+            matches.add(row);
+        }
+        return matches;
+    }
+
+    private static boolean isReserved(String param) {
+        return switch (param) {
+            case "select", "order", "limit", "offset", "on_conflict", "columns" -> true;
+            default -> false;
+        };
+    }
+
+    // What the project's triggers do on every write; caller holds the table lock
+    private void stampRow(String table, JsonObject row, String stamp) {
+        if (!table.equals(TOMBSTONES)) row.addProperty("updated_at", stamp);
+    }
+
+    private void tombstone(String table, long id, String stamp) {
+        TreeMap<Long, JsonObject> tombstones = table(TOMBSTONES);
+        JsonObject row = new JsonObject();
+        long next = tombstones.isEmpty() ? 1 : tombstones.lastKey() + 1;
+        row.addProperty("id", next);
+        row.addProperty("table_name", table);
+        row.addProperty("row_id", id);
+        row.addProperty("deleted_at", stamp);
+        tombstones.put(next, row);
+    }
+
+    // Strictly increasing, so rows written later always sort after the watermark of earlier ones
+    private String nextStamp() {
+        long now = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+        lastStamp = Math.max(now, lastStamp + 1);
+        Instant instant = Instant.EPOCH.plus(lastStamp, ChronoUnit.MICROS);
+        return TIMESTAMP.format(instant.atOffset(ZoneOffset.UTC));
+    }
+
+    private void publish(String table, List<JsonObject> inserted, List<JsonObject> updated, List<Long> deleted) {
+        RealtimeStandIn feed = realtime;
+        if (feed == null || table.equals(TOMBSTONES)) return;
+        for (JsonObject row : inserted) feed.insert(table, row);
+        for (JsonObject row : updated) feed.update(table, row);
+        for (long id : deleted) feed.delete(table, id);
+    }
+
+    // --- Filters, ordering and projection ---
+
+    private static boolean test(JsonElement value, String filter) throws RequestError {
+        int dot = filter.indexOf('.');
+        if (dot < 0) throw new RequestError(400, "PGRST100", "Unsupported filter " + filter);
+        String operator = filter.substring(0, dot);
+        String operand = filter.substring(dot + 1);
+        boolean isNull = value == null || value.isJsonNull();
+
+        switch (operator) {
+            case "is":
+                if (operand.equals("null")) return isNull;
+                if (operand.equals("true") || operand.equals("false")) return !isNull && value.getAsString().equals(operand);
+                throw new RequestError(400, "PGRST100", "Unsupported filter " + filter);
+            case "in":
+                if (!operand.startsWith("(") || !operand.endsWith(")")) {
+                    throw new RequestError(400, "PGRST100", "Unsupported filter " + filter);
+                }
+                if (isNull) return false;
+                for (String candidate : operand.substring(1, operand.length() - 1).split(",")) {
+                    if (compare(value, unquote(candidate.trim())) == 0) return true;
+                }
+                return false;
+            case "eq":
+                return !isNull && compare(value, operand) == 0;
+            case "neq":
+                return !isNull && compare(value, operand) != 0;
+            case "gt":
+                return !isNull && compare(value, operand) > 0;
+            case "gte":
+                return !isNull && compare(value, operand) >= 0;
+            case "lt":
+                return !isNull && compare(value, operand) < 0;
+            case "lte":
+                return !isNull && compare(value, operand) <= 0;
+            default:
+                throw new RequestError(400, "PGRST100", "Unsupported operator " + operator);
+        }
+    }
+
+    // A logic tree such as "(updated_at.gt.X,and(updated_at.eq.X,id.gt.5))"
+    private static boolean testTree(JsonObject row, boolean any, String tree) throws RequestError {
+        if (!tree.startsWith("(") || !tree.endsWith(")")) throw new RequestError(400, "PGRST100", "Unsupported logic tree " + tree);
+        for (String term : splitTerms(tree.substring(1, tree.length() - 1))) {
+            boolean match;
+            if (term.startsWith("or(") || term.startsWith("and(")) {
+                boolean or = term.startsWith("or(");
+                match = testTree(row, or, term.substring(or ? 2 : 3));
+            } else {
+                int dot = term.indexOf('.');
+                if (dot < 0) throw new RequestError(400, "PGRST100", "Unsupported filter " + term);
+                String filter = term.substring(dot + 1);
+                int op = filter.indexOf('.');
+                if (op >= 0 && !filter.startsWith("in.")) filter = filter.substring(0, op + 1) + unquote(filter.substring(op + 1));
+                match = test(row.get(term.substring(0, dot)), filter);
+            }
+            if (match == any) return any;
+        }
+        return !any;
+    }
+
+    // Splits on the commas that are neither inside parentheses nor inside quotes
+    private static List<String> splitTerms(String terms) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < terms.length(); i++) {
+            char c = terms.charAt(i);
+            if (c == '"') quoted = !quoted;
+            else if (!quoted && c == '(') depth++;
+            else if (!quoted && c == ')') depth--;
+            else if (!quoted && depth == 0 && c == ',') {
+                parts.add(terms.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        parts.add(terms.substring(start).trim());
+        return parts;
+    }
+
+    private static String unquote(String value) {
+        return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"") ? value.substring(1, value.length() - 1) : value;
+    }
+
+    // Numbers compare as numbers and timestamps as instants, like the typed columns they stand for
+    private static int compare(JsonElement value, String operand) {
+        if (value.isJsonPrimitive() && value.getAsJsonPrimitive().isNumber()) {
+            try {
+                return value.getAsBigDecimal().compareTo(new BigDecimal(operand));
+            } catch (NumberFormatException e) {
+                // Not a number after all: compare as text
+            }
+        }
+        String text = value.isJsonPrimitive() ? value.getAsString() : value.toString();
+        try {
+            return OffsetDateTime.parse(text).toInstant().compareTo(OffsetDateTime.parse(operand).toInstant());
+        } catch (DateTimeParseException e) {
+            return text.compareTo(operand);
+        }
+    }
+
+    private static int compareValues(JsonElement a, JsonElement b) {
+        boolean aNull = a == null || a.isJsonNull();
+        boolean bNull = b == null || b.isJsonNull();
+        if (aNull || bNull) return Boolean.compare(aNull, bNull); // Nulls last, as in Postgres
+        return compare(a, b.isJsonPrimitive() ? b.getAsString() : b.toString());
+    }
+
+    private static Comparator<JsonObject> ordering(String order) {
+        Comparator<JsonObject> comparator = (a, b) -> 0;
+        for (String term : order.split(",")) {
+            String[] parts = term.trim().split("\\.");
+            String column = parts[0];
+            boolean descending = parts.length > 1 && parts[1].toLowerCase(Locale.ROOT).equals("desc");
+            Comparator<JsonObject> byColumn = (a, b) -> compareValues(a.get(column), b.get(column));
+            comparator = comparator.thenComparing(descending ? byColumn.reversed() : byColumn);
+        }
+        return comparator;
+    }
+
+    // Null means all columns
+    private static List<String> columnsOf(String select) {
+        if (select == null || select.isBlank() || select.trim().equals("*")) return null;
+        List<String> columns = new ArrayList<>();
+        for (String column : select.split(",")) columns.add(column.trim());
+        return columns;
+    }
+
+    private static JsonObject project(JsonObject row, List<String> columns) {
+        if (columns == null) return row;
+        JsonObject projected = new JsonObject();
+        for (String column : columns) projected.add(column, row.has(column) ? row.get(column) : JsonNull.INSTANCE);
+        return projected;
+    }
+
+    // First value of a parameter, or null
+    private static String param(Map<String, List<String>> query, String name) {
+        List<String> values = query.get(name);
+        return values == null ? null : values.get(0);
+    }
+
+    private static int intParam(Map<String, List<String>> query, String name, int defaultValue) throws RequestError {
+        String value = param(query, name);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new RequestError(400, "PGRST100", "Invalid " + name + ": " + value);
+        }
+    }
+
+    private static String bareName(String table) {
+        while (table.startsWith("/")) table = table.substring(1);
+        return table;
+    }
+}
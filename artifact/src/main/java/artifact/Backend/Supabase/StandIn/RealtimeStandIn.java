@@ -0,0 +1,331 @@
+package artifact.Backend.Supabase.StandIn;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for Supabase Realtime, for running several terminals (or a benchmark)
+ * against the change feed without a Supabase project.
+ * <p>
+ * It is a minimal WebSocket server (RFC 6455 handshake, text/ping/close frames) that understands
+ * the subset of the Phoenix channel protocol used by {@code RealtimeFeed}: {@code phx_join} with a
+ * {@code postgres_changes} config, {@code phx_leave} and heartbeats. Row changes are published
+ * with {@link #insert}, {@link #update} and {@link #delete} and delivered to every connection that
+ * joined the table, in the same message format as the real service.
+ * </p>
+ * <p>
+ * Point a terminal at it with {@code SUPABASE_REALTIME_URL} (see {@link #uri()}), or attach it to a
+ * {@link PostgrestStandIn} to have every write made through that server published here.
+ * </p>
+ */
+public class RealtimeStandIn implements Closeable {
+
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private final ServerSocket server;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong subscriptionIds = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Starts listening on localhost.
+     * @param port TCP port, or 0 for any free port.
+     */
+    public RealtimeStandIn(int port) throws IOException {
+        server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "realtime-stand-in");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public URI uri() {
+        return URI.create("ws://localhost:" + server.getLocalPort() + "/realtime/v1/websocket?vsn=1.0.0");
+    }
+
+    /** Number of open connections subscribed to {@code table} (without the leading '/'). */
+    public int subscribers(String table) {
+        return (int) connections.stream().filter(c -> c.topics.containsValue(table)).count();
+    }
+
+    public void insert(String table, JsonObject record) {
+        publish(table, "INSERT", record, new JsonObject());
+    }
+
+    public void update(String table, JsonObject record) {
+        JsonObject old = new JsonObject();
+        old.add("id", record.get("id"));
+        publish(table, "UPDATE", record, old);
+    }
+
+    public void delete(String table, long id) {
+        JsonObject old = new JsonObject();
+        old.addProperty("id", id);
+        publish(table, "DELETE", new JsonObject(), old);
+    }
+
+    /**
+     * Drops every connection without a close handshake, as a network failure would.
+     */
+    public void disconnectAll() {
+        for (Connection connection : connections) connection.close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        disconnectAll();
+    }
+
+    private void publish(String table, String type, JsonObject record, JsonObject oldRecord) {
+        String bare = table.startsWith("/") ? table.substring(1) : table;
+        JsonObject data = new JsonObject();
+        data.addProperty("schema", "public");
+        data.addProperty("table", bare);
+        data.addProperty("commit_timestamp", OffsetDateTime.now(ZoneOffset.UTC).toString());
+        data.addProperty("type", type);
+        data.add("record", record);
+        data.add("old_record", oldRecord);
+        data.add("errors", JsonNull.INSTANCE);
+
+        for (Connection connection : connections) {
+            for (Map.Entry<String, String> subscription : connection.topics.entrySet()) {
+                if (!subscription.getValue().equals(bare)) continue;
+                JsonObject payload = new JsonObject();
+                payload.add("data", data);
+                payload.add("ids", new JsonArray());
+                connection.send(message(subscription.getKey(), "postgres_changes", payload, JsonNull.INSTANCE));
+            }
+        }
+    }
+
+    private static JsonObject message(String topic, String event, JsonObject payload, JsonElement ref) {
+        JsonObject message = new JsonObject();
+        message.addProperty("topic", topic);
+        message.addProperty("event", event);
+        message.add("payload", payload);
+        message.add("ref", ref);
+        return message;
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                Thread reader = new Thread(() -> serve(socket), "realtime-stand-in-connection");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                if (!closed) System.err.println("Realtime stand-in accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        Connection connection = null;
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            OutputStream out = socket.getOutputStream();
+            if (!handshake(in, out)) {
+                socket.close();
+                return;
+            }
+            connection = new Connection(socket, new BufferedOutputStream(out));
+            connections.add(connection);
+
+            ByteArrayOutputStream message = new ByteArrayOutputStream();
+            while (true) {
+                int first = in.read();
+                if (first < 0) break;
+                boolean fin = (first & 0x80) != 0;
+                int opcode = first & 0x0F;
+                byte[] payload = readPayload(in);
+
+                if (opcode == 0x8) {
+                    connection.frame(0x8, payload);
+                    break;
+                } else if (opcode == 0x9) {
+                    connection.frame(0xA, payload);
+                } else if (opcode == 0x1 || opcode == 0x0) {
+                    message.write(payload);
+                    if (fin) {
+                        onMessage(connection, message.toString(StandardCharsets.UTF_8));
+                        message.reset();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // Connection dropped
+        } finally {
+            if (connection != null) {
+                connections.remove(connection);
+                connection.close();
+            }
+        }
+    }
+
+    // Reads the HTTP upgrade request and answers it; false if it is not a WebSocket handshake
+    private static boolean handshake(DataInputStream in, OutputStream out) throws IOException {
+        String key = null;
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Key")) {
+                key = line.substring(colon + 1).trim();
+            }
+        }
+        if (key == null) {
+            out.write("HTTP/1.1 400 Bad Request\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            return false;
+        }
+        String response = "HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + acceptKey(key) + "\r\n\r\n";
+        out.write(response.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return true;
+    }
+
+    private static String acceptKey(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            return Base64.getEncoder().encodeToString(sha1.digest((key + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String readLine(DataInputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) >= 0) {
+            if (b == '\n') return line.toString();
+            if (b != '\r') line.append((char) b);
+        }
+        return line.isEmpty() ? null : line.toString();
+    }
+
+    // Client frames are always masked
+    private static byte[] readPayload(DataInputStream in) throws IOException {
+        int second = in.readUnsignedByte();
+        boolean masked = (second & 0x80) != 0;
+        long length = second & 0x7F;
+        if (length == 126) length = in.readUnsignedShort();
+        else if (length == 127) length = in.readLong();
+        if (length > Integer.MAX_VALUE) throw new IOException("Frame too large");
+
+        byte[] mask = new byte[4];
+        if (masked) in.readFully(mask);
+        byte[] payload = new byte[(int) length];
+        in.readFully(payload);
+        if (masked) {
+            for (int i = 0; i < payload.length; i++) payload[i] ^= mask[i & 3];
+        }
+        return payload;
+    }
+
+    private void onMessage(Connection connection, String text) {
+        JsonObject message;
+        try {
+            message = JsonParser.parseString(text).getAsJsonObject();
+        } catch (RuntimeException e) {
+            return;
+        }
+        String topic = message.get("topic").getAsString();
+        String event = message.get("event").getAsString();
+        JsonElement ref = message.get("ref");
+        JsonObject payload = message.has("payload") ? message.getAsJsonObject("payload") : new JsonObject();
+        JsonObject response = new JsonObject();
+
+        if ("phx_join".equals(event)) {
+            JsonArray changes = payload.getAsJsonObject("config").getAsJsonArray("postgres_changes");
+            JsonArray subscribed = new JsonArray();
+            for (JsonElement change : changes) {
+                JsonObject subscription = change.getAsJsonObject().deepCopy();
+                subscription.addProperty("id", subscriptionIds.incrementAndGet());
+                subscribed.add(subscription);
+                connection.topics.put(topic, change.getAsJsonObject().get("table").getAsString());
+            }
+            response.add("postgres_changes", subscribed);
+        } else if ("phx_leave".equals(event)) {
+            connection.topics.remove(topic);
+        } else if (!"heartbeat".equals(event)) {
+            return;
+        }
+
+        JsonObject reply = new JsonObject();
+        reply.addProperty("status", "ok");
+        reply.add("response", response);
+        connection.send(message(topic, "phx_reply", reply, ref));
+    }
+
+    private static final class Connection {
+        private final Socket socket;
+        private final OutputStream out;
+        private final Map<String, String> topics = new ConcurrentHashMap<>(); // Topic -> table
+
+        Connection(Socket socket, OutputStream out) {
+            this.socket = socket;
+            this.out = out;
+        }
+
+        void send(JsonObject message) {
+            try {
+                frame(0x1, message.toString().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        // Server frames are never masked
+        synchronized void frame(int opcode, byte[] payload) throws IOException {
+            out.write(0x80 | opcode);
+            if (payload.length < 126) {
+                out.write(payload.length);
+            } else if (payload.length < 65536) {
+                out.write(126);
+                out.write(payload.length >>> 8);
+                out.write(payload.length & 0xFF);
+            } else {
+                out.write(127);
+                for (int shift = 56; shift >= 0; shift -= 8) out.write((int) ((long) payload.length >>> shift) & 0xFF);
+            }
+            out.write(payload);
+            out.flush();
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
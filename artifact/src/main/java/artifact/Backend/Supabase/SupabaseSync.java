@@ -1,17 +1,27 @@
 package artifact.Backend.Supabase;
 
+import artifact.Backend.Config.AppConfig;
+import artifact.Backend.Supabase.StandIn.PostgrestStandIn;
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import io.github.cdimascio.dotenv.Dotenv;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
 /**
  * Handles communication with the Supabase Backend via REST API.
  * <p>
@@ -22,11 +32,22 @@ import io.github.cdimascio.dotenv.Dotenv;
 public class SupabaseSync {
 
 
-    private static final Dotenv dotenv = Dotenv.load();
-    private static final String SUPABASE_URL = dotenv.get("SUPABASE_URL");
-    private static final String API_KEY = dotenv.get("SUPABASE_API_KEY");    private static final String BASE_PATH = "/rest/v1/"; 
+    // The project from .env (or -D properties), or an in-process stand-in when SUPABASE_STAND_IN is set
+    private static final PostgrestStandIn STAND_IN = PostgrestStandIn.fromConfig();
+    private static final String SUPABASE_URL = STAND_IN != null ? STAND_IN.url() : AppConfig.get("SUPABASE_URL", null);
+    private static final String API_KEY = STAND_IN != null ? PostgrestStandIn.API_KEY : AppConfig.get("SUPABASE_API_KEY", null);
+    private static final String BASE_PATH = "/rest/v1/";
     
-    private static final HttpClient client = HttpClient.newHttpClient();
+    // Rows per page for streamed selects (PostgREST deployments often cap responses at 1000 rows)
+    private static final int PAGE_SIZE = AppConfig.getInt("SUPABASE_PAGE_SIZE", 1000);
+
+    // Written by a delete trigger on every synced table: (table_name, row_id, deleted_at)
+    public static final String TOMBSTONE_TABLE = "/sync_tombstones";
+
+    // HTTP/2 lets concurrent requests share one connection (falls back to HTTP/1.1 if the server lacks it)
+    private static final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .build();
 
     private static final Gson gson = new GsonBuilder()
             .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
@@ -34,27 +55,178 @@ public class SupabaseSync {
             .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES) 
             .create();
 
+    // PostgREST requires every object of a bulk insert to have the same keys, so nulls are written out
+    private static final Gson bulkGson = gson.newBuilder().serializeNulls().create();
+
+    // Connection settings, shared with the realtime feed
+    static String url() {
+        return SUPABASE_URL;
+    }
+
+    static String apiKey() {
+        return API_KEY;
+    }
+
+    /**
+     * The stand-in this process talks to instead of Supabase (see {@code SUPABASE_STAND_IN}), or null.
+     */
+    public static PostgrestStandIn standIn() {
+        return STAND_IN;
+    }
+
+    /**
+     * Converts a model object into the JSON row sent to Supabase (snake_case columns, nulls included).
+     * Queued rows are stored in this form so they can be persisted and replayed without their Java type.
+     */
+    public static JsonElement toRow(Object rowObject) {
+        return bulkGson.toJsonTree(rowObject);
+    }
+
     // 1. READ (Select)
     // Overload to support Generic Types passed from Repositories
     public static <T> List<T> selectAll(String tableName, Type listType) {
+        Type elementType = ((ParameterizedType) listType).getActualTypeArguments()[0];
+        List<T> rows = new ArrayList<>();
+        if (!streamAll(tableName, row -> rows.add(fromRow(row, elementType)))) {
+            return new ArrayList<>();
+        }
+        return rows;
+    }
+
+    /**
+     * Streams every row of the table into {@code sink}, page by page in primary-key order.
+     *
+     * @return false if a page could not be fetched (the sink may already have seen earlier rows).
+     */
+    public static boolean streamAll(String tableName, Consumer<JsonObject> sink) {
+        return streamRows(tableName, "?select=*", "id.asc", last -> "&id=gt." + last.get("id").getAsLong(), sink);
+    }
+
+    /**
+     * Streams the rows of a PostgREST query into {@code sink} one at a time.
+     * <p>
+     * The result is fetched in pages of {@code SUPABASE_PAGE_SIZE} rows, and each response body is
+     * parsed straight from the socket with a {@link JsonReader}, so neither the response text nor the
+     * full array is ever held in memory. Pages are chained by key rather than by offset: each page
+     * asks for the rows after the last row of the previous one, so a row written or deleted while the
+     * pull runs cannot shift another row across a page boundary and out of the result.
+     * </p>
+     *
+     * @param query Query string starting with '?' (select and filters), without order or limit.
+     * @param order Order clause; it must be unique per row, i.e. end with {@code id}.
+     * @param after Filter for the rows after the given row in that order, starting with '&'.
+     * @return false if a page could not be fetched (the sink may already have seen earlier rows).
+     */
+    public static boolean streamRows(String tableName, String query, String order,
+                                     Function<JsonObject, String> after, Consumer<JsonObject> sink) {
+        String page = query;
+        while (true) {
+            JsonObject[] last = new JsonObject[1];
+            int count = streamPage(tableName + page + "&order=" + order + "&limit=" + PAGE_SIZE, row -> {
+                last[0] = row;
+                sink.accept(row);
+            });
+            if (count < 0) return false;
+            if (count < PAGE_SIZE) return true;
+            page = query + after.apply(last[0]);
+        }
+    }
+
+    // Returns the number of rows passed to the sink, or -1 on failure
+    private static int streamPage(String path, Consumer<JsonObject> sink) {
         try {
             HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(SUPABASE_URL + BASE_PATH + tableName + "?select=*"))
+                    .uri(URI.create(SUPABASE_URL + BASE_PATH + path))
+                    .header("apikey", API_KEY)
+                    .header("Authorization", "Bearer " + API_KEY)
+                    .GET()
+                    .build();
+
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != 200) {
+                    System.err.println("Supabase select failed: " + response.statusCode() + " "
+                            + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                    return -1;
+                }
+                JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+                int count = 0;
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    sink.accept(JsonParser.parseReader(reader).getAsJsonObject());
+                    count++;
+                }
+                reader.endArray();
+                return count;
+            }
+        } catch (Exception e) {
+            System.err.println("Supabase select exception: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Maps a raw row onto a model object.
+     */
+    public static <T> T fromRow(JsonElement row, Type elementType) {
+        return gson.fromJson(row, elementType);
+    }
+
+    // 1b. READ (raw rows)
+    /**
+     * Runs a PostgREST query and returns the raw JSON rows, including columns the models do not map
+     * (such as {@code updated_at}).
+     *
+     * @param query Query string starting with '?', e.g. {@code "?select=*"}.
+     * @return The rows, or null if the request failed (so callers can tell "no rows" from "no answer").
+     */
+    public static JsonArray selectRows(String tableName, String query) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(SUPABASE_URL + BASE_PATH + tableName + query))
                     .header("apikey", API_KEY)
                     .header("Authorization", "Bearer " + API_KEY)
                     .GET()
                     .build();
 
             HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            
             if (response.statusCode() == 200) {
-                // Use the Type directly for deserialization
-                return gson.fromJson(response.body(), listType);
+                return JsonParser.parseString(response.body()).getAsJsonArray();
             }
+            System.err.println("Supabase select failed: " + response.statusCode() + " " + response.body());
         } catch (Exception e) {
             System.err.println("Supabase select exception: " + e.getMessage());
         }
-        return new ArrayList<>();
+        return null;
+    }
+
+    /**
+     * Streams the rows of {@code tableName} changed at or after {@code since} (server time), oldest first.
+     * Requires an {@code updated_at} column maintained by the database.
+     *
+     * @return false if a page could not be fetched.
+     */
+    public static boolean streamChangedSince(String tableName, String since, Consumer<JsonObject> sink) {
+        return streamRows(tableName, "?select=*&updated_at=gte." + encode(since), "updated_at.asc,id.asc", last -> {
+            // Rows after (updated_at, id) of the last row; timestamps are quoted for their '.' and ':'
+            String at = "\"" + last.get("updated_at").getAsString() + "\"";
+            long id = last.get("id").getAsLong();
+            return "&or=" + encode("(updated_at.gt." + at + ",and(updated_at.eq." + at + ",id.gt." + id + "))");
+        }, sink);
+    }
+
+    /**
+     * Tombstones ({@code row_id}, {@code deleted_at}) of rows of {@code tableName} deleted at or after
+     * {@code since}. Requires a {@value #TOMBSTONE_TABLE} table filled by a delete trigger.
+     */
+    public static JsonArray selectTombstonesSince(String tableName, String since) {
+        String table = tableName.startsWith("/") ? tableName.substring(1) : tableName;
+        return selectRows(TOMBSTONE_TABLE, "?select=row_id,deleted_at&table_name=eq." + encode(table)
+                + "&deleted_at=gte." + encode(since) + "&order=deleted_at.asc");
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
     }
 
     // 2. CREATE (Upsert - Insert or Update if ID exists)
@@ -77,6 +249,169 @@ public class SupabaseSync {
         }
     }
 
+    // 2b. BULK UPSERT (one request for many rows of the same table)
+    /**
+     * Upserts several rows with a single POST of a JSON array.
+     *
+     * @return true if the server answered with a 2xx status.
+     */
+    public static boolean upsertBatch(String tableName, List<?> rows) {
+        return upsertBatchAsync(tableName, rows).join();
+    }
+
+    /**
+     * Non-blocking variant of {@link #upsertBatch}. Requests share the HTTP/2 connection,
+     * so several batches can be in flight at once.
+     *
+     * @return Completes with true if the server answered with a 2xx status; never completes exceptionally.
+     */
+    public static CompletableFuture<Boolean> upsertBatchAsync(String tableName, List<?> rows) {
+        if (rows.isEmpty()) return CompletableFuture.completedFuture(true);
+        try {
+            String json = bulkGson.toJson(rows);
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(SUPABASE_URL + BASE_PATH + tableName))
+                    .header("Content-Type", "application/json")
+                    .header("apikey", API_KEY)
+                    .header("Authorization", "Bearer " + API_KEY)
+                    .header("Prefer", "resolution=merge-duplicates,return=minimal")
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build();
+
+            return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .thenApply(response -> {
+                        if (response.statusCode() / 100 == 2) return true;
+                        System.err.println("Supabase bulk upsert failed: " + response.statusCode() + " " + response.body());
+                        return false;
+                    })
+                    .exceptionally(e -> {
+                        System.err.println("Supabase bulk upsert failed: " + e.getMessage());
+                        return false;
+                    });
+        }
+        catch (Exception e) {
+            System.err.println("Supabase bulk upsert failed: " + e.getMessage());
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    // 2c. BULK DELETE (one request for many rows of the same table)
+    /**
+     * Deletes several rows by primary key with a single {@code DELETE ?id=in.(...)} request.
+     * Rows that are already gone are not an error, so a replayed delete is harmless.
+     *
+     * @return Completes with true if the server answered with a 2xx status; never completes exceptionally.
+     */
+    public static CompletableFuture<Boolean> deleteBatchAsync(String tableName, List<Long> ids) {
+        if (ids.isEmpty()) return CompletableFuture.completedFuture(true);
+        try {
+            StringBuilder in = new StringBuilder("?id=in.(");
+            for (int i = 0; i < ids.size(); i++) {
+                if (i > 0) in.append(',');
+                in.append(ids.get(i));
+            }
+            in.append(')');
+
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(SUPABASE_URL + BASE_PATH + tableName + in))
+                    .header("apikey", API_KEY)
+                    .header("Authorization", "Bearer " + API_KEY)
+                    .header("Prefer", "return=minimal")
+                    .DELETE()
+                    .build();
+
+            return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .thenApply(response -> {
+                        if (response.statusCode() / 100 == 2) return true;
+                        System.err.println("Supabase bulk delete failed: " + response.statusCode() + " " + response.body());
+                        return false;
+                    })
+                    .exceptionally(e -> {
+                        System.err.println("Supabase bulk delete failed: " + e.getMessage());
+                        return false;
+                    });
+        }
+        catch (Exception e) {
+            System.err.println("Supabase bulk delete failed: " + e.getMessage());
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    // 2d. VERSIONED WRITES (optimistic concurrency, see OptimisticWrite)
+    /**
+     * Inserts several rows with one POST, skipping rows whose ID already exists instead of
+     * overwriting them, so a replayed insert never clobbers later writes.
+     *
+     * @return Completes with the rows actually inserted, or null if the request failed; never completes exceptionally.
+     */
+    public static CompletableFuture<JsonArray> insertBatchAsync(String tableName, List<? extends JsonElement> rows) {
+        if (rows.isEmpty()) return CompletableFuture.completedFuture(new JsonArray());
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(SUPABASE_URL + BASE_PATH + tableName))
+                .header("Content-Type", "application/json")
+                .header("apikey", API_KEY)
+                .header("Authorization", "Bearer " + API_KEY)
+                .header("Prefer", "resolution=ignore-duplicates,return=representation")
+                .POST(HttpRequest.BodyPublishers.ofString(bulkGson.toJson(rows)))
+                .build();
+        return sendForRows(request, "insert");
+    }
+
+    /**
+     * Updates a row only if it is still at {@code expectedVersion} ({@code PATCH ?id=eq.&version=eq.}).
+     *
+     * @return Completes with the updated row (one element), an empty array if the row was at another
+     *         version or is gone, or null if the request failed; never completes exceptionally.
+     */
+    public static CompletableFuture<JsonArray> updateIfVersionAsync(String tableName, long id, long expectedVersion, JsonObject row) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(SUPABASE_URL + BASE_PATH + tableName + "?id=eq." + id + "&version=eq." + expectedVersion))
+                .header("Content-Type", "application/json")
+                .header("apikey", API_KEY)
+                .header("Authorization", "Bearer " + API_KEY)
+                .header("Prefer", "return=representation")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(bulkGson.toJson(row)))
+                .build();
+        return sendForRows(request, "conditional update");
+    }
+
+    /**
+     * Non-blocking read of one row by primary key.
+     *
+     * @return Completes with the row (one element) or an empty array if it does not exist, or null if the request failed.
+     */
+    public static CompletableFuture<JsonArray> selectByIdAsync(String tableName, long id) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(SUPABASE_URL + BASE_PATH + tableName + "?select=*&id=eq." + id))
+                .header("apikey", API_KEY)
+                .header("Authorization", "Bearer " + API_KEY)
+                .GET()
+                .build();
+        return sendForRows(request, "select");
+    }
+
+    // Sends a request answered with a JSON array of rows; null on any failure
+    private static CompletableFuture<JsonArray> sendForRows(HttpRequest request, String what) {
+        try {
+            return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .thenApply(response -> {
+                        if (response.statusCode() / 100 == 2) {
+                            return response.body().isBlank() ? new JsonArray() : JsonParser.parseString(response.body()).getAsJsonArray();
+                        }
+                        System.err.println("Supabase " + what + " failed: " + response.statusCode() + " " + response.body());
+                        return (JsonArray) null;
+                    })
+                    .exceptionally(e -> {
+                        System.err.println("Supabase " + what + " failed: " + e.getMessage());
+                        return null;
+                    });
+        }
+        catch (Exception e) {
+            System.err.println("Supabase " + what + " failed: " + e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
     // 3. UPDATE (Patch - Modify specific record by ID)
     public static <T> void update(String tableName, long id, T rowObject) {
         try {
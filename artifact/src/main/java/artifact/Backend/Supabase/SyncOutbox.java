@@ -0,0 +1,225 @@
+package artifact.Backend.Supabase;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import artifact.Backend.Repositories.Storage.PersistenceWriter;
+import artifact.Backend.Repositories.Storage.SnapshotFile;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Durable, append-only outbox for row upserts and deletes waiting to be pushed to Supabase.
+ * <p>
+ * Every queued row gets a sequence number and is appended to the outbox file as one JSON line
+ * when it is handed to the sync queue. Lines are group-committed by the {@link PersistenceWriter}:
+ * {@link #append} returns at once, and the line is synced to disk with the others of its group a
+ * moment later, so a crash in that window loses it. Callers that must not lose a row wait for
+ * {@link Appended#written()}. Once Supabase has confirmed a batch with a 2xx response, an acknowledgement line
+ * listing its sequence numbers is appended. On startup, {@link #recover()} returns every entry
+ * that was never acknowledged, in sequence order; delivery is therefore at-least-once.
+ * </p>
+ * <p>
+ * When every entry is acknowledged the file is truncated. If acknowledgements pile up while
+ * some old entries keep failing, the file is rewritten with only the unacknowledged entries.
+ * </p>
+ */
+public class SyncOutbox {
+
+    private static final int REWRITE_THRESHOLD = 1000;
+
+    /**
+     * What a queued entry does to its row.
+     */
+    public enum Op { UPSERT, DELETE }
+
+    /**
+     * A queued row.
+     *
+     * @param seq   Monotonic sequence number assigned by the outbox.
+     * @param table Target table.
+     * @param op    Whether the row is upserted or deleted.
+     * @param row   Row payload, already in Supabase column naming; just {@code {"id": ...}} for a delete.
+     * @param base  For updates of versioned rows, the row the change was made on (see {@link OptimisticWrite}); else null.
+     * @param writeId For versioned rows, the ID stamped on the write so a replay is recognized; else null.
+     */
+    public record Entry(long seq, String table, Op op, JsonElement row, JsonElement base, String writeId) {}
+
+    /**
+     * An entry handed to the writer.
+     *
+     * @param entry   The entry with its assigned sequence number.
+     * @param written Completes once its line is synced to disk (exceptionally if the write failed).
+     */
+    public record Appended(Entry entry, CompletableFuture<Void> written) {}
+
+    // One line of the file: either an entry (seq/table/op/row/base/writeId) or an acknowledgement (ack).
+    // Lines written before deletes were queued have no op and are upserts; older lines have no base.
+    private record Line(Long seq, String table, Op op, JsonElement row, JsonElement base, String writeId, List<Long> ack) {}
+
+    private final Path path;
+    private final Gson gson = new Gson();
+    private final Map<Long, Entry> unacked = new LinkedHashMap<>();
+    private Writer writer;
+    private FileChannel channel;
+    private long nextSeq = 1;
+    private int ackedSinceRewrite;
+
+    // Lines are group-committed by the shared persistence writer
+    private final PersistenceWriter.Target target = this::writeAndSync;
+
+    public SyncOutbox(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Loads the outbox file and returns the entries that still need to be sent.
+     */
+    public synchronized List<Entry> recover() {
+        unacked.clear();
+        if (Files.exists(path)) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String text;
+                while ((text = reader.readLine()) != null) {
+                    if (text.isBlank()) continue;
+                    try {
+                        Line line = gson.fromJson(text, Line.class);
+                        if (line.ack() != null) {
+                            line.ack().forEach(unacked::remove);
+                        } else if (line.seq() != null) {
+                            Op op = line.op() == null ? Op.UPSERT : line.op();
+                            unacked.put(line.seq(), new Entry(line.seq(), line.table(), op, line.row(), line.base(), line.writeId()));
+                            nextSeq = Math.max(nextSeq, line.seq() + 1);
+                        }
+                    } catch (JsonParseException e) {
+                        // Only the last line can be torn (crash mid-append)
+                        System.err.println("Skipping damaged outbox line: " + e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Error reading sync outbox " + path + ": " + e.getMessage());
+            }
+        }
+        // Start from a clean file holding just the live entries
+        rewrite();
+        return new ArrayList<>(unacked.values());
+    }
+
+    /**
+     * Records a row to be sent. Its line is queued for the next group commit.
+     * @return The entry with its assigned sequence number, and when it is on disk.
+     */
+    public synchronized Appended append(String table, Op op, JsonElement row, JsonElement base, String writeId) {
+        Entry entry = new Entry(nextSeq++, table, op, row, base, writeId);
+        CompletableFuture<Void> written = writeLine(new Line(entry.seq(), table, op, row, base, writeId, null));
+        unacked.put(entry.seq(), entry);
+        return new Appended(entry, written);
+    }
+
+    /**
+     * Marks entries as delivered; they will not be replayed after a restart.
+     */
+    public synchronized void ack(Collection<Long> seqs) {
+        if (seqs.isEmpty()) return;
+        Set<Long> known = new HashSet<>(seqs);
+        known.retainAll(unacked.keySet());
+        if (known.isEmpty()) return;
+
+        unacked.keySet().removeAll(known);
+        ackedSinceRewrite += known.size();
+        if (unacked.isEmpty() || ackedSinceRewrite >= REWRITE_THRESHOLD) {
+            rewrite();
+        } else {
+            writeLine(new Line(null, null, null, null, null, null, new ArrayList<>(known)));
+        }
+    }
+
+    public synchronized int size() {
+        return unacked.size();
+    }
+
+    private CompletableFuture<Void> writeLine(Line line) {
+        return PersistenceWriter.append(target, gson.toJson(line));
+    }
+
+    private synchronized void writeAndSync(List<String> lines) throws IOException {
+        try {
+            if (writer == null) {
+                Files.createDirectories(path.getParent());
+                FileOutputStream out = new FileOutputStream(path.toFile(), true);
+                channel = out.getChannel();
+                writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            }
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+            writer.flush();
+            channel.force(false);
+        } catch (IOException e) {
+            System.err.println("Error writing sync outbox " + path + ": " + e.getMessage());
+            throw e;
+        }
+    }
+
+    // Replaces the file with only the unacknowledged entries (empty when everything was delivered).
+    // Queued behind the lines already handed to the writer, so none of them is appended after the new file.
+    private void rewrite() {
+        List<String> live = new ArrayList<>();
+        for (Entry e : unacked.values()) {
+            live.add(gson.toJson(new Line(e.seq(), e.table(), e.op(), e.row(), e.base(), e.writeId(), null)));
+        }
+        ackedSinceRewrite = 0;
+        PersistenceWriter.run(target, () -> replaceFile(live));
+    }
+
+    private synchronized void replaceFile(List<String> live) throws IOException {
+        try {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+                channel = null;
+            }
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            // Synced before the rename, so a crash never leaves a short file in place of the old one
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                Writer text = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(out), StandardCharsets.UTF_8));
+                for (String line : live) {
+                    text.write(line);
+                    text.write('\n');
+                }
+                text.flush();
+                out.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            SnapshotFile.syncDirectory(parent);
+        } catch (IOException e) {
+            System.err.println("Error compacting sync outbox " + path + ": " + e.getMessage());
+            throw e;
+        }
+    }
+}
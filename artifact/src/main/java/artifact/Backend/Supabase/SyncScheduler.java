@@ -2,28 +2,137 @@ package artifact.Backend.Supabase;
 
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import artifact.Backend.Config.AppConfig;
 import artifact.Backend.Services.Impl.SyncService;
 
+/**
+ * Demand-driven flushing of the sync queue.
+ * <p>
+ * Nothing runs while the queue is empty. The first queued row arms a timer of
+ * {@code SYNC_MAX_DELAY_MS} (default 5000), so no row waits longer than that; once
+ * {@code SYNC_FLUSH_SIZE} rows (default 100) are waiting, the queue is flushed right away.
+ * Only one flush is in flight at a time.
+ * </p>
+ * <p>
+ * A failed flush is retried after an exponential backoff with jitter, from
+ * {@code SYNC_BACKOFF_BASE_MS} (default 1000) up to {@code SYNC_BACKOFF_MAX_MS} (default 60000);
+ * new rows do not cut the wait short. After {@code SYNC_CIRCUIT_THRESHOLD} failures in a row
+ * (default 5) the circuit opens: nothing is sent for {@code SYNC_CIRCUIT_OPEN_MS} (default 30000),
+ * then a single probe flush decides whether it closes again. Rows keep piling up in the durable
+ * outbox meanwhile, so an outage costs no data.
+ * </p>
+ */
 public class SyncScheduler {
 
+    public enum Circuit { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Health of the sync pipeline, for dashboards and logs.
+     *
+     * @param queueDepth          Rows waiting to be sent.
+     * @param lagMillis           Age of the oldest unsent row (0 when the queue is empty).
+     * @param consecutiveFailures Failed flushes since the last successful one.
+     * @param circuit             State of the circuit breaker.
+     * @param flushes             Flushes started since the app started.
+     * @param failedFlushes       Flushes with at least one failed batch.
+     * @param lastSuccessAt       Wall-clock time of the last fully successful flush (0 if none yet).
+     * @param mergedWrites        Writes rejected as stale by the cloud and merged (see {@link OptimisticWrite}).
+     */
+    public record Metrics(int queueDepth, long lagMillis, int consecutiveFailures, Circuit circuit,
+                          long flushes, long failedFlushes, long lastSuccessAt, long mergedWrites) {}
+
+    private static final int FLUSH_SIZE = AppConfig.getInt("SYNC_FLUSH_SIZE", 100);
+    private static final long MAX_DELAY_MS = AppConfig.getInt("SYNC_MAX_DELAY_MS", 5000);
+    private static final long CIRCUIT_OPEN_MS = AppConfig.getInt("SYNC_CIRCUIT_OPEN_MS", 30000);
+
     private static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
 
-    public static void start() {
+    // All state below is guarded by SyncScheduler.class
+    private static boolean started;
+    private static ScheduledFuture<?> next;
+    private static long nextAt;
+    private static boolean inFlight;
+    private static final CircuitBreaker breaker = new CircuitBreaker(
+            AppConfig.getInt("SYNC_CIRCUIT_THRESHOLD", 5), CIRCUIT_OPEN_MS,
+            AppConfig.getInt("SYNC_BACKOFF_BASE_MS", 1000), AppConfig.getInt("SYNC_BACKOFF_MAX_MS", 60000));
+    private static long flushes;
+    private static long failedFlushes;
+    private static long lastSuccessAt;
+
+    public static synchronized void start() {
+        if (started) return;
+        started = true;
         // A hook to shutdown the scheduler when the JVM exits
         Runtime.getRuntime().addShutdownHook(new Thread(SyncScheduler::stop));
 
-        scheduler.scheduleAtFixedRate(() -> {
-            try {
-                // Ensure SyncService exists or handle the null case if not yet implemented
-                if (SyncService.class != null) {
-                    SyncService.syncAll();
-                }
-            } catch (Exception e) {
-                System.err.println("Error during sync: " + e.getMessage());
-            }
-        }, 0, 5, TimeUnit.SECONDS);
+        // Rows replayed from the outbox go out right away
+        if (SyncService.pendingCount() > 0) schedule(0);
+    }
+
+    /**
+     * Called by {@link SyncService} whenever a row is queued.
+     *
+     * @param depth Rows waiting after this one was added.
+     */
+    public static synchronized void onQueued(int depth) {
+        if (!started || inFlight || breaker.failures() > 0) return; // A flush or retry is already due
+        long delay = depth >= FLUSH_SIZE ? 0 : MAX_DELAY_MS;
+        if (next == null || System.currentTimeMillis() + delay < nextAt) schedule(delay);
+    }
+
+    public static synchronized Metrics metrics() {
+        return new Metrics(SyncService.pendingCount(), SyncService.lagMillis(), breaker.failures(), breaker.circuit(),
+                flushes, failedFlushes, lastSuccessAt, OptimisticWrite.mergeCount());
+    }
+
+    // Replaces any pending timer with one that fires after delayMs
+    private static void schedule(long delayMs) {
+        if (scheduler.isShutdown()) return;
+        if (next != null) next.cancel(false);
+        nextAt = System.currentTimeMillis() + delayMs;
+        next = scheduler.schedule(SyncScheduler::flush, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static void flush() {
+        synchronized (SyncScheduler.class) {
+            next = null;
+            if (inFlight) return;
+            breaker.flushing();
+            inFlight = true;
+            flushes++;
+        }
+        try {
+            SyncService.syncAllAsync().whenComplete((results, error) -> {
+                if (error != null) System.err.println("Error during sync: " + error.getMessage());
+                completed(error == null && results.stream().allMatch(SyncService.BatchResult::success));
+            });
+        } catch (Exception e) {
+            System.err.println("Error during sync: " + e.getMessage());
+            completed(false);
+        }
+    }
+
+    private static synchronized void completed(boolean ok) {
+        inFlight = false;
+        if (ok) {
+            if (breaker.succeeded()) System.out.println("Sync: connection restored, circuit closed.");
+            lastSuccessAt = System.currentTimeMillis();
+            // Whatever was queued during the flush: send now if it already fills a batch, else arm the timer
+            int depth = SyncService.pendingCount();
+            if (depth > 0) schedule(depth >= FLUSH_SIZE ? 0 : MAX_DELAY_MS);
+            return;
+        }
+
+        failedFlushes++;
+        long delay = breaker.failed();
+        if (breaker.circuit() == Circuit.OPEN) {
+            System.err.println("Sync: " + breaker.failures() + " failed flushes in a row, pausing for "
+                    + CIRCUIT_OPEN_MS + " ms (" + SyncService.pendingCount() + " row(s) waiting).");
+        }
+        schedule(delay);
     }
 
     public static void stop() {
@@ -38,4 +147,4 @@ public class SyncScheduler {
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,128 @@
+package artifact.Backend.Supabase;
+
+import artifact.Backend.Config.AppConfig;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Properties;
+
+/**
+ * Remembers, per Supabase table, the newest server timestamp seen by the last pull.
+ * <p>
+ * The watermark is always a value that came from the server ({@code updated_at} of a row or
+ * {@code deleted_at} of a tombstone), never the local clock, so clock skew between this machine
+ * and the database cannot make a delta pull skip rows. Watermarks are kept in
+ * {@code data/sync_watermarks.properties} so the first refresh after a restart is a delta too.
+ * </p>
+ */
+public final class SyncWatermarks {
+
+    // SYNC_WATERMARKS moves the file, e.g. to keep a test run away from the real watermarks
+    private static final Path FILE = Paths.get(AppConfig.get("SYNC_WATERMARKS", "src/main/resources/data/sync_watermarks.properties"));
+    private static final Properties values = load();
+
+    private SyncWatermarks() {}
+
+    /**
+     * @return The watermark of the table, or null if it was never pulled (or the table has no timestamps).
+     */
+    public static synchronized String get(String tableName) {
+        return values.getProperty(tableName);
+    }
+
+    /**
+     * Moves the watermark of the table forward to {@code candidate} if that is newer. Never moves it back.
+     */
+    public static synchronized void advance(String tableName, String candidate) {
+        if (candidate == null) return;
+        String current = values.getProperty(tableName);
+        if (current != null && !isAfter(candidate, current)) return;
+        values.setProperty(tableName, candidate);
+        store();
+    }
+
+    /**
+     * Drops the watermark, so the next refresh of the table downloads it in full.
+     */
+    public static synchronized void clear(String tableName) {
+        if (values.remove(tableName) != null) store();
+    }
+
+    /**
+     * Newest value of {@code column} among the rows, or null if no row carries it.
+     */
+    public static String latest(JsonArray rows, String column) {
+        Tracker tracker = new Tracker(column);
+        for (JsonElement element : rows) {
+            if (element.isJsonObject()) tracker.observe((JsonObject) element);
+        }
+        return tracker.latest();
+    }
+
+    /**
+     * Keeps the newest value of a timestamp column while rows stream past, without holding the rows.
+     */
+    public static final class Tracker {
+        private final String column;
+        private String latest;
+
+        public Tracker(String column) {
+            this.column = column;
+        }
+
+        public void observe(JsonObject row) {
+            JsonElement value = row.get(column);
+            if (value == null || value.isJsonNull()) return;
+            String stamp = value.getAsString();
+            if (latest == null || isAfter(stamp, latest)) latest = stamp;
+        }
+
+        /**
+         * @return The newest value seen, or null if no row carried the column.
+         */
+        public String latest() {
+            return latest;
+        }
+    }
+
+    // Postgres timestamps vary in fractional digits, so they are compared as instants, not as strings
+    private static boolean isAfter(String a, String b) {
+        try {
+            return OffsetDateTime.parse(a).isAfter(OffsetDateTime.parse(b));
+        } catch (DateTimeParseException e) {
+            return a.compareTo(b) > 0;
+        }
+    }
+
+    private static Properties load() {
+        Properties properties = new Properties();
+        if (Files.exists(FILE)) {
+            try (Reader reader = Files.newBufferedReader(FILE)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                System.err.println("Error loading sync watermarks: " + e.getMessage());
+            }
+        }
+        return properties;
+    }
+
+    private static void store() {
+        try {
+            Files.createDirectories(FILE.getParent());
+            try (Writer writer = Files.newBufferedWriter(FILE)) {
+                values.store(writer, "Last pulled server timestamp per Supabase table");
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving sync watermarks: " + e.getMessage());
+        }
+    }
+}
@@ -2,5 +2,6 @@ package artifact.Backend.Tags;
 
 public enum StorageMode {
     JSON,       // Use local JSON files
-    DATABASE,   // Use Supabase or another database
+    BINARY,     // Use local binary snapshots (see BinarySnapshot); JSON stays the import/export format
+    DATABASE,   // Use the embedded H2 database (see BaseJdbcRepository); JSON is imported on first start
 }
@@ -2,12 +2,36 @@ package artifact.GUI;
 
 import artifact.Backend.View;
 import artifact.Backend.Controller.NavigationService;
+import artifact.Backend.Repositories.Impl.RepositoryProvider;
+import artifact.Backend.Repositories.Storage.Database;
+import artifact.Backend.Repositories.Storage.PersistenceWriter;
+import artifact.Backend.Services.Impl.BookingArchiveService;
+import artifact.Backend.Services.Impl.ReservationExpiryService;
+import artifact.Backend.Config.AppConfig;
+import artifact.Backend.Supabase.RealtimeFeed;
 import artifact.Backend.Supabase.SyncScheduler; // <--- Import this instead
 import javafx.application.Application;
 import javafx.stage.Stage;
 
 public class Main extends Application {
 
+    // Expires unpaid "Pay Later" reservations and gives their seats back
+    private final ReservationExpiryService expiryService = new ReservationExpiryService(
+            RepositoryProvider.getReservationRepository(),
+            RepositoryProvider.getTicketRepository(),
+            RepositoryProvider.getFlightRepository()
+    );
+
+    // Moves reservations and tickets of long-departed flights off the heap
+    private final BookingArchiveService archiveService = new BookingArchiveService(
+            RepositoryProvider.getReservationRepository(),
+            RepositoryProvider.getTicketRepository(),
+            RepositoryProvider.getFlightRepository()
+    );
+
+    // Applies changes made on other terminals as they happen (SUPABASE_REALTIME=false turns it off)
+    private RealtimeFeed realtimeFeed;
+
     @Override
     public void start(Stage primaryStage) {
         primaryStage.setResizable(false);
@@ -22,7 +46,7 @@ public class Main extends Application {
 
         // --- REPLACEMENT CODE ---
         // Instead of manually fetching once, we start the background sync service.
-        // This will run every 5 seconds (as defined in SyncScheduler).
+        // It flushes queued writes on demand and backs off while Supabase is unreachable (see SyncScheduler).
         try {
             SyncScheduler.start(); 
             System.out.println("Background Sync Service Started.");
@@ -31,6 +55,14 @@ public class Main extends Application {
         }
         // ------------------------
 
+        if (Boolean.parseBoolean(AppConfig.get("SUPABASE_REALTIME", "true"))) {
+            realtimeFeed = new RealtimeFeed(RepositoryProvider.getCloudRepositories());
+            realtimeFeed.start();
+        }
+
+        expiryService.start();
+        archiveService.start();
+
         navigation.navigateTo(View.LOGIN);
         primaryStage.show();
     }
@@ -39,6 +71,11 @@ public class Main extends Application {
     public void stop() throws Exception {
         // Good practice: Ensure threads stop when you close the window
         SyncScheduler.stop();
+        if (realtimeFeed != null) realtimeFeed.stop();
+        expiryService.stop();
+        archiveService.stop();
+        PersistenceWriter.flush().join();
+        Database.closeDefault();
         super.stop();
     }
 
@@ -0,0 +1,69 @@
+package artifact.Backend.Repositories.Impl;
+
+import artifact.Backend.Models.Airport;
+import artifact.Backend.Repositories.Storage.PersistenceWriter;
+import artifact.Backend.Services.Impl.SyncService;
+import artifact.Backend.Supabase.StandIn.PostgrestStandIn;
+import artifact.Backend.Supabase.StandIn.TestCloud;
+import artifact.Backend.Supabase.SupabaseSync;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FullPullTest {
+
+    // Synced to its own table, so other tests sharing the stand-in do not see its rows
+    private static class Airports extends BaseJsonRepository<Airport> {
+        Airports(Path dir) {
+            super(dir, "airports.json", new TypeToken<ArrayList<Airport>>(){}.getType(), "/full_pull_airports",
+                    Airport::id, true, null);
+        }
+    }
+
+    private static PostgrestStandIn standIn;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void useStandIn() {
+        standIn = TestCloud.standIn();
+    }
+
+    @AfterEach
+    void drain() {
+        while (SyncService.pendingCount() > 0) SyncService.syncAll();
+        PersistenceWriter.flush().join();
+    }
+
+    @Test
+    void aFullPullMergesRowsAndKeepsUnsentLocalWrites() {
+        Airports airports = new Airports(dir);
+        airports.add(new Airport(1, "A1", "City 1"));
+        airports.add(new Airport(4, "A4", "City 4"));
+        SyncService.syncAll();
+
+        // Meanwhile, on another terminal: 1 renamed, 2 added, 4 deleted
+        standIn.put("full_pull_airports", SupabaseSync.toRow(new Airport(1, "Renamed", "City 1")).getAsJsonObject());
+        standIn.put("full_pull_airports", SupabaseSync.toRow(new Airport(2, "A2", "City 2")).getAsJsonObject());
+        assertTrue(SupabaseSync.deleteBatchAsync("/full_pull_airports", List.of(4L)).join());
+        // And here, not sent yet
+        airports.add(new Airport(3, "A3", "City 3"));
+
+        airports.refreshFromCloud();
+
+        assertEquals(List.of(new Airport(1, "Renamed", "City 1"), new Airport(3, "A3", "City 3"), new Airport(2, "A2", "City 2")),
+                airports.snapshot().items());
+        airports.flush().join();
+        assertEquals(airports.snapshot().items(), new Airports(dir).snapshot().items());
+    }
+}
@@ -0,0 +1,118 @@
+package artifact.Backend.Repositories.Impl;
+
+import artifact.Backend.Models.Airport;
+import artifact.Backend.Repositories.Snapshot.ReadSnapshot;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadSnapshotTest {
+
+    // Keeps its files in the test's temp directory
+    private static class Airports extends BaseJsonRepository<Airport> {
+        Airports(Path dir) {
+            super(dir, "airports.json", new TypeToken<ArrayList<Airport>>(){}.getType(), null, Airport::id, false, null);
+        }
+    }
+
+    @TempDir
+    Path dir;
+
+    private Airports airports;
+
+    @BeforeEach
+    void open() {
+        airports = new Airports(dir);
+        for (long id = 1; id <= 3; id++) airports.add(new Airport(id, "A" + id, "City " + id));
+    }
+
+    @AfterEach
+    void close() {
+        // Snapshot writes are queued; let them finish before the directory is removed
+        airports.flush().join();
+    }
+
+    @Test
+    void aSnapshotDoesNotChangeWhenTheRepositoryDoes() {
+        ReadSnapshot<Airport> before = airports.snapshot();
+
+        airports.add(new Airport(4, "A4", "City 4"));
+        airports.update(new Airport(1, "Renamed", "City 1"));
+        airports.delete(2);
+
+        assertEquals(List.of(new Airport(1, "A1", "City 1"), new Airport(2, "A2", "City 2"), new Airport(3, "A3", "City 3")),
+                before.items());
+        assertEquals(List.of(new Airport(1, "Renamed", "City 1"), new Airport(3, "A3", "City 3"), new Airport(4, "A4", "City 4")),
+                airports.snapshot().items());
+    }
+
+    @Test
+    void readsWithoutWritesInBetweenShareOneSnapshot() {
+        ReadSnapshot<Airport> first = airports.snapshot();
+
+        assertSame(first, airports.snapshot());
+
+        airports.add(new Airport(4, "A4", "City 4"));
+        ReadSnapshot<Airport> afterWrite = airports.snapshot();
+        assertNotSame(first, afterWrite);
+        assertTrue(afterWrite.version() > first.version());
+        assertSame(afterWrite, airports.snapshot());
+    }
+
+    @Test
+    void snapshotsCannotBeModified() {
+        ReadSnapshot<Airport> snapshot = airports.snapshot();
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.items().add(new Airport(9, "X", "Y")));
+    }
+
+    @Test
+    void readersIterateWhileAWriterKeepsWriting() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(5);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<?>> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            readers.add(pool.submit(() -> {
+                long lastVersion = -1;
+                while (writing.get()) {
+                    ReadSnapshot<Airport> snapshot = airports.snapshot();
+                    // Iterating a snapshot never sees a concurrent write (no ConcurrentModificationException)
+                    long ids = snapshot.stream().mapToLong(Airport::id).distinct().count();
+                    assertEquals(snapshot.size(), ids);
+                    assertTrue(snapshot.version() >= lastVersion, "versions only move forward");
+                    lastVersion = snapshot.version();
+                }
+            }));
+        }
+        Future<?> writer = pool.submit(() -> {
+            for (long id = 4; id < 2_000; id++) {
+                airports.add(new Airport(id, "A" + id, "City"));
+                if (id % 3 == 0) airports.delete(id - 1);
+            }
+            writing.set(false);
+        });
+
+        writer.get(60, TimeUnit.SECONDS);
+        for (Future<?> reader : readers) reader.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(airports.count(), airports.snapshot().size());
+    }
+}
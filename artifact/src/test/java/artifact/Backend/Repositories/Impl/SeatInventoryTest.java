@@ -0,0 +1,144 @@
+package artifact.Backend.Repositories.Impl;
+
+import artifact.Backend.Models.Flight;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeatInventoryTest {
+
+    private static final int THREADS = 16;
+
+    private static Flight flight(long id, int seats) {
+        LocalDateTime departure = LocalDateTime.of(2030, 1, 1, 10, 0);
+        return new Flight(id, 1, 2, 1, 1, departure, departure.plusHours(2), seats, 0);
+    }
+
+    private static SeatInventory inventory(Flight... flights) {
+        SeatInventory inventory = new SeatInventory();
+        inventory.rebuild(List.of(flights));
+        return inventory;
+    }
+
+    @Test
+    void concurrentBookersNeverOversell() throws Exception {
+        int capacity = 500;
+        SeatInventory inventory = inventory(flight(1, capacity));
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> sold = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            sold.add(pool.submit(() -> {
+                start.await();
+                int taken = 0;
+                // Group bookings of 1-9 seats until the flight refuses even a single seat
+                while (true) {
+                    int count = ThreadLocalRandom.current().nextInt(1, 10);
+                    if (inventory.tryReserve(1, count)) {
+                        taken += count;
+                    } else if (!inventory.tryReserve(1, 1)) {
+                        return taken;
+                    } else {
+                        taken++;
+                    }
+                }
+            }));
+        }
+        start.countDown();
+
+        int total = 0;
+        for (Future<Integer> f : sold) total += f.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(capacity, total, "every seat sold exactly once");
+        assertEquals(0, inventory.available(1));
+    }
+
+    @Test
+    void concurrentReleasesAndSalesKeepTheCount() throws Exception {
+        int capacity = 200;
+        SeatInventory inventory = inventory(flight(1, capacity));
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> work = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            work.add(pool.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    if (inventory.tryReserve(1, 2)) inventory.release(1, 2);
+                    int available = inventory.available(1);
+                    assertTrue(available >= 0 && available <= capacity, "count out of range: " + available);
+                }
+            }));
+        }
+        for (Future<?> f : work) f.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(capacity, inventory.available(1));
+    }
+
+    @Test
+    void flightsDoNotShareSeats() {
+        SeatInventory inventory = inventory(flight(1, 2), flight(2, 5));
+
+        assertTrue(inventory.tryReserve(1, 2));
+        assertFalse(inventory.tryReserve(1, 1));
+        assertTrue(inventory.tryReserve(2, 5));
+        assertEquals(0, inventory.available(2));
+    }
+
+    @Test
+    void refusesMoreSeatsThanAreLeftWithoutTakingAny() {
+        SeatInventory inventory = inventory(flight(1, 3));
+
+        assertFalse(inventory.tryReserve(1, 4));
+        assertEquals(3, inventory.available(1));
+        assertFalse(inventory.tryReserve(1, 0));
+        assertFalse(inventory.tryReserve(99, 1), "unknown flight");
+    }
+
+    @Test
+    void adjustKeepsSalesNotYetWrittenBack() {
+        SeatInventory inventory = inventory(flight(1, 10));
+        assertTrue(inventory.tryReserve(1, 3));
+
+        // The stored record still says 10; an edit to 15 moves the counter by +5
+        inventory.adjust(1, 15 - 10);
+
+        assertEquals(12, inventory.available(1));
+    }
+
+    @Test
+    void plainUpdatesDoNotResetTheCounter() {
+        Flight stored = flight(1, 10);
+        SeatInventory inventory = inventory(stored);
+        assertTrue(inventory.tryReserve(1, 4));
+
+        // A write-back of an older counter value must not undo the sale
+        inventory.onPut(stored, flight(1, 8));
+
+        assertEquals(6, inventory.available(1));
+    }
+
+    @Test
+    void countersFollowTheirFlights() {
+        SeatInventory inventory = new SeatInventory();
+        Flight added = flight(7, 4);
+
+        inventory.onPut(null, added);
+        assertEquals(4, inventory.available(7));
+
+        inventory.onRemove(added);
+        assertEquals(-1, inventory.available(7));
+    }
+}
@@ -0,0 +1,65 @@
+package artifact.Backend.Repositories.Impl;
+
+import artifact.Backend.Models.Airport;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SnapshotFailureTest {
+
+    private static class Airports extends BaseJsonRepository<Airport> {
+        Airports(Path dir, boolean journaled) {
+            super(dir, "airports.json", new TypeToken<ArrayList<Airport>>(){}.getType(), null, Airport::id, journaled, null);
+        }
+    }
+
+    @TempDir
+    Path dir;
+
+    // A directory where the snapshot's temp file goes makes every snapshot write fail
+    private Path blockSnapshots() throws IOException {
+        return Files.createDirectory(dir.resolve("airports.json.tmp"));
+    }
+
+    @Test
+    void aFlushFailsUntilTheSnapshotIsWritten() throws IOException {
+        Airports airports = new Airports(dir, false);
+        Path blocker = blockSnapshots();
+
+        airports.add(new Airport(1, "A1", "City 1"));
+        assertThrows(CompletionException.class, () -> airports.flush().join());
+        // Nothing newer was queued, so the failure still stands
+        assertThrows(CompletionException.class, () -> airports.flush().join());
+
+        Files.delete(blocker);
+        airports.add(new Airport(2, "A2", "City 2"));
+        airports.flush().join();
+
+        assertEquals(2, new Airports(dir, false).snapshot().items().size());
+    }
+
+    @Test
+    void aFailedSnapshotLeavesTheJournalInPlace() throws IOException {
+        Airports airports = new Airports(dir, true);
+        airports.add(new Airport(1, "A1", "City 1"));
+        airports.add(new Airport(2, "A2", "City 2"));
+        airports.flush().join();
+        Path blocker = blockSnapshots();
+
+        airports.save();
+        Files.delete(blocker);
+
+        assertEquals(List.of(new Airport(1, "A1", "City 1"), new Airport(2, "A2", "City 2")),
+                new Airports(dir, true).snapshot().items());
+    }
+}
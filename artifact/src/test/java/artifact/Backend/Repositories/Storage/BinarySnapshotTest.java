@@ -0,0 +1,137 @@
+package artifact.Backend.Repositories.Storage;
+
+import artifact.Backend.Config.GsonProvider;
+import artifact.Backend.Models.Reservation;
+import artifact.Backend.Tags.BookingStatus;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinarySnapshotTest {
+
+    private static final Type RESERVATIONS = new TypeToken<ArrayList<Reservation>>(){}.getType();
+
+    private static List<Reservation> reservations(int count) {
+        List<Reservation> rows = new ArrayList<>(count);
+        LocalDate day = LocalDate.of(2030, 3, 1);
+        for (int i = 1; i <= count; i++) {
+            boolean pending = i % 3 == 0;
+            rows.add(new Reservation(i, i % 40, "Customer " + i, "0300" + i, (i % 30 + 1) + "C",
+                    day.plusDays(i % 90), 120.5 + i % 50,
+                    pending ? BookingStatus.PENDING : BookingStatus.CONFIRMED,
+                    i % 5 == 0 ? null : "admin",
+                    pending ? LocalDateTime.of(2030, 3, 1, 12, 0).plusMinutes(i) : null));
+        }
+        return rows;
+    }
+
+    private static byte[] writeBinary(List<Reservation> rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinarySnapshot.write(bytes, rows, RecordCodecs.RESERVATION);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] writeJson(List<Reservation> rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+            GsonProvider.getGson().toJson(rows, writer);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<Reservation> readJson(byte[] json) throws IOException {
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8)) {
+            return GsonProvider.getGson().fromJson(reader, RESERVATIONS);
+        }
+    }
+
+    @Test
+    void roundTripKeepsEveryField() throws IOException {
+        List<Reservation> rows = new ArrayList<>(reservations(50));
+        rows.add(new Reservation(51, 1, null, null, null, null, 0, null, null, null));
+
+        List<Reservation> read = BinarySnapshot.read(new ByteArrayInputStream(writeBinary(rows)), RecordCodecs.RESERVATION);
+
+        assertEquals(rows, read);
+    }
+
+    @Test
+    void rejectsAFileWrittenWithAnUnknownSchema() throws IOException {
+        RecordCodec<Reservation> other = new RecordCodec<>() {
+            @Override
+            public String schema() {
+                return "reservation:something-else";
+            }
+
+            @Override
+            public void write(DataOutputStream out, Reservation record) throws IOException {
+                RecordCodecs.RESERVATION.write(out, record);
+            }
+
+            @Override
+            public Reservation read(DataInputStream in) throws IOException {
+                return RecordCodecs.RESERVATION.read(in);
+            }
+        };
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinarySnapshot.write(bytes, reservations(3), other);
+
+        IOException error = assertThrows(IOException.class,
+                () -> BinarySnapshot.read(new ByteArrayInputStream(bytes.toByteArray()), RecordCodecs.RESERVATION));
+        assertTrue(error.getMessage().contains("schema mismatch"), error.getMessage());
+    }
+
+    @Test
+    void rejectsAJsonFile() throws IOException {
+        byte[] json = writeJson(reservations(3));
+
+        assertThrows(IOException.class, () -> BinarySnapshot.read(new ByteArrayInputStream(json), RecordCodecs.RESERVATION));
+    }
+
+    // Not a pass/fail timing (CI machines vary): checks both formats load the same rows, that the binary
+    // file is the smaller one, and prints the times for comparison
+    @Test
+    void benchmarkAgainstJson() throws IOException {
+        List<Reservation> rows = reservations(50_000);
+        byte[] binary = writeBinary(rows);
+        byte[] json = writeJson(rows);
+
+        long binaryNanos = Long.MAX_VALUE;
+        long jsonNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            List<Reservation> fromBinary = BinarySnapshot.read(new ByteArrayInputStream(binary), RecordCodecs.RESERVATION);
+            binaryNanos = Math.min(binaryNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            List<Reservation> fromJson = readJson(json);
+            jsonNanos = Math.min(jsonNanos, System.nanoTime() - start);
+
+            assertEquals(rows, fromBinary);
+            assertEquals(rows, fromJson);
+        }
+
+        System.out.printf("Loading %d reservations: binary %d ms (%d KB), JSON %d ms (%d KB)%n", rows.size(),
+                binaryNanos / 1_000_000, binary.length / 1024, jsonNanos / 1_000_000, json.length / 1024);
+        assertTrue(binary.length < json.length, "binary snapshot should be smaller than the JSON file");
+    }
+}
@@ -0,0 +1,59 @@
+package artifact.Backend.Repositories.Storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdSequenceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void idsAreNotReusedAfterARestart() {
+        Path file = dir.resolve("items.ids");
+        IdSequence first = new IdSequence(file, 10);
+        first.observe(4);
+        assertEquals(5, first.next());
+        assertEquals(6, first.next());
+
+        // The highest record was deleted, so nothing is observed: the file still knows the block was taken
+        IdSequence restarted = new IdSequence(file, 10);
+        assertEquals(15, restarted.next());
+    }
+
+    @Test
+    void twoInstancesOnOneFileGetSeparateBlocks() {
+        Path file = dir.resolve("items.ids");
+        IdSequence a = new IdSequence(file, 10);
+        IdSequence b = new IdSequence(file, 10);
+
+        long fromA = a.next();
+        long fromB = b.next();
+
+        assertTrue(Math.abs(fromA - fromB) >= 10);
+    }
+
+    @Test
+    void withoutAUsableFileIdsFollowTheHighestOneSeenUntilTheFileWorksAgain() throws IOException {
+        // The sequence file cannot be created inside a regular file
+        Path parent = Files.createFile(dir.resolve("data"));
+        Path file = parent.resolve("items.ids");
+        IdSequence ids = new IdSequence(file, 10);
+        ids.observe(41);
+
+        assertEquals(42, ids.next());
+
+        // Nothing was reserved for 42, so the next ID goes back to the file
+        Files.delete(parent);
+        Files.createDirectory(parent);
+        assertEquals(43, ids.next());
+        assertEquals("52", Files.readString(file).trim());
+    }
+}
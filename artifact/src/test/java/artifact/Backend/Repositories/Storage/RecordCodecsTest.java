@@ -0,0 +1,132 @@
+package artifact.Backend.Repositories.Storage;
+
+import artifact.Backend.Models.Flight;
+import artifact.Backend.Models.SupportMessage;
+import artifact.Backend.Models.SupportTicket;
+import artifact.Backend.Tags.TicketStatus;
+import artifact.Backend.Tags.UserRole;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static artifact.Backend.Repositories.Storage.BinarySnapshot.writeDate;
+import static artifact.Backend.Repositories.Storage.BinarySnapshot.writeDateTime;
+import static artifact.Backend.Repositories.Storage.BinarySnapshot.writeEnum;
+import static artifact.Backend.Repositories.Storage.BinarySnapshot.writeString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecordCodecsTest {
+
+    private static final String VERSION_FIELD = ",version:long";
+    private static final LocalDateTime DEPARTURE = LocalDateTime.of(2030, 5, 1, 9, 30);
+
+    // The layout before rows were versioned: the current fields without the trailing version
+    private static <T> RecordCodec<T> unversioned(RecordCodec<T> current, Writer<T> fields) {
+        return new RecordCodec<>() {
+            @Override
+            public String schema() {
+                return current.schema().substring(0, current.schema().length() - VERSION_FIELD.length());
+            }
+
+            @Override
+            public void write(DataOutputStream out, T record) throws IOException {
+                fields.write(out, record);
+            }
+
+            @Override
+            public T read(DataInputStream in) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface Writer<T> {
+        void write(DataOutputStream out, T record) throws IOException;
+    }
+
+    private static final RecordCodec<Flight> OLD_FLIGHT = unversioned(RecordCodecs.FLIGHT, (out, f) -> {
+        out.writeLong(f.id());
+        out.writeLong(f.departureAirportId());
+        out.writeLong(f.arrivalAirportId());
+        out.writeLong(f.aircraftId());
+        out.writeLong(f.crewId());
+        writeDateTime(out, f.departureTime());
+        writeDateTime(out, f.arrivalTime());
+        out.writeInt(f.availableSeats());
+    });
+
+    private static <T> List<T> roundTrip(List<T> records, RecordCodec<T> writer, RecordCodec<T> reader) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinarySnapshot.write(bytes, records, writer);
+        return BinarySnapshot.read(new ByteArrayInputStream(bytes.toByteArray()), reader);
+    }
+
+    private static Flight flight(long id, long version) {
+        return new Flight(id, 1, 2, 3, 4, DEPARTURE, DEPARTURE.plusHours(3), 150, version);
+    }
+
+    private static SupportTicket ticket(long id, long version) {
+        List<SupportMessage> messages = List.of(
+                new SupportMessage("Sam", UserRole.CUSTOMER, "Where is my refund?", DEPARTURE),
+                new SupportMessage("Jo", UserRole.ADMIN, "On its way", DEPARTURE.plusMinutes(5)));
+        return new SupportTicket(id, 9, "Sam", "Refund", TicketStatus.OPEN, LocalDate.of(2030, 4, 30), messages, version);
+    }
+
+    @Test
+    void versionsSurviveARoundTrip() throws IOException {
+        assertEquals(List.of(flight(1, 4), flight(2, 0)),
+                roundTrip(List.of(flight(1, 4), flight(2, 0)), RecordCodecs.FLIGHT, RecordCodecs.FLIGHT));
+        assertEquals(List.of(ticket(1, 2)),
+                roundTrip(List.of(ticket(1, 2)), RecordCodecs.SUPPORT_TICKET, RecordCodecs.SUPPORT_TICKET));
+    }
+
+    @Test
+    void flightsWrittenBeforeVersioningReadAsVersionZero() throws IOException {
+        List<Flight> read = roundTrip(List.of(flight(1, 7), flight(2, 7)), OLD_FLIGHT, RecordCodecs.FLIGHT);
+
+        assertEquals(List.of(flight(1, 0), flight(2, 0)), read);
+    }
+
+    @Test
+    void supportTicketsWrittenBeforeVersioningReadAsVersionZero() throws IOException {
+        RecordCodec<SupportTicket> old = unversioned(RecordCodecs.SUPPORT_TICKET, (out, t) -> {
+            out.writeLong(t.id());
+            out.writeLong(t.userId());
+            writeString(out, t.userName());
+            writeString(out, t.subject());
+            writeEnum(out, t.status());
+            writeDate(out, t.createdAt());
+            if (t.messages() == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(t.messages().size());
+                for (SupportMessage m : t.messages()) {
+                    writeString(out, m.senderName());
+                    writeEnum(out, m.senderRole());
+                    writeString(out, m.message());
+                    writeDateTime(out, m.timestamp());
+                }
+            }
+        });
+        SupportTicket noMessages = new SupportTicket(2, 9, null, null, null, null, null, 3);
+
+        List<SupportTicket> read = roundTrip(List.of(ticket(1, 5), noMessages), old, RecordCodecs.SUPPORT_TICKET);
+
+        assertEquals(List.of(ticket(1, 0), new SupportTicket(2, 9, null, null, null, null, null, 0)), read);
+    }
+
+    @Test
+    void aMigratedSnapshotIsWrittenBackInTheCurrentLayout() throws IOException {
+        List<Flight> migrated = roundTrip(List.of(flight(1, 0)), OLD_FLIGHT, RecordCodecs.FLIGHT);
+
+        assertEquals(migrated, roundTrip(migrated, RecordCodecs.FLIGHT, RecordCodecs.FLIGHT));
+    }
+}
@@ -0,0 +1,118 @@
+package artifact.Backend.Repositories.Storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SnapshotFileTest {
+
+    @TempDir
+    Path dir;
+
+    private static void write(Path path, String text) throws IOException {
+        SnapshotFile.write(path, out -> out.write(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String read(Path path) throws IOException {
+        return SnapshotFile.read(path, in -> new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    private static void flipByte(Path path, long position) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(position);
+            int b = file.read();
+            file.seek(position);
+            file.write(b ^ 0xFF);
+        }
+    }
+
+    @Test
+    void readsBackWhatWasWrittenWithoutTheTrailer() throws IOException {
+        Path path = dir.resolve("flights.json");
+        write(path, "[1,2,3]");
+
+        assertEquals("[1,2,3]", read(path));
+        assertFalse(Files.exists(dir.resolve("flights.json.tmp")));
+    }
+
+    @Test
+    void keepsThePreviousGeneration() throws IOException {
+        Path path = dir.resolve("flights.json");
+        write(path, "first");
+        write(path, "second");
+
+        assertEquals("second", read(path));
+        assertEquals("first", read(SnapshotFile.previousOf(path)));
+    }
+
+    @Test
+    void fallsBackToThePreviousGenerationOnAChecksumMismatch() throws IOException {
+        Path path = dir.resolve("flights.json");
+        write(path, "first");
+        write(path, "second");
+        flipByte(path, 2);
+
+        assertEquals("first", read(path));
+    }
+
+    @Test
+    void fallsBackToThePreviousGenerationWhenTruncated() throws IOException {
+        Path path = dir.resolve("flights.json");
+        write(path, "first");
+        write(path, "second generation");
+        byte[] bytes = Files.readAllBytes(path);
+        // Cut out part of the payload but keep the trailer, as a torn write followed by a rename would
+        byte[] torn = new byte[bytes.length - 4];
+        System.arraycopy(bytes, 4, torn, 0, torn.length);
+        Files.write(path, torn);
+
+        assertEquals("first", read(path));
+    }
+
+    @Test
+    void failsWhenNoGenerationIsIntact() throws IOException {
+        Path path = dir.resolve("flights.json");
+        write(path, "first");
+        write(path, "second");
+        flipByte(path, 1);
+        flipByte(SnapshotFile.previousOf(path), 1);
+
+        assertThrows(IOException.class, () -> read(path));
+    }
+
+    @Test
+    void acceptsFilesWithoutATrailer() throws IOException {
+        Path path = dir.resolve("legacy.json");
+        Files.writeString(path, "[{\"id\":1}]");
+
+        assertEquals("[{\"id\":1}]", read(path));
+    }
+
+    @Test
+    void returnsNullWhenThereIsNoFile() throws IOException {
+        assertNull(read(dir.resolve("missing.json")));
+    }
+
+    @Test
+    void aFailedWriteLeavesTheCurrentGenerationAlone() throws IOException {
+        Path path = dir.resolve("flights.json");
+        write(path, "intact");
+
+        assertThrows(IOException.class, () -> SnapshotFile.write(path, out -> {
+            out.write("half".getBytes(StandardCharsets.UTF_8));
+            throw new IOException("disk full");
+        }));
+
+        assertEquals("intact", read(path));
+    }
+}
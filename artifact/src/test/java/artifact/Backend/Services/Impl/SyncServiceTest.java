@@ -0,0 +1,117 @@
+package artifact.Backend.Services.Impl;
+
+import artifact.Backend.Repositories.Storage.PersistenceWriter;
+import artifact.Backend.Supabase.StandIn.PostgrestStandIn;
+import artifact.Backend.Supabase.StandIn.TestCloud;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SyncServiceTest {
+
+    private static PostgrestStandIn standIn;
+
+    @BeforeAll
+    static void useStandIn() {
+        standIn = TestCloud.standIn();
+    }
+
+    @AfterEach
+    void drain() {
+        standIn.setLatency(0, 0);
+        while (SyncService.pendingCount() > 0) SyncService.syncAll();
+        // Acknowledgements are queued; let them reach the outbox before the next test
+        PersistenceWriter.flush().join();
+    }
+
+    private static JsonObject row(long id, String column, long value) {
+        JsonObject row = new JsonObject();
+        row.addProperty("id", id);
+        if (column != null) row.addProperty(column, value);
+        return row;
+    }
+
+    private static String stamp(String table, long id) {
+        return standIn.rows(table).stream()
+                .filter(r -> r.get("id").getAsLong() == id)
+                .findFirst().orElseThrow()
+                .get("updated_at").getAsString();
+    }
+
+    @Test
+    void theReturnedFutureCompletesOnceTheRowIsInTheOutboxFile() throws IOException {
+        SyncService.enqueue("/users", row(30, "age", 41)).join();
+
+        assertTrue(Files.readString(TestCloud.outbox()).contains("\"age\":41"));
+    }
+
+    @Test
+    void writesWaitWhileTheTableTheyReferenceIsStillInFlight() {
+        standIn.setLatency(300, 0);
+        SyncService.enqueue("/reservations", row(1, "flight_id", 1));
+        CompletableFuture<List<SyncService.BatchResult>> first = SyncService.syncAllAsync();
+
+        // Reservation 2 waits for the lane above, so its ticket must not go out before it
+        SyncService.enqueue("/reservations", row(2, "flight_id", 1));
+        SyncService.enqueue("/tickets", row(1, "reservation_id", 2));
+        assertEquals(List.of(), SyncService.syncAllAsync().join());
+        assertEquals(2, SyncService.pendingCount());
+
+        first.join();
+        standIn.setLatency(0, 0);
+        List<SyncService.BatchResult> second = SyncService.syncAll();
+
+        assertEquals(2, second.size());
+        assertTrue(second.stream().allMatch(SyncService.BatchResult::success));
+        assertTrue(stamp("reservations", 2).compareTo(stamp("tickets", 1)) < 0, "reservation stored before its ticket");
+    }
+
+    @Test
+    void deletesWaitWhileTheTablesReferencingThemAreStillInFlight() {
+        SyncService.enqueue("/flights", row(10, null, 0));
+        SyncService.enqueue("/reservations", row(10, "flight_id", 10));
+        SyncService.syncAll();
+
+        standIn.setLatency(300, 0);
+        SyncService.enqueue("/reservations", row(11, "flight_id", 10));
+        CompletableFuture<List<SyncService.BatchResult>> first = SyncService.syncAllAsync();
+
+        // The reservation's delete waits for the lane above, so the flight's delete must wait too
+        SyncService.enqueueDelete("/reservations", 10);
+        SyncService.enqueueDelete("/flights", 10);
+        assertEquals(List.of(), SyncService.syncAllAsync().join());
+        assertEquals(2, SyncService.pendingCount());
+
+        first.join();
+        standIn.setLatency(0, 0);
+        List<SyncService.BatchResult> second = SyncService.syncAll();
+
+        assertEquals(2, second.size());
+        assertTrue(standIn.rows("flights").stream().noneMatch(r -> r.get("id").getAsLong() == 10));
+        assertTrue(standIn.rows("reservations").stream().noneMatch(r -> r.get("id").getAsLong() == 10));
+    }
+
+    @Test
+    void unrelatedTablesAreNotHeldBack() {
+        standIn.setLatency(300, 0);
+        SyncService.enqueue("/reservations", row(20, "flight_id", 1));
+        CompletableFuture<List<SyncService.BatchResult>> first = SyncService.syncAllAsync();
+
+        SyncService.enqueue("/reservations", row(21, "flight_id", 1));
+        SyncService.enqueue("/users", row(20, null, 0));
+        List<SyncService.BatchResult> second = SyncService.syncAllAsync().join();
+
+        assertEquals(List.of(new SyncService.BatchResult("/users", 1, true)), second);
+        assertEquals(1, SyncService.pendingCount());
+        first.join();
+    }
+}
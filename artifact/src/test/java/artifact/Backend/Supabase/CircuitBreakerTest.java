@@ -0,0 +1,90 @@
+package artifact.Backend.Supabase;
+
+import artifact.Backend.Supabase.SyncScheduler.Circuit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private static final int THRESHOLD = 3;
+    private static final long OPEN_MS = 30_000;
+    private static final long BASE_MS = 1_000;
+    private static final long MAX_MS = 8_000;
+
+    private final CircuitBreaker breaker = new CircuitBreaker(THRESHOLD, OPEN_MS, BASE_MS, MAX_MS);
+
+    private long failFlush() {
+        breaker.flushing();
+        return breaker.failed();
+    }
+
+    @Test
+    void retriesWithBackoffBelowTheThreshold() {
+        for (int attempt = 1; attempt < THRESHOLD; attempt++) {
+            long delay = failFlush();
+            long step = BASE_MS << (attempt - 1);
+            assertTrue(delay >= step / 2 && delay <= step, "attempt " + attempt + " waited " + delay);
+            assertEquals(Circuit.CLOSED, breaker.circuit());
+        }
+        assertEquals(THRESHOLD - 1, breaker.failures());
+    }
+
+    @Test
+    void opensAfterTheThreshold() {
+        for (int attempt = 1; attempt < THRESHOLD; attempt++) failFlush();
+
+        assertEquals(OPEN_MS, failFlush());
+        assertEquals(Circuit.OPEN, breaker.circuit());
+        assertEquals(THRESHOLD, breaker.failures());
+    }
+
+    @Test
+    void theFlushAfterOpeningIsAHalfOpenProbe() {
+        for (int attempt = 0; attempt < THRESHOLD; attempt++) failFlush();
+
+        breaker.flushing();
+
+        assertEquals(Circuit.HALF_OPEN, breaker.circuit());
+    }
+
+    @Test
+    void aFailedProbeOpensTheCircuitAgain() {
+        for (int attempt = 0; attempt < THRESHOLD; attempt++) failFlush();
+
+        assertEquals(OPEN_MS, failFlush());
+        assertEquals(Circuit.OPEN, breaker.circuit());
+    }
+
+    @Test
+    void aSuccessfulProbeClosesTheCircuit() {
+        for (int attempt = 0; attempt < THRESHOLD; attempt++) failFlush();
+        breaker.flushing();
+
+        assertTrue(breaker.succeeded(), "reported as restored");
+        assertEquals(Circuit.CLOSED, breaker.circuit());
+        assertEquals(0, breaker.failures());
+    }
+
+    @Test
+    void aSuccessResetsTheFailureCount() {
+        for (int attempt = 1; attempt < THRESHOLD; attempt++) failFlush();
+        breaker.flushing();
+        assertFalse(breaker.succeeded(), "the circuit never opened");
+
+        // Counting starts over: the threshold is needed again before the circuit opens
+        for (int attempt = 1; attempt < THRESHOLD; attempt++) failFlush();
+        assertEquals(Circuit.CLOSED, breaker.circuit());
+    }
+
+    @Test
+    void backoffIsCappedAtTheMaximum() {
+        for (int attempt = 1; attempt <= 40; attempt++) {
+            long delay = breaker.backoff(attempt);
+            assertTrue(delay >= 0 && delay <= MAX_MS, "attempt " + attempt + " waited " + delay);
+        }
+        assertTrue(breaker.backoff(40) >= MAX_MS / 2);
+    }
+}
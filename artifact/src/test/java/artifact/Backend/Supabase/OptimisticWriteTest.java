@@ -0,0 +1,90 @@
+package artifact.Backend.Supabase;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OptimisticWriteTest {
+
+    private static JsonObject row(String json) {
+        return JsonParser.parseString(json).getAsJsonObject();
+    }
+
+    @Test
+    void columnsNotChangedLocallyTakeTheCloudValue() {
+        JsonObject base = row("{\"id\":1,\"subject\":\"Refund\",\"status\":\"OPEN\"}");
+        JsonObject local = row("{\"id\":1,\"subject\":\"Refund\",\"status\":\"RESOLVED\"}");
+        JsonObject cloud = row("{\"id\":1,\"subject\":\"Refund please\",\"status\":\"OPEN\"}");
+
+        JsonObject merged = OptimisticWrite.merge("/support_tickets", base, local, cloud);
+
+        assertEquals(row("{\"id\":1,\"subject\":\"Refund please\",\"status\":\"RESOLVED\"}"), merged);
+    }
+
+    @Test
+    void aLocalChangeWinsOverTheCloud() {
+        JsonObject base = row("{\"id\":1,\"status\":\"OPEN\"}");
+        JsonObject local = row("{\"id\":1,\"status\":\"RESOLVED\"}");
+        JsonObject cloud = row("{\"id\":1,\"status\":\"IN_PROGRESS\"}");
+
+        assertEquals(local, OptimisticWrite.merge("/support_tickets", base, local, cloud));
+    }
+
+    @Test
+    void seatCountsAddUpTheChangesOfBothSides() {
+        // 2 seats sold here, 5 on another terminal since the base
+        JsonObject base = row("{\"id\":7,\"available_seats\":100}");
+        JsonObject local = row("{\"id\":7,\"available_seats\":98}");
+        JsonObject cloud = row("{\"id\":7,\"available_seats\":95}");
+
+        JsonObject merged = OptimisticWrite.merge("/flights", base, local, cloud);
+
+        assertEquals(93, merged.get("available_seats").getAsLong());
+    }
+
+    @Test
+    void deltaMergeOnlyAppliesToItsTable() {
+        JsonObject base = row("{\"id\":7,\"available_seats\":100}");
+        JsonObject local = row("{\"id\":7,\"available_seats\":98}");
+        JsonObject cloud = row("{\"id\":7,\"available_seats\":95}");
+
+        JsonObject merged = OptimisticWrite.merge("/reservations", base, local, cloud);
+
+        assertEquals(98, merged.get("available_seats").getAsLong());
+    }
+
+    @Test
+    void messagesAppendedOnBothSidesAreKept() {
+        JsonObject base = row("{\"id\":3,\"messages\":[\"hello\"]}");
+        JsonObject local = row("{\"id\":3,\"messages\":[\"hello\",\"from here\"]}");
+        JsonObject cloud = row("{\"id\":3,\"messages\":[\"hello\",\"from there\"]}");
+
+        JsonObject merged = OptimisticWrite.merge("/support_tickets", base, local, cloud);
+
+        assertEquals(JsonParser.parseString("[\"hello\",\"from there\",\"from here\"]"), merged.get("messages"));
+    }
+
+    @Test
+    void anEditedConversationIsNotAppended() {
+        JsonObject base = row("{\"id\":3,\"messages\":[\"hello\",\"typo\"]}");
+        JsonObject local = row("{\"id\":3,\"messages\":[\"hello\",\"fixed\"]}");
+        JsonObject cloud = row("{\"id\":3,\"messages\":[\"hello\",\"typo\",\"reply\"]}");
+
+        JsonObject merged = OptimisticWrite.merge("/support_tickets", base, local, cloud);
+
+        assertEquals(local.get("messages"), merged.get("messages"));
+    }
+
+    @Test
+    void theResultHasExactlyTheLocalColumns() {
+        JsonObject base = row("{\"id\":1,\"status\":\"OPEN\"}");
+        JsonObject local = row("{\"id\":1,\"status\":\"OPEN\",\"subject\":\"New column\"}");
+        JsonObject cloud = row("{\"id\":1,\"status\":\"RESOLVED\",\"updated_at\":\"2030-01-01T00:00:00Z\"}");
+
+        JsonObject merged = OptimisticWrite.merge("/support_tickets", base, local, cloud);
+
+        assertEquals(row("{\"id\":1,\"status\":\"RESOLVED\",\"subject\":\"New column\"}"), merged);
+    }
+}
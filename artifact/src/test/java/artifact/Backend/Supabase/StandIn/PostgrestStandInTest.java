@@ -0,0 +1,186 @@
+package artifact.Backend.Supabase.StandIn;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostgrestStandInTest {
+
+    private static final HttpClient client = HttpClient.newHttpClient();
+
+    private PostgrestStandIn standIn;
+
+    @BeforeEach
+    void start() throws IOException {
+        standIn = new PostgrestStandIn(0);
+        for (long id = 1; id <= 5; id++) {
+            standIn.put("flights", row("{\"id\":" + id + ",\"available_seats\":" + (id * 10) + ",\"version\":1}"));
+        }
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        standIn.close();
+    }
+
+    private static JsonObject row(String json) {
+        return JsonParser.parseString(json).getAsJsonObject();
+    }
+
+    private HttpResponse<String> send(String method, String pathAndQuery, String body, String prefer) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(standIn.url() + "/rest/v1/" + pathAndQuery))
+                .header("apikey", PostgrestStandIn.API_KEY)
+                .header("Content-Type", "application/json")
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        if (prefer != null) request.header("Prefer", prefer);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private JsonArray get(String pathAndQuery) throws Exception {
+        HttpResponse<String> response = send("GET", pathAndQuery, null, null);
+        assertEquals(200, response.statusCode(), response.body());
+        return JsonParser.parseString(response.body()).getAsJsonArray();
+    }
+
+    private static List<Long> ids(JsonArray rows) {
+        List<Long> ids = new ArrayList<>();
+        rows.forEach(row -> ids.add(row.getAsJsonObject().get("id").getAsLong()));
+        return ids;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void filtersOrdersAndPages() throws Exception {
+        assertEquals(List.of(3L, 4L, 5L), ids(get("flights?select=*&id=gte.3&order=id.asc")));
+        assertEquals(List.of(5L, 4L), ids(get("flights?select=*&order=available_seats.desc&limit=2")));
+        assertEquals(List.of(2L, 4L), ids(get("flights?select=*&id=in.(2,4)&order=id.asc")));
+        assertEquals(List.of(3L), ids(get("flights?select=*&id=gt.1&available_seats=lt.40&id=neq.2&order=id.asc")),
+                "a repeated column must match every one of its filters");
+        assertEquals(List.of(4L, 5L), ids(get("flights?select=*&order=id.asc&offset=3")));
+    }
+
+    @Test
+    void projectsTheSelectedColumns() throws Exception {
+        JsonObject first = get("flights?select=id,version&id=eq.1").get(0).getAsJsonObject();
+
+        assertEquals(row("{\"id\":1,\"version\":1}"), first);
+    }
+
+    @Test
+    void evaluatesOrAndTrees() throws Exception {
+        // The keyset condition used to page delta pulls: (seats > 30) or (seats = 30 and id > last id)
+        String afterTwo = "(available_seats.gt.30,and(available_seats.eq.30,id.gt.2))";
+        assertEquals(List.of(3L, 4L, 5L), ids(get("flights?select=*&order=id.asc&or=" + encode(afterTwo))));
+
+        String afterThree = "(available_seats.gt.30,and(available_seats.eq.30,id.gt.3))";
+        assertEquals(List.of(4L, 5L), ids(get("flights?select=*&order=id.asc&or=" + encode(afterThree))));
+        assertEquals(List.of(3L), ids(get("flights?select=*&and=" + encode("(id.gte.2,id.lte.3,available_seats.eq.30)"))));
+    }
+
+    @Test
+    void aPlainInsertOfAnExistingIdIsAConflictAndWritesNothing() throws Exception {
+        HttpResponse<String> response = send("POST", "flights",
+                "[{\"id\":6,\"available_seats\":1},{\"id\":2,\"available_seats\":1}]", null);
+
+        assertEquals(409, response.statusCode());
+        assertEquals("23505", JsonParser.parseString(response.body()).getAsJsonObject().get("code").getAsString());
+        assertEquals(5, standIn.rows("flights").size(), "the request is applied all together or not at all");
+    }
+
+    @Test
+    void upsertsMergeOrIgnoreDuplicates() throws Exception {
+        HttpResponse<String> merged = send("POST", "flights", "[{\"id\":2,\"available_seats\":7},{\"id\":6,\"available_seats\":60}]",
+                "resolution=merge-duplicates,return=representation");
+        assertEquals(201, merged.statusCode());
+        assertEquals(2, JsonParser.parseString(merged.body()).getAsJsonArray().size());
+
+        HttpResponse<String> ignored = send("POST", "flights", "[{\"id\":3,\"available_seats\":0}]",
+                "resolution=ignore-duplicates,return=minimal");
+        assertEquals(201, ignored.statusCode());
+
+        assertEquals(7, get("flights?select=*&id=eq.2").get(0).getAsJsonObject().get("available_seats").getAsInt());
+        assertEquals(1, get("flights?select=*&id=eq.2").get(0).getAsJsonObject().get("version").getAsInt(), "other columns kept");
+        assertEquals(30, get("flights?select=*&id=eq.3").get(0).getAsJsonObject().get("available_seats").getAsInt());
+        assertEquals(6, standIn.rows("flights").size());
+    }
+
+    @Test
+    void conditionalPatchOnlyWritesTheExpectedVersion() throws Exception {
+        String body = "{\"available_seats\":9,\"version\":2}";
+
+        HttpResponse<String> stale = send("PATCH", "flights?id=eq.1&version=eq.0", body, "return=representation");
+        assertEquals(200, stale.statusCode());
+        assertEquals(0, JsonParser.parseString(stale.body()).getAsJsonArray().size(), "no row had the expected version");
+
+        HttpResponse<String> current = send("PATCH", "flights?id=eq.1&version=eq.1", body, "return=representation");
+        JsonArray written = JsonParser.parseString(current.body()).getAsJsonArray();
+        assertEquals(1, written.size());
+        assertEquals(2, written.get(0).getAsJsonObject().get("version").getAsInt());
+        assertTrue(written.get(0).getAsJsonObject().has("updated_at"));
+    }
+
+    @Test
+    void writesAreStampedInIncreasingOrder() throws Exception {
+        send("PATCH", "flights?id=eq.1", "{\"available_seats\":1}", null);
+        send("PATCH", "flights?id=eq.2", "{\"available_seats\":2}", null);
+
+        JsonArray rows = get("flights?select=*&updated_at=gte.2000-01-01&order=updated_at.asc");
+        assertEquals(List.of(1L, 2L), ids(rows));
+        String first = rows.get(0).getAsJsonObject().get("updated_at").getAsString();
+        assertEquals(List.of(2L), ids(get("flights?select=*&updated_at=gt." + encode(first))));
+    }
+
+    @Test
+    void deletesLeaveTombstones() throws Exception {
+        HttpResponse<String> response = send("DELETE", "flights?id=in.(1,3)", null, null);
+        assertEquals(204, response.statusCode());
+
+        assertEquals(List.of(2L, 4L, 5L), ids(get("flights?select=*&order=id.asc")));
+        JsonArray tombstones = get("sync_tombstones?select=*&table_name=eq.flights&order=row_id.asc");
+        assertEquals(2, tombstones.size());
+        assertEquals(1, tombstones.get(0).getAsJsonObject().get("row_id").getAsLong());
+        assertEquals(3, tombstones.get(1).getAsJsonObject().get("row_id").getAsLong());
+        assertFalse(tombstones.get(0).getAsJsonObject().get("deleted_at").getAsString().isEmpty());
+    }
+
+    @Test
+    void injectedFailuresAreNotApplied() throws Exception {
+        standIn.setErrorRate(1);
+
+        HttpResponse<String> response = send("POST", "flights", "{\"id\":9}", null);
+
+        assertEquals(503, response.statusCode());
+        assertEquals(5, standIn.rows("flights").size());
+        assertEquals(1, standIn.injectedFailureCount());
+    }
+
+    @Test
+    void lostResponsesAreApplied() throws Exception {
+        standIn.setLostResponseRate(1);
+
+        HttpResponse<String> response = send("POST", "flights", "{\"id\":9}", null);
+
+        assertEquals(503, response.statusCode());
+        assertEquals(6, standIn.rows("flights").size(), "the write went through, only the answer was lost");
+    }
+}
@@ -0,0 +1,45 @@
+package artifact.Backend.Supabase.StandIn;
+
+import artifact.Backend.Supabase.SupabaseSync;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Points the sync layer at an in-process stand-in, with its outbox and watermarks in a scratch
+ * directory. The settings are read once per JVM, so every test that syncs shares them.
+ */
+public final class TestCloud {
+
+    private static Path dir;
+
+    private TestCloud() {}
+
+    /**
+     * @return The stand-in every sync call of this test run goes to.
+     */
+    public static synchronized PostgrestStandIn standIn() {
+        if (dir == null) {
+            try {
+                dir = Files.createTempDirectory("sync-test");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // Read when SupabaseSync, SyncService and SyncWatermarks are first used
+            System.setProperty("SUPABASE_STAND_IN", "0");
+            System.setProperty("SUPABASE_REALTIME", "false");
+            System.setProperty("SYNC_OUTBOX", outbox().toString());
+            System.setProperty("SYNC_WATERMARKS", dir.resolve("sync_watermarks.properties").toString());
+        }
+        return SupabaseSync.standIn();
+    }
+
+    /**
+     * @return The outbox file the sync queue writes to.
+     */
+    public static synchronized Path outbox() {
+        return dir.resolve("sync_outbox.log");
+    }
+}
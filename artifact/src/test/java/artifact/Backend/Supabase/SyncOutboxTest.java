@@ -0,0 +1,61 @@
+package artifact.Backend.Supabase;
+
+import artifact.Backend.Repositories.Storage.PersistenceWriter;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class SyncOutboxTest {
+
+    @TempDir
+    Path dir;
+
+    private static JsonObject row(long id) {
+        JsonObject row = new JsonObject();
+        row.addProperty("id", id);
+        return row;
+    }
+
+    @Test
+    void unacknowledgedEntriesAreReplayedInOrder() {
+        Path file = dir.resolve("outbox.log");
+        SyncOutbox outbox = new SyncOutbox(file);
+        outbox.recover();
+        long first = outbox.append("/users", SyncOutbox.Op.UPSERT, row(1), null, null).entry().seq();
+        outbox.append("/users", SyncOutbox.Op.DELETE, row(2), null, null).written().join();
+        outbox.ack(List.of(first));
+        PersistenceWriter.flush().join();
+
+        List<SyncOutbox.Entry> replayed = new SyncOutbox(file).recover();
+        PersistenceWriter.flush().join();
+
+        assertEquals(1, replayed.size());
+        assertEquals(SyncOutbox.Op.DELETE, replayed.get(0).op());
+        assertEquals(row(2), replayed.get(0).row());
+    }
+
+    @Test
+    void aRewriteKeepsOnlyTheLiveEntriesAndLeavesNoTemporaryFile() {
+        Path file = dir.resolve("outbox.log");
+        SyncOutbox outbox = new SyncOutbox(file);
+        outbox.recover();
+        long a = outbox.append("/users", SyncOutbox.Op.UPSERT, row(1), null, null).entry().seq();
+        long b = outbox.append("/users", SyncOutbox.Op.UPSERT, row(2), null, null).entry().seq();
+        // Everything acknowledged: the file is rewritten empty, then the next entry is appended to it
+        outbox.ack(List.of(a, b));
+        outbox.append("/users", SyncOutbox.Op.UPSERT, row(3), null, null).written().join();
+
+        List<SyncOutbox.Entry> replayed = new SyncOutbox(file).recover();
+        PersistenceWriter.flush().join();
+
+        assertEquals(List.of(row(3)), replayed.stream().map(SyncOutbox.Entry::row).toList());
+        assertFalse(Files.exists(dir.resolve("outbox.log.tmp")));
+    }
+}